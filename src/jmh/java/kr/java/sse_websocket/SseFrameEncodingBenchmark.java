@@ -0,0 +1,74 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kr.java.sse_websocket.notifications.domain.NotificationMessage;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * broadcast 1회에 드는 인코딩 비용 비교.
+ *
+ * - perConnection: 기존 방식. 연결마다 SseEventBuilder를 만들고 Jackson으로 data를 다시 직렬화한다.
+ *   (MappingJackson2HttpMessageConverter가 emitter마다 하는 일을 그대로 재현)
+ * - encodeOnce: SseFrame으로 1번만 인코딩하고, 연결마다 같은 프레임을 넘긴다.
+ *
+ * 실행: ./gradlew jmh  (gc 프로파일러의 gc.alloc.rate.norm = broadcast 1회당 할당 byte)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseFrameEncodingBenchmark {
+
+    @Param({"1000", "20000"})
+    int connections;
+
+    ObjectMapper objectMapper;
+    NotificationMessage message;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        message = NotificationMessage.builder()
+                .id(12345L)
+                .title("공지사항")
+                .body("서버 점검 예정입니다. 점검 시간 동안 일부 기능이 제한될 수 있습니다.")
+                .sender("admin")
+                .target("ALL")
+                .createdAt(Instant.now())
+                .delivered(false)
+                .build();
+    }
+
+    @Benchmark
+    public void perConnection(Blackhole bh) throws Exception {
+        for (int i = 0; i < connections; i++) {
+            Set<DataWithMediaType> parts = SseEmitter.event().name("notification").data(message).build();
+            for (DataWithMediaType part : parts) {
+                Object data = part.getData();
+                bh.consume(data instanceof String s ? s.getBytes() : objectMapper.writeValueAsBytes(data));
+            }
+        }
+    }
+
+    @Benchmark
+    public void encodeOnce(Blackhole bh) {
+        SseFrame frame = SseFrame.of("notification", message, objectMapper);
+        for (int i = 0; i < connections; i++) {
+            bh.consume(frame);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.ws.ExactDestinationSubscriptionRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 방 메시지 1건 전송 시 구독자 조회 비용 비교.
+ *
+ * - 세션마다 자기 방(/topic/chat/rooms/{id}) 1개 구독, 방당 2세션(1:1 채팅).
+ * - 전송 목적지는 매번 임의의 방 → 기본 레지스트리의 목적지 캐시(cacheLimit 1024)를 넘는 방 수에서 차이가 난다.
+ *
+ * - stock: Spring DefaultSubscriptionRegistry (패턴 매칭 + 목적지 캐시)
+ * - exact: ExactDestinationSubscriptionRegistry (완전 일치 HashMap 조회)
+ *
+ * 실행: ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionRegistryBenchmark {
+
+    @Param({"10000", "50000"})
+    int sessions;
+
+    @Param({"stock", "exact"})
+    String registryType;
+
+    SubscriptionRegistry registry;
+    Message<?>[] sends;
+
+    @Setup
+    public void setUp() {
+        registry = "stock".equals(registryType) ? new DefaultSubscriptionRegistry() : new ExactDestinationSubscriptionRegistry();
+
+        int rooms = sessions / 2;
+        for (int i = 0; i < sessions; i++) {
+            registry.registerSubscription(subscribe("s" + i, "sub-0", destination(i / 2)));
+        }
+
+        sends = new Message<?>[rooms];
+        for (int room = 0; room < rooms; room++) {
+            sends[room] = message(destination(room));
+        }
+    }
+
+    @Benchmark
+    public void findSubscriptions(Blackhole bh) {
+        Message<?> send = sends[ThreadLocalRandom.current().nextInt(sends.length)];
+        bh.consume(registry.findSubscriptions(send));
+    }
+
+    /**
+     * 구독/해제가 섞인 경우(재연결 churn): 1세션 해제 후 다시 구독.
+     */
+    @Benchmark
+    public void resubscribe(Blackhole bh) {
+        int i = ThreadLocalRandom.current().nextInt(sessions);
+        String sessionId = "s" + i;
+        registry.unregisterAllSubscriptions(sessionId);
+        registry.registerSubscription(subscribe(sessionId, "sub-0", destination(i / 2)));
+        bh.consume(registry);
+    }
+
+    private static String destination(int room) {
+        return "/topic/chat/rooms/" + room;
+    }
+
+    private static Message<?> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<?> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -1,20 +1,20 @@
 package kr.java.sse_websocket.chat.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import kr.java.sse_websocket.chat.domain.ChatMessage;
-import kr.java.sse_websocket.chat.domain.ChatRoom;
-import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
-import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
-import kr.java.sse_websocket.chat.repository.ChatRoomRepository;
+import kr.java.sse_websocket.chat.domain.ChatCatchUpPage;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
+import kr.java.sse_websocket.chat.domain.ChatStreamPage;
+import kr.java.sse_websocket.chat.redis.ChatStreamTransport;
+import kr.java.sse_websocket.chat.service.ChatHistoryService;
+import kr.java.sse_websocket.chat.service.ChatRoomAccessGuard;
 import kr.java.sse_websocket.chat.service.ChatService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.*;
+import java.util.Map;
 
 import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 
@@ -23,8 +23,10 @@ import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
  *
  * - 방 생성/조회: POST /api/chat/room
  * - 최근 메시지: GET /api/chat/rooms/{roomId}/messages?size=50
+ * - 놓친 메시지(catch-up): GET /api/chat/rooms/{roomId}/messages/since?afterId=N&size=100
+ * - 재개(stream transport): GET /api/chat/rooms/{roomId}/stream?afterSeq=N
  *
- * 최근 메시지는 Redis cache(List)를 우선 사용하고, 없으면 DB에서 가져온다.
+ * 최근 메시지는 Redis cache(List)를 우선 사용하고, 없으면 DB에서 가져와 캐시를 채운다.
  */
 @RestController
 @RequiredArgsConstructor
@@ -32,98 +34,77 @@ import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 public class ChatApiController {
 
     private final ChatService chatService;
-    private final ChatRoomRepository chatRoomRepository;
-    private final ChatMessageRepository chatMessageRepository;
-
-    private final StringRedisTemplate stringRedisTemplate;
-    private final ObjectMapper objectMapper;
+    private final ChatHistoryService chatHistoryService;
+    private final ChatRoomAccessGuard chatRoomAccessGuard;
+    private final ChatStreamTransport chatStreamTransport;
 
     @PostMapping("/room")
     public Map<String, Object> getOrCreateRoom(@RequestBody CreateRoomRequest req, Principal principal) {
         String me = normalize(principal.getName());
         String other = normalize(req.getOtherUsername());
 
-        ChatRoom room = chatService.getOrCreateRoom(me, other);
-        return Map.of("roomId", room.getId(), "me", me, "other", other);
+        ChatRoomRef room = chatService.getOrCreateRoom(me, other);
+        return Map.of("roomId", room.id(), "me", me, "other", other);
     }
 
+    /**
+     * 최근 메시지(오래된 → 최신). 캐시 miss면 DB에서 읽어 캐시를 채운다(ChatHistoryService).
+     */
     @GetMapping("/rooms/{roomId}/messages")
-    public List<ChatEventDto> recent(@PathVariable Long roomId,
-                                     @RequestParam(defaultValue = "50") int size,
-                                     Principal principal) {
+    public ResponseEntity<byte[]> recent(@PathVariable Long roomId,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         Principal principal) {
 
         assertMember(roomId, principal);
 
-        int limit = Math.min(size, 200);
-
-        // 1) Redis cache 우선 (LPUSH 구조라 최신이 앞, 화면은 오래된→최신 순이 자연스러움)
-        List<String> cached = stringRedisTemplate.opsForList()
-                .range(ChatRedisKeys.recentListKey(roomId), 0, limit - 1);
-
-        if (cached != null && !cached.isEmpty()) {
-            List<ChatEventDto> list = new ArrayList<>();
-            for (String json : cached) {
-                try {
-                    // cache에 저장한 JSON은 ChatEventPayload 구조와 동일
-                    ChatEventDto dto = objectMapper.readValue(json, ChatEventDto.class);
-                    list.add(dto);
-                } catch (Exception ignored) {
-                    // 캐시 파싱 실패는 캐시 품질 문제이므로 조용히 무시하고 fallback 할 수 있다.
-                }
-            }
-            // Redis는 최신이 앞이므로 역순 정렬(오래된 -> 최신)
-            Collections.reverse(list);
-            return list;
-        }
+        return json(chatHistoryService.recent(roomId, size));
+    }
 
-        // 2) miss면 DB fallback (DESC로 가져온 뒤 ASC로 정렬)
-        List<ChatMessage> fromDb = chatMessageRepository.findByRoomIdOrderByCreatedAtDesc(
-                roomId, PageRequest.of(0, limit)
-        );
-
-        List<ChatMessage> asc = new ArrayList<>(fromDb);
-        asc.sort(Comparator.comparing(ChatMessage::getId));
-
-        // DB 결과를 DTO로 변환(캐시 warming은 MVP에서는 생략 가능)
-        List<ChatEventDto> result = new ArrayList<>();
-        for (ChatMessage m : asc) {
-            result.add(ChatEventDto.builder()
-                    .roomId(m.getRoomId())
-                    .messageId(m.getId())
-                    .senderUsername(m.getSenderUsername())
-                    .content(m.getContent())
-                    .createdAt(m.getCreatedAt().toString())
-                    .build());
-        }
-        return result;
+    /**
+     * afterId 이후 메시지(오름차순, 페이지당 최대 chat.catch-up.page-limit개).
+     * - hasMore면 nextAfterId로 이어서 요청, tooFarBehind면 최근 메시지를 다시 로딩한다.
+     */
+    @GetMapping("/rooms/{roomId}/messages/since")
+    public ChatCatchUpPage since(@PathVariable Long roomId,
+                                 @RequestParam long afterId,
+                                 @RequestParam(defaultValue = "100") int size,
+                                 Principal principal) {
+        assertMember(roomId, principal);
+        return chatHistoryService.catchUp(roomId, afterId, size);
     }
 
-    private void assertMember(Long roomId, Principal principal) {
-        String me = normalize(principal.getName());
-        ChatRoom room = chatRoomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("room not found"));
+    /**
+     * 재연결 후 놓친 메시지를 stream에서 이어 받는다(chat.redis.transport=stream일 때만, 아니면 404).
+     * - afterSeq 없이 호출하면 현재 lastSeq만 돌려준다(재개 기준점).
+     * - resync=true면 트리밍되어 이어 받을 수 없으므로 최근 메시지를 다시 로딩한다.
+     * - afterSeq는 0 이상(음수는 400).
+     */
+    @GetMapping("/rooms/{roomId}/stream")
+    public ResponseEntity<ChatStreamPage> stream(@PathVariable Long roomId,
+                                                 @RequestParam(required = false) Long afterSeq,
+                                                 @RequestParam(defaultValue = "100") int limit,
+                                                 Principal principal) {
+        assertMember(roomId, principal);
 
-        if (!me.equals(room.getUserA()) && !me.equals(room.getUserB())) {
-            throw new IllegalArgumentException("not a member");
+        if (!chatStreamTransport.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (afterSeq != null && afterSeq < 0) {
+            return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(chatStreamTransport.readAfter(roomId, afterSeq, Math.min(Math.max(limit, 1), 500)));
     }
 
-    @Data
-    public static class CreateRoomRequest {
-        private String otherUsername;
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private void assertMember(Long roomId, Principal principal) {
+        chatRoomAccessGuard.assertMember(roomId, normalize(principal.getName()));
     }
 
-    /**
-     * Redis cache(JSON)와 바로 매핑하기 위한 DTO
-     * - createdAt은 MVP에서 문자열로 받도록 둔다(파싱 이슈 단순화)
-     */
     @Data
-    @lombok.Builder
-    public static class ChatEventDto {
-        private Long roomId;
-        private Long messageId;
-        private String senderUsername;
-        private String content;
-        private String createdAt;
+    public static class CreateRoomRequest {
+        private String otherUsername;
     }
 }
\ No newline at end of file
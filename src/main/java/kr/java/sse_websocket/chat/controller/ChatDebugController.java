@@ -0,0 +1,100 @@
+package kr.java.sse_websocket.chat.controller;
+
+import kr.java.sse_websocket.chat.redis.ChatDeliveryLanes;
+import kr.java.sse_websocket.chat.redis.ChatRoomSubscriptionTracker;
+import kr.java.sse_websocket.chat.redis.ChatStreamTransport;
+import kr.java.sse_websocket.chat.redis.RedisChatSubscriber;
+import kr.java.sse_websocket.chat.service.ChatHistoryService;
+import kr.java.sse_websocket.chat.service.ChatRoomAccessGuard;
+import kr.java.sse_websocket.chat.service.ChatRoomResolver;
+import kr.java.sse_websocket.chat.service.ChatWriteBehindQueue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// /api/admin/chat/write-behind, /api/admin/chat/subscriptions, /api/admin/chat/stream, /api/admin/chat/recent-cache, /api/admin/chat/room-access, /api/admin/chat/room-pairs, /api/admin/chat/lanes
+@RestController
+@RequiredArgsConstructor
+public class ChatDebugController {
+
+    private final ChatWriteBehindQueue chatWriteBehindQueue;
+    private final ChatRoomSubscriptionTracker chatRoomSubscriptionTracker;
+    private final ChatStreamTransport chatStreamTransport;
+    private final ChatHistoryService chatHistoryService;
+    private final ChatRoomAccessGuard chatRoomAccessGuard;
+    private final ChatRoomResolver chatRoomResolver;
+    private final ChatDeliveryLanes chatDeliveryLanes;
+    private final RedisChatSubscriber redisChatSubscriber;
+
+    /**
+     * write-behind 저장 통계(enqueued / flushed / batches / overflow / dropped / pending).
+     * - overflow: 큐가 가득 차 동기 저장으로 처리한 건수, dropped: 재시도 후에도 저장 못 한(유실) 건수
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/write-behind")
+    public Map<String, Long> writeBehind() {
+        return chatWriteBehindQueue.stats();
+    }
+
+    /**
+     * 방별 Redis 동적 구독 현황(localRooms / subscribedRooms / pendingRelease / 누적 subscribe·unsubscribe).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/subscriptions")
+    public Map<String, Long> subscriptions() {
+        return chatRoomSubscriptionTracker.stats();
+    }
+
+    /**
+     * stream transport 읽기 현황(rooms / delivered / readErrors).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/stream")
+    public Map<String, Long> stream() {
+        return chatStreamTransport.stats();
+    }
+
+    /**
+     * 최근 메시지 계층별 통계: L1(l1Hits / l1Misses / l1Rooms ...), L2(l2Hits / l2Misses), DB(dbLoads)와 채우기(fills / collapsed / lockWaits / fillSkipped).
+     * - collapsed: 같은 노드의 진행 중인 채우기에 합류한 miss, fillSkipped: 채우는 중 새 메시지가 들어와 쓰지 않은 채우기
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/recent-cache")
+    public Map<String, Long> recentCache() {
+        return chatHistoryService.stats();
+    }
+
+    /**
+     * 방 멤버 검증 캐시(hits / misses / hitRatePct / denied / rooms).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/room-access")
+    public Map<String, Long> roomAccess() {
+        return chatRoomAccessGuard.stats();
+    }
+
+    /**
+     * (userA, userB) 쌍 → 방 캐시(hits / misses / hitRatePct / collapsed / created / pairs).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/room-pairs")
+    public Map<String, Long> roomPairs() {
+        return chatRoomResolver.stats();
+    }
+
+    /**
+     * 방별 전달 레인 현황(laneN.depth / delivered / dropped / avgMicros / maxMicros). avg/max는 조회 사이 구간 값.
+     * - dropped가 늘면 레인이 밀려 버린 메시지가 있다는 뜻이다(resyncNotices: 그 방들에 보낸 catch-up 요청 수).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/chat/lanes")
+    public Map<String, Long> lanes() {
+        Map<String, Long> stats = new LinkedHashMap<>(chatDeliveryLanes.stats());
+        stats.put("resyncNotices", redisChatSubscriber.resyncNotices());
+        return stats;
+    }
+}
@@ -1,7 +1,6 @@
 package kr.java.sse_websocket.chat.controller;
 
-import kr.java.sse_websocket.chat.domain.ChatRoom;
-import kr.java.sse_websocket.chat.repository.ChatRoomRepository;
+import kr.java.sse_websocket.chat.service.ChatRoomAccessGuard;
 import kr.java.sse_websocket.chat.service.ChatService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -30,7 +29,7 @@ import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 public class ChatWsController {
 
     private final ChatService chatService;
-    private final ChatRoomRepository chatRoomRepository;
+    private final ChatRoomAccessGuard chatRoomAccessGuard;
 
     @PreAuthorize("isAuthenticated()")
     @MessageMapping("/chat/rooms/{roomId}/send")
@@ -40,13 +39,8 @@ public class ChatWsController {
 
         String me = normalize(principal.getName());
 
-        // 방 멤버 검증(타인 roomId로 스팸 전송 방지)
-        ChatRoom room = chatRoomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("room not found"));
-
-        if (!me.equals(room.getUserA()) && !me.equals(room.getUserB())) {
-            throw new IllegalArgumentException("not a member");
-        }
+        // 방 멤버 검증(타인 roomId로 스팸 전송 방지). 멤버 쌍은 캐시되어 메시지마다 DB를 읽지 않는다.
+        chatRoomAccessGuard.assertMember(roomId, me);
 
         // DB 저장 + Redis publish
         chatService.sendMessage(roomId, me, req.getContent());
@@ -0,0 +1,28 @@
+package kr.java.sse_websocket.chat.domain;
+
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * "afterId 이후 메시지" catch-up 응답.
+ *
+ * - messages: afterId 이후 메시지(id 오름차순, 최대 page-limit개)
+ * - nextAfterId: 다음 페이지 요청 시 afterId(hasMore일 때)
+ * - tooFarBehind: 놓친 메시지가 max-gap을 넘음 → 이어 받지 말고 최근 메시지를 다시 로딩
+ * - source: cache(Redis recent list) / db(인덱스 범위 조회)
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ChatCatchUpPage {
+
+    private List<ChatEventPayload> messages;
+    private boolean hasMore;
+    private Long nextAfterId;
+    private boolean tooFarBehind;
+    private String source;
+}
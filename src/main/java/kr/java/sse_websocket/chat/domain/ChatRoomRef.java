@@ -0,0 +1,13 @@
+package kr.java.sse_websocket.chat.domain;
+
+/**
+ * 채팅방 식별 값(불변).
+ * - 방 생성/조회 결과를 노드 메모리에 담을 때 엔티티(ChatRoom) 대신 쓴다(영속성 컨텍스트와 무관, 공유해도 안전).
+ * - 방은 (userA, userB) 쌍이 바뀌지 않으므로 이 세 값이면 충분하다.
+ */
+public record ChatRoomRef(Long id, String userA, String userB) {
+
+    public static ChatRoomRef of(ChatRoom room) {
+        return new ChatRoomRef(room.getId(), room.getUserA(), room.getUserB());
+    }
+}
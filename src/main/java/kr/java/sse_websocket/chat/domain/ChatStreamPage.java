@@ -0,0 +1,35 @@
+package kr.java.sse_websocket.chat.domain;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * stream transport 재개 응답.
+ *
+ * - events: afterSeq 이후 이벤트(seq 오름차순). event는 캐시/STOMP와 같은 JSON 그대로
+ * - lastSeq: 현재 방의 마지막 순번(다음 재개 지점)
+ * - hasMore: limit에 걸려 더 남아 있음 → 마지막 seq로 다시 요청
+ * - resync: afterSeq 이후 구간이 이미 트리밍됨 → 최근 메시지를 다시 로딩해야 한다
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class ChatStreamPage {
+
+    private long lastSeq;
+    private boolean hasMore;
+    private boolean resync;
+    private List<Entry> events;
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private long seq;
+        @JsonRawValue
+        private String event;
+    }
+}
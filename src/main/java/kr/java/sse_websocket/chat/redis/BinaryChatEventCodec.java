@@ -0,0 +1,259 @@
+package kr.java.sse_websocket.chat.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 압축 binary 형식.
+ *
+ * 레이아웃(v1):
+ * <pre>
+ * [magic 0xC7][version][flags]
+ * roomId, messageId          : varint(값+1, 0 = null)
+ * provisionalId, sender      : varint(길이+1, 0 = null) + UTF-8
+ * createdAt                  : varint(epochSecond+1, 0 = null) [+ varint(nano)]
+ * content                    : varint(길이+1, 0 = null) + UTF-8
+ *                              flags&1(deflate)면 varint(원본 길이) + varint(압축 길이+1) + deflate bytes
+ * </pre>
+ *
+ * - 필드 이름이 없고 숫자는 varint라 JSON보다 작다(recent cache 메모리, Pub/Sub 대역폭 절약).
+ * - content가 compress-min-bytes 이상이고 압축이 실제로 작을 때만 deflate.
+ * - 모르는 version은 거부한다(새 형식은 version을 올리고, 모든 노드가 읽을 수 있게 된 뒤 쓰기를 바꾼다).
+ */
+@Component
+public class BinaryChatEventCodec implements ChatEventCodec {
+
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte VERSION = 1;
+
+    private static final int FLAG_DEFLATE = 1;
+
+    private final int compressMinBytes;
+
+    public BinaryChatEventCodec(@Value("${chat.redis.compress-min-bytes:512}") int compressMinBytes) {
+        this.compressMinBytes = compressMinBytes;
+    }
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public boolean accepts(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(ChatEventPayload payload) {
+        byte[] content = utf8(payload.getContent());
+        byte[] deflated = null;
+        if (content != null && content.length >= compressMinBytes) {
+            deflated = deflate(content);
+            if (deflated.length >= content.length) {
+                deflated = null;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + (content == null ? 0 : content.length));
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(deflated != null ? FLAG_DEFLATE : 0);
+
+        writeNullableLong(out, payload.getRoomId());
+        writeNullableLong(out, payload.getMessageId());
+        writeNullableBytes(out, utf8(payload.getProvisionalId()));
+        writeNullableBytes(out, utf8(payload.getSenderUsername()));
+
+        Instant createdAt = payload.getCreatedAt();
+        if (createdAt == null) {
+            writeVarint(out, 0);
+        } else {
+            writeNullableLong(out, createdAt.getEpochSecond());
+            writeVarint(out, createdAt.getNano());
+        }
+
+        if (deflated != null) {
+            writeVarint(out, content.length);
+            writeNullableBytes(out, deflated);
+        } else {
+            writeNullableBytes(out, content);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public ChatEventPayload decode(byte[] bytes) {
+        Reader in = header(bytes);
+        int flags = bytes[2];
+
+        ChatEventPayload payload = new ChatEventPayload();
+        payload.setRoomId(in.nullableLong());
+        payload.setMessageId(in.nullableLong());
+        payload.setProvisionalId(string(in.nullableBytes()));
+        payload.setSenderUsername(string(in.nullableBytes()));
+
+        Long epochSecond = in.nullableLong();
+        if (epochSecond != null) {
+            payload.setCreatedAt(Instant.ofEpochSecond(epochSecond, in.varint()));
+        }
+
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int originalLength = (int) in.varint();
+            payload.setContent(string(inflate(in.nullableBytes(), originalLength)));
+        } else {
+            payload.setContent(string(in.nullableBytes()));
+        }
+        return payload;
+    }
+
+    @Override
+    public Long roomIdOf(byte[] bytes) {
+        return header(bytes).nullableLong();
+    }
+
+    @Override
+    public Long messageIdOf(byte[] bytes) {
+        Reader in = header(bytes);
+        in.nullableLong(); // roomId
+        return in.nullableLong();
+    }
+
+    private Reader header(byte[] bytes) {
+        if (bytes.length < 3 || bytes[0] != MAGIC) {
+            throw new IllegalArgumentException("not a binary chat event");
+        }
+        if (bytes[1] != VERSION) {
+            throw new IllegalArgumentException("unsupported chat event version: " + bytes[1]);
+        }
+        return new Reader(bytes, 3);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeNullableLong(ByteArrayOutputStream out, Long value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value is not supported: " + value);
+        }
+        writeVarint(out, value + 1);
+    }
+
+    private static void writeNullableBytes(ByteArrayOutputStream out, byte[] value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, value.length + 1L);
+        out.writeBytes(value);
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] b) {
+        return b == null ? null : new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buf = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int originalLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            byte[] out = new byte[originalLength];
+            int n = 0;
+            while (n < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(out, n, originalLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != originalLength) {
+                throw new IllegalArgumentException("chat event content is truncated");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("chat event content is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos;
+
+        Reader(byte[] bytes, int pos) {
+            this.bytes = bytes;
+            this.pos = pos;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= bytes.length) {
+                    throw new IllegalArgumentException("chat event is truncated");
+                }
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        Long nullableLong() {
+            long v = varint();
+            return v == 0 ? null : v - 1;
+        }
+
+        byte[] nullableBytes() {
+            long v = varint();
+            if (v == 0) {
+                return null;
+            }
+            int length = (int) (v - 1);
+            if (length < 0 || pos + length > bytes.length) {
+                throw new IllegalArgumentException("chat event is truncated");
+            }
+            byte[] out = new byte[length];
+            System.arraycopy(bytes, pos, out, 0, length);
+            pos += length;
+            return out;
+        }
+    }
+}
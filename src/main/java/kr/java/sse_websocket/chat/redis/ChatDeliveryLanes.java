@@ -0,0 +1,151 @@
+package kr.java.sse_websocket.chat.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 방별 순서를 지키는 병렬 전달 레인.
+ *
+ * 문제:
+ * - Redis 수신 스레드(listener container / stream 읽기 스레드) 1개에서 모든 방의 변환 + STOMP 전송을 차례로 했다.
+ *   → 메시지가 몰린 방 하나나 느린 outbound 채널이 다른 모든 방의 전달을 늦춘다.
+ *
+ * 동작:
+ * - roomId를 N개 레인(단일 스레드) 중 하나에 고정한다 → 같은 방은 항상 같은 스레드에서 도착 순서대로, 다른 방은 병렬로.
+ * - 레인 큐가 가득 차면 수신 스레드가 dispatch-offer-timeout-ms까지만 기다린다(역압, 순서 유지).
+ *   그래도 자리가 나지 않으면 버리고 false를 돌려준다. 수신 스레드는 Redis 연결(Lettuce) 스레드라
+ *   무기한 기다리면 그 연결의 다른 채널 수신과 명령 응답까지 멈춘다. 버린 방은 호출 측이 클라이언트에 resync를 알린다.
+ *
+ * 레인별 대기 수(depth), 버린 수(dropped)와 큐 대기 + 처리 시간(latency)을 집계한다.
+ */
+@Slf4j
+@Component
+public class ChatDeliveryLanes {
+
+    private final Lane[] lanes;
+
+    public ChatDeliveryLanes(@Value("${chat.redis.dispatch-lanes:0}") int laneCount,
+                             @Value("${chat.redis.dispatch-queue-capacity:10000}") int queueCapacity,
+                             @Value("${chat.redis.dispatch-offer-timeout-ms:200}") long offerTimeoutMillis) {
+        int n = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[n];
+        for (int i = 0; i < n; i++) {
+            lanes[i] = new Lane(i, queueCapacity, offerTimeoutMillis);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * roomId의 레인에서 task를 실행한다(같은 방은 제출 순서대로).
+     * @return 레인이 가득 찬 채 offer timeout이 지났거나 멈춘 레인이라 버렸으면 false
+     */
+    public boolean submit(Long roomId, Runnable task) {
+        return lanes[laneOf(roomId)].submit(task);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 레인별 통계(디버그용): laneN.depth / laneN.delivered / laneN.dropped / laneN.avgMicros / laneN.maxMicros
+     * - avg/max는 마지막 조회 이후 구간 값(조회 시 초기화)
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("lanes", (long) lanes.length);
+        for (Lane lane : lanes) {
+            String prefix = "lane" + lane.index + ".";
+            long count = lane.windowCount.getAndSet(0);
+            long total = lane.windowNanos.getAndSet(0);
+            stats.put(prefix + "depth", (long) lane.executor.getQueue().size());
+            stats.put(prefix + "delivered", lane.delivered.get());
+            stats.put(prefix + "dropped", lane.dropped.get());
+            stats.put(prefix + "avgMicros", count == 0 ? 0 : total / count / 1000);
+            stats.put(prefix + "maxMicros", lane.windowMaxNanos.getAndSet(0) / 1000);
+        }
+        return stats;
+    }
+
+    int laneOf(Long roomId) {
+        return Math.floorMod(Long.hashCode(roomId), lanes.length);
+    }
+
+    private static final class Lane {
+
+        private final int index;
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong windowCount = new AtomicLong();
+        private final AtomicLong windowNanos = new AtomicLong();
+        private final AtomicLong windowMaxNanos = new AtomicLong();
+
+        Lane(int index, int queueCapacity, long offerTimeoutMillis) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    new CustomizableThreadFactory("chat-lane-" + index + "-"),
+                    (task, pool) -> {
+                        // 가득 차면 잠깐 기다렸다 넣는다(caller-runs는 같은 방 순서를 깨뜨린다)
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("lane stopped");
+                        }
+                        try {
+                            if (!pool.getQueue().offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                                throw new RejectedExecutionException("lane " + index + " full");
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("interrupted while waiting for lane " + index, e);
+                        }
+                    });
+        }
+
+        boolean submit(Runnable task) {
+            long enqueuedAt = System.nanoTime();
+            try {
+                execute(task, enqueuedAt);
+                return true;
+            } catch (RejectedExecutionException e) {
+                long total = dropped.incrementAndGet();
+                log.warn("[CHAT] lane {} dropped a delivery: {} (dropped={})", index, e.getMessage(), total);
+                return false;
+            }
+        }
+
+        private void execute(Runnable task, long enqueuedAt) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("[CHAT] lane {} delivery failed: {}", index, e.getMessage());
+                } finally {
+                    long elapsed = System.nanoTime() - enqueuedAt;
+                    delivered.incrementAndGet();
+                    windowCount.incrementAndGet();
+                    windowNanos.addAndGet(elapsed);
+                    windowMaxNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            });
+        }
+    }
+}
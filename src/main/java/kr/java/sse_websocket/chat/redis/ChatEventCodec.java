@@ -0,0 +1,34 @@
+package kr.java.sse_websocket.chat.redis;
+
+/**
+ * Redis(recent cache, Pub/Sub)에 싣는 ChatEventPayload 형식.
+ *
+ * - 쓰기 형식은 chat.redis.codec 1개이고, 읽기는 첫 바이트로 형식을 판별해 모든 codec을 받는다.
+ *   → 배포 중 노드마다 쓰기 형식이 달라도 서로 읽을 수 있다.
+ */
+public interface ChatEventCodec {
+
+    /**
+     * 설정값(chat.redis.codec)으로 쓰는 이름.
+     */
+    String name();
+
+    /**
+     * 이 codec으로 인코딩된 bytes인지(첫 바이트 기준).
+     */
+    boolean accepts(byte[] bytes);
+
+    byte[] encode(ChatEventPayload payload);
+
+    ChatEventPayload decode(byte[] bytes);
+
+    /**
+     * 라우팅용 roomId만 읽는다(본문 전체를 디코딩하지 않음).
+     */
+    Long roomIdOf(byte[] bytes);
+
+    /**
+     * messageId만 읽는다(write-behind 임시 메시지는 null). roomId 바로 뒤 필드라 앞부분만 본다.
+     */
+    Long messageIdOf(byte[] bytes);
+}
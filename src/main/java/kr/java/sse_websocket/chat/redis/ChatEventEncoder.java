@@ -0,0 +1,121 @@
+package kr.java.sse_websocket.chat.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * ChatEventPayload 인코딩 진입점.
+ *
+ * 메시지당 인코딩은 전송 시점 1번뿐이다.
+ * - recent cache 값, Pub/Sub 본문이 모두 같은 bytes(쓰기 형식: chat.redis.codec)
+ * - 수신 측은 라우팅에 필요한 roomId만 읽고(wrap) 본문은 그대로 넘긴다.
+ * - 브라우저로 나가는 곳(STOMP, 최근 메시지 API)은 JSON이어야 하므로 toJson을 거친다.
+ *   쓰기 형식이 json이면 그대로 통과하고, binary면 이 노드에서 1번 변환한다.
+ *
+ * 읽기는 첫 바이트로 codec을 고르므로, 배포 중 노드마다 쓰기 형식이 섞여 있어도 된다.
+ */
+@Component
+public class ChatEventEncoder {
+
+    private final List<ChatEventCodec> codecs;
+    private final ChatEventCodec writeCodec;
+    private final ChatEventCodec jsonCodec;
+
+    public ChatEventEncoder(List<ChatEventCodec> codecs,
+                            @Value("${chat.redis.codec:json}") String writeCodecName) {
+        this.codecs = List.copyOf(codecs);
+        this.writeCodec = byName(writeCodecName);
+        this.jsonCodec = byName("json");
+    }
+
+    public EncodedChatEvent encode(ChatEventPayload payload) {
+        return new EncodedChatEvent(payload.getRoomId(), payload.getMessageId(), writeCodec.encode(payload));
+    }
+
+    /**
+     * 이미 인코딩된 bytes를 감싼다(앞쪽 roomId, messageId만 읽는다).
+     */
+    public EncodedChatEvent wrap(byte[] bytes) {
+        ChatEventCodec codec = codecOf(bytes);
+        return new EncodedChatEvent(codec.roomIdOf(bytes), codec.messageIdOf(bytes), bytes);
+    }
+
+    public ChatEventPayload decode(byte[] bytes) {
+        return codecOf(bytes).decode(bytes);
+    }
+
+    /**
+     * 브라우저로 보낼 JSON bytes. 이미 JSON이면 복사 없이 그대로 반환한다.
+     */
+    public byte[] toJson(byte[] bytes) {
+        if (jsonCodec.accepts(bytes)) {
+            return bytes;
+        }
+        return jsonCodec.encode(decode(bytes));
+    }
+
+    /**
+     * 인코딩된 이벤트 여러 개를 JSON 배열 1개로 잇는다(JSON 원소는 디코딩하지 않음).
+     */
+    public byte[] joinArray(List<byte[]> encoded) {
+        List<byte[]> elements = new ArrayList<>(encoded.size());
+        int length = 2 + Math.max(0, encoded.size() - 1);
+        for (byte[] e : encoded) {
+            byte[] json = toJson(e);
+            elements.add(json);
+            length += json.length;
+        }
+        byte[] out = new byte[length];
+        int pos = 0;
+        out[pos++] = '[';
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                out[pos++] = ',';
+            }
+            byte[] e = elements.get(i);
+            System.arraycopy(e, 0, out, pos, e.length);
+            pos += e.length;
+        }
+        out[pos] = ']';
+        return out;
+    }
+
+    /**
+     * outbox payload(문자열 컬럼)로 변환. JSON은 그대로, binary는 base64('{'로 시작하지 않음).
+     */
+    public String toOutboxPayload(EncodedChatEvent event) {
+        byte[] bytes = event.bytes();
+        if (jsonCodec.accepts(bytes)) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    public EncodedChatEvent fromOutboxPayload(String payload) {
+        byte[] bytes = payload.startsWith("{")
+                ? payload.getBytes(StandardCharsets.UTF_8)
+                : Base64.getDecoder().decode(payload);
+        return wrap(bytes);
+    }
+
+    private ChatEventCodec codecOf(byte[] bytes) {
+        for (ChatEventCodec codec : codecs) {
+            if (codec.accepts(bytes)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("unknown chat event format");
+    }
+
+    private ChatEventCodec byName(String name) {
+        return codecs.stream()
+                .filter(codec -> codec.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("unknown chat.redis.codec: " + name));
+    }
+}
@@ -1,19 +1,28 @@
 package kr.java.sse_websocket.chat.redis;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
 /**
  * Redis Pub/Sub로 흘려보내는 이벤트 페이로드.
  * - 모든 서버 인스턴스가 이 payload를 받아 WebSocket 토픽으로 브로드캐스트한다.
+ * - roomId가 첫 필드여야 수신 측이 본문을 디코딩하지 않고 라우팅할 수 있다(ChatEventEncoder).
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"roomId", "messageId", "provisionalId", "senderUsername", "content", "createdAt"})
 public class ChatEventPayload {
     private Long roomId;
     private Long messageId;
+    // write-behind 모드: DB 저장 전이라 messageId가 없고, 노드 내 임시 순번을 대신 싣는다("{node}-{seq}")
+    private String provisionalId;
     private String senderUsername;
     private String content;
     private Instant createdAt;
@@ -0,0 +1,262 @@
+package kr.java.sse_websocket.chat.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 최근 메시지 L1 캐시(노드 로컬, Redis recent list 앞단).
+ *
+ * 문제:
+ * - 방을 열 때마다 같은 방의 recent list를 Redis에서 다시 LRANGE 한다(같은 노드가 방금 읽었어도).
+ *
+ * 동작:
+ * - 방별로 최근 recent-cache-size개(브라우저용 JSON bytes, 최신순)를 메모리에 든다.
+ * - 이 노드가 받는 메시지(RedisChatSubscriber.deliver)를 그대로 앞에 붙여 Redis와 같은 내용을 유지한다.
+ *   → 그래서 이 노드가 Redis에서 메시지를 받고 있는 방(follow)만 담는다.
+ * - 방 수(near-cache-rooms, LRU)와 적재 후 경과 시간(near-cache-ttl-ms)으로 밀어낸다.
+ *   TTL은 구독 직후처럼 메시지를 놓칠 수 있는 짧은 구간을 한 번 더 보정한다.
+ *
+ * 잠금:
+ * - roomId 해시로 나눈 segment(최대 16개)마다 LRU 맵 + stamp + 락을 따로 둔다.
+ *   → 전달 레인 여러 개가 서로 다른 방에 append해도 한 락에서 줄 서지 않는다.
+ * - LRU는 segment 단위(segment당 near-cache-rooms / segment 수)라 전체 기준으로는 근사치다.
+ *
+ * 적재 경쟁:
+ * - Redis를 읽는 동안 같은 방 메시지가 도착하면(창에 없어서 버려짐) 읽은 결과를 담지 않는다(stamp 비교).
+ * - 읽은 결과에 이미 들어 있는 메시지가 뒤늦게 도착하면 앞쪽과 같은 bytes인지 보고 중복을 건너뛴다.
+ *
+ * near-cache-rooms=0이면 꺼진다.
+ */
+@Component
+public class ChatRecentNearCache {
+
+    // append 중복 확인 범위(적재 직후 뒤늦게 도착하는 메시지만 대상)
+    private static final int DEDUPE_DEPTH = 16;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int STAMPS_PER_SEGMENT = 16;
+
+    private final int maxRooms;
+    private final int windowSize;
+    private final long ttlNanos;
+    // chat:room:* 패턴 구독이면 모든 방 메시지를 받는다
+    private final boolean followAll;
+
+    private final Segment[] segments;
+    private final Set<Long> followed = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadSkipped = new AtomicLong();
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ChatRecentNearCache(@Value("${chat.redis.near-cache-rooms:1000}") int maxRooms,
+                               @Value("${chat.redis.near-cache-ttl-ms:60000}") long ttlMillis,
+                               @Value("${chat.redis.recent-cache-size:100}") int windowSize,
+                               @Value("${chat.redis.dynamic-subscriptions:true}") boolean dynamicSubscriptions,
+                               @Value("${chat.redis.transport:pubsub}") String transport) {
+        this.maxRooms = maxRooms;
+        this.windowSize = windowSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.followAll = !dynamicSubscriptions && !"stream".equals(transport);
+
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxRooms));
+        int roomsPerSegment = Math.max(1, (maxRooms + segmentCount - 1) / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(roomsPerSegment);
+        }
+    }
+
+    /**
+     * 이 방의 메시지를 이 노드가 받고 있어 창을 최신으로 유지할 수 있는지.
+     */
+    public boolean follows(Long roomId) {
+        return maxRooms > 0 && (followAll || followed.contains(roomId));
+    }
+
+    /**
+     * 방 구독 시작(ChatRoomSubscriptionTracker). 이후 적재한 창만 유지된다.
+     */
+    public void follow(Long roomId) {
+        followed.add(roomId);
+    }
+
+    /**
+     * 방 구독 해제. 더 이상 메시지를 받지 않으므로 창도 버린다.
+     */
+    public void unfollow(Long roomId) {
+        followed.remove(roomId);
+        Segment segment = segmentOf(roomId);
+        synchronized (segment) {
+            segment.stamps[stampIndex(roomId)]++;
+            segment.windows.remove(roomId);
+        }
+    }
+
+    /**
+     * @return 최신순 최대 limit개. 창이 없거나 만료됐으면 null
+     */
+    public List<byte[]> get(Long roomId, int limit) {
+        if (!follows(roomId)) {
+            return null;
+        }
+        Segment segment = segmentOf(roomId);
+        synchronized (segment) {
+            Window window = segment.windows.get(roomId);
+            if (window != null && System.nanoTime() - window.loadedAtNanos > ttlNanos) {
+                segment.windows.remove(roomId);
+                evictions.incrementAndGet();
+                window = null;
+            }
+            if (window == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            List<byte[]> result = new ArrayList<>(Math.min(limit, window.newestFirst.size()));
+            Iterator<byte[]> it = window.newestFirst.iterator();
+            while (result.size() < limit && it.hasNext()) {
+                result.add(it.next());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * L2/DB를 읽기 전에 호출한다. 적재(load) 때 그 사이 도착한 메시지가 있었는지 비교하는 값.
+     */
+    public long stamp(Long roomId) {
+        Segment segment = segmentOf(roomId);
+        synchronized (segment) {
+            return segment.stamps[stampIndex(roomId)];
+        }
+    }
+
+    /**
+     * L2/DB에서 읽은 최근 메시지(최신순, 브라우저용 JSON)로 창을 채운다.
+     * - 읽는 사이 같은 stamp 칸에 메시지가 도착했거나 follow 중이 아니면 담지 않는다.
+     */
+    public void load(Long roomId, long stamp, List<byte[]> newestFirstJson) {
+        if (!follows(roomId)) {
+            return;
+        }
+        ArrayDeque<byte[]> deque = new ArrayDeque<>(windowSize);
+        for (int i = 0; i < newestFirstJson.size() && i < windowSize; i++) {
+            deque.addLast(newestFirstJson.get(i));
+        }
+        Segment segment = segmentOf(roomId);
+        synchronized (segment) {
+            if (segment.stamps[stampIndex(roomId)] != stamp) {
+                loadSkipped.incrementAndGet();
+                return;
+            }
+            segment.windows.put(roomId, new Window(deque, System.nanoTime()));
+            loads.incrementAndGet();
+            if (segment.windows.size() > segment.maxRooms) {
+                Iterator<Long> eldest = segment.windows.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 이 노드가 받은 메시지를 창 앞에 붙인다(RedisChatSubscriber). 창이 없으면 stamp만 올린다.
+     */
+    public void append(Long roomId, byte[] json) {
+        if (maxRooms <= 0) {
+            return;
+        }
+        Segment segment = segmentOf(roomId);
+        synchronized (segment) {
+            segment.stamps[stampIndex(roomId)]++;
+            Window window = segment.windows.get(roomId);
+            if (window == null || window.contains(json)) {
+                return;
+            }
+            window.newestFirst.addFirst(json);
+            if (window.newestFirst.size() > windowSize) {
+                window.newestFirst.removeLast();
+            }
+            appends.incrementAndGet();
+        }
+    }
+
+    /**
+     * L1 통계(디버그용).
+     */
+    public Map<String, Long> stats() {
+        long rooms = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                rooms += segment.windows.size();
+            }
+        }
+        return Map.of(
+                "l1Hits", hits.get(),
+                "l1Misses", misses.get(),
+                "l1Loads", loads.get(),
+                "l1LoadSkipped", loadSkipped.get(),
+                "l1Appends", appends.get(),
+                "l1Evictions", evictions.get(),
+                "l1Rooms", rooms,
+                "l1Followed", (long) followed.size()
+        );
+    }
+
+    private Segment segmentOf(Long roomId) {
+        return segments[Math.floorMod(Long.hashCode(roomId), segments.length)];
+    }
+
+    // segment 안에서 방별 stamp 칸(칸을 공유하는 방끼리는 적재를 조금 더 자주 건너뛸 뿐이다)
+    private int stampIndex(Long roomId) {
+        return Math.floorMod(Long.hashCode(roomId) / segments.length, STAMPS_PER_SEGMENT);
+    }
+
+    /**
+     * roomId 해시 구간 1개. 필드 접근은 모두 이 객체 락 안에서.
+     */
+    private static final class Segment {
+
+        private final int maxRooms;
+        // roomId -> 창(접근 순서, 가장 오래 안 쓴 방부터 밀어냄)
+        private final LinkedHashMap<Long, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+        // 방별 메시지 도착 횟수(칸 공유). 읽기 시작 시점 값과 다르면 적재하지 않는다.
+        private final long[] stamps = new long[STAMPS_PER_SEGMENT];
+
+        Segment(int maxRooms) {
+            this.maxRooms = maxRooms;
+        }
+    }
+
+    private record Window(ArrayDeque<byte[]> newestFirst, long loadedAtNanos) {
+
+        boolean contains(byte[] json) {
+            int checked = 0;
+            for (byte[] existing : newestFirst) {
+                if (checked++ >= DEDUPE_DEPTH) {
+                    return false;
+                }
+                if (Arrays.equals(existing, json)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -5,20 +5,74 @@ package kr.java.sse_websocket.chat.redis;
  * Redis 키/채널 규칙.
  * - channel: chat:room:{roomId} (Pub/Sub)
  * - recent cache(list): chat:recent:{roomId}
+ *   - chat:recent-ver:{roomId}: list 갱신 버전(read-through 채우기의 낙관적 동시성 확인용)
+ *   - chat:recent-head:{roomId}: list에 담긴 가장 최신 messageId(채우기와 outbox 전달이 같은 메시지를 두 번 넣지 않게)
+ *   - chat:recent-lock:{roomId}: read-through 채우기 노드 간 락(SET NX PX)
+ * - stream transport: chat:stream:{roomId}(entry id = {seq}-0), chat:seq:{roomId}(방별 순번)
+ * - chat:delivered:{roomId}: 최근 전달한 이벤트 SHA1(zset, outbox 재전달 중복 제거용)
+ *
+ * 보조 키(recent-ver, recent-head, delivered)는 쓸 때마다 META_TTL_SECONDS로 만료를 다시 건다
+ * → 메시지가 끊긴 방의 키가 쌓이지 않는다.
  */
 public final class ChatRedisKeys {
 
+    private static final String CHANNEL_ROOM_PREFIX = "chat:room:";
+    private static final String STREAM_PREFIX = "chat:stream:";
+
+    public static final long META_TTL_SECONDS = 86400;
+
     private ChatRedisKeys() {}
 
     public static String channelRoom(Long roomId) {
-        return "chat:room:" + roomId;
+        return CHANNEL_ROOM_PREFIX + roomId;
+    }
+
+    /**
+     * chat:room:{roomId} → roomId(본문을 디코딩하지 않고 라우팅할 때 사용)
+     */
+    public static Long roomIdOfChannel(String channel) {
+        if (!channel.startsWith(CHANNEL_ROOM_PREFIX)) {
+            throw new IllegalArgumentException("not a room channel: " + channel);
+        }
+        return Long.valueOf(channel.substring(CHANNEL_ROOM_PREFIX.length()));
     }
 
     public static String recentListKey(Long roomId) {
         return "chat:recent:" + roomId;
     }
 
+    public static String recentVersionKey(Long roomId) {
+        return "chat:recent-ver:" + roomId;
+    }
+
+    public static String recentHeadKey(Long roomId) {
+        return "chat:recent-head:" + roomId;
+    }
+
+    public static String recentLockKey(Long roomId) {
+        return "chat:recent-lock:" + roomId;
+    }
+
+    public static String streamKey(Long roomId) {
+        return STREAM_PREFIX + roomId;
+    }
+
+    public static Long roomIdOfStreamKey(String key) {
+        if (!key.startsWith(STREAM_PREFIX)) {
+            throw new IllegalArgumentException("not a room stream: " + key);
+        }
+        return Long.valueOf(key.substring(STREAM_PREFIX.length()));
+    }
+
+    public static String seqKey(Long roomId) {
+        return "chat:seq:" + roomId;
+    }
+
+    public static String deliveredKey(Long roomId) {
+        return "chat:delivered:" + roomId;
+    }
+
     public static String channelPatternAllRooms() {
         return "chat:room:*";
     }
-}
\ No newline at end of file
+}
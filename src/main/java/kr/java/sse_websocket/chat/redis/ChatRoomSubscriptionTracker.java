@@ -0,0 +1,269 @@
+package kr.java.sse_websocket.chat.redis;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로컬 STOMP 구독자가 있는 방만 Redis 채널(chat:room:{roomId})을 구독한다.
+ *
+ * 문제:
+ * - PatternTopic(chat:room:*)이면 모든 노드가 모든 방의 메시지를 받아 파싱/브로드캐스트한다(노드 수 × 전체 메시지).
+ *
+ * 동작:
+ * - /topic/chat/rooms/{roomId} SUBSCRIBE → 방별 참조 수 +1, 0→1이면 Redis SUBSCRIBE
+ * - UNSUBSCRIBE / DISCONNECT → 참조 수 -1, 0이 되면 grace 이후 Redis UNSUBSCRIBE
+ *   (새로고침/재연결처럼 바로 다시 구독하는 경우 Redis 구독을 흔들지 않는다)
+ * - 상태 변경과 Redis 구독 변경은 전용 스레드 1개에서 순서대로 처리한다(STOMP 스레드 블로킹 방지).
+ *
+ * 구독 직후 빈틈:
+ * - STOMP SUBSCRIBE는 바로 처리되지만 Redis 구독(또는 stream offset 등록)은 이 스레드에서 뒤이어 일어난다.
+ *   그 사이 다른 노드가 publish한 메시지는 이 노드에 오지 않는다(Pub/Sub은 구독 전 메시지를 남기지 않음).
+ * - Redis 구독이 확인된 뒤(addMessageListener는 구독 확인까지 기다린다) 그 세션에만
+ *   /user/topic/chat/subscribed {roomId}를 보낸다. 클라이언트는 이걸 받은 다음 catch-up
+ *   (pubsub: messages/since, stream: stream?afterSeq)으로 빈틈을 메운다(중복은 messageId로 제거).
+ * - 이미 구독 중인 방이거나 동적 구독을 쓰지 않으면(패턴 구독은 항상 켜져 있음) 바로 보낸다.
+ *
+ * 구독 중인 방은 L1 최근 메시지 캐시(ChatRecentNearCache)가 받은 메시지로 최신 상태를 유지한다(follow/unfollow).
+ *
+ * chat.redis.transport=stream이면 Pub/Sub 채널 대신 ChatStreamTransport에 방을 붙였다 뗀다(offset 관리 대상).
+ *
+ * chat.redis.dynamic-subscriptions=false(그리고 pubsub)거나 Redis 구독 컨테이너가 없으면(테스트) no-op.
+ */
+@Slf4j
+@Component
+public class ChatRoomSubscriptionTracker {
+
+    private static final String ROOM_TOPIC_PREFIX = "/topic/chat/rooms/";
+    // 구독 준비 완료 알림(사용자 목적지: /user/topic/chat/subscribed)
+    static final String SUBSCRIBED_DESTINATION = "/topic/chat/subscribed";
+
+    private final RedisChatSubscriber subscriber;
+    private final ChatStreamTransport chatStreamTransport;
+    private final ChatRecentNearCache chatRecentNearCache;
+    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final ObjectProvider<RedisMessageListenerContainer> containerProvider;
+    private final boolean enabled;
+    private final long graceMillis;
+
+    // sessionId -> (subscriptionId -> roomId)
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+    // roomId -> 로컬 구독 수
+    private final Map<Long, Integer> refCounts = new ConcurrentHashMap<>();
+    // roomId -> grace 이후 해제 예약
+    private final Map<Long, ScheduledFuture<?>> pendingRelease = new ConcurrentHashMap<>();
+    // 현재 Redis 구독 중인 방
+    private final Set<Long> subscribedRooms = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService worker =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("chat-room-sub-"));
+
+    private final AtomicLong redisSubscribes = new AtomicLong();
+    private final AtomicLong redisUnsubscribes = new AtomicLong();
+
+    public ChatRoomSubscriptionTracker(RedisChatSubscriber subscriber,
+                                       ChatStreamTransport chatStreamTransport,
+                                       ChatRecentNearCache chatRecentNearCache,
+                                       SimpMessagingTemplate simpMessagingTemplate,
+                                       @Qualifier("redisMessageListenerContainer")
+                                       ObjectProvider<RedisMessageListenerContainer> containerProvider,
+                                       @Value("${chat.redis.dynamic-subscriptions:true}") boolean enabled,
+                                       @Value("${chat.redis.subscription-grace-ms:30000}") long graceMillis) {
+        this.subscriber = subscriber;
+        this.chatStreamTransport = chatStreamTransport;
+        this.chatRecentNearCache = chatRecentNearCache;
+        this.simpMessagingTemplate = simpMessagingTemplate;
+        this.containerProvider = containerProvider;
+        this.enabled = enabled || chatStreamTransport.isEnabled();
+        this.graceMillis = graceMillis;
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Long roomId = roomIdOf(headers.getDestination());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (roomId == null || sessionId == null || subscriptionId == null) {
+            return;
+        }
+        if (!enabled) {
+            notifySubscribed(sessionId, roomId);
+            return;
+        }
+        submit(() -> {
+            Long previous = sessions.computeIfAbsent(sessionId, k -> new HashMap<>()).put(subscriptionId, roomId);
+            acquire(roomId);
+            if (previous != null) {
+                release(previous);
+            }
+            notifySubscribed(sessionId, roomId);
+        });
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (!enabled || sessionId == null || subscriptionId == null) {
+            return;
+        }
+        submit(() -> {
+            Map<String, Long> subscriptions = sessions.get(sessionId);
+            if (subscriptions == null) {
+                return;
+            }
+            Long roomId = subscriptions.remove(subscriptionId);
+            if (subscriptions.isEmpty()) {
+                sessions.remove(sessionId);
+            }
+            if (roomId != null) {
+                release(roomId);
+            }
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        if (!enabled || sessionId == null) {
+            return;
+        }
+        submit(() -> {
+            Map<String, Long> subscriptions = sessions.remove(sessionId);
+            if (subscriptions != null) {
+                subscriptions.values().forEach(this::release);
+            }
+        });
+    }
+
+    /**
+     * 구독 현황(디버그용).
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "sessions", (long) sessions.size(),
+                "localRooms", (long) refCounts.size(),
+                "subscribedRooms", (long) subscribedRooms.size(),
+                "pendingRelease", (long) pendingRelease.size(),
+                "redisSubscribes", redisSubscribes.get(),
+                "redisUnsubscribes", redisUnsubscribes.get()
+        );
+    }
+
+    private void acquire(Long roomId) {
+        refCounts.merge(roomId, 1, Integer::sum);
+
+        ScheduledFuture<?> pending = pendingRelease.remove(roomId);
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        if (subscribedRooms.contains(roomId)) {
+            return;
+        }
+        if (chatStreamTransport.isEnabled()) {
+            chatStreamTransport.addRoom(roomId);
+        } else {
+            RedisMessageListenerContainer container = containerProvider.getIfAvailable();
+            if (container == null) {
+                return;
+            }
+            container.addMessageListener(subscriber, new ChannelTopic(ChatRedisKeys.channelRoom(roomId)));
+        }
+        subscribedRooms.add(roomId);
+        chatRecentNearCache.follow(roomId);
+        redisSubscribes.incrementAndGet();
+    }
+
+    private void release(Long roomId) {
+        Integer left = refCounts.computeIfPresent(roomId, (k, count) -> count > 1 ? count - 1 : null);
+        if (left == null && subscribedRooms.contains(roomId) && !pendingRelease.containsKey(roomId)) {
+            pendingRelease.put(roomId, worker.schedule(() -> expire(roomId), graceMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void expire(Long roomId) {
+        pendingRelease.remove(roomId);
+        if (refCounts.containsKey(roomId) || !subscribedRooms.remove(roomId)) {
+            return;
+        }
+        chatRecentNearCache.unfollow(roomId);
+        try {
+            if (chatStreamTransport.isEnabled()) {
+                chatStreamTransport.removeRoom(roomId);
+                redisUnsubscribes.incrementAndGet();
+                return;
+            }
+            RedisMessageListenerContainer container = containerProvider.getIfAvailable();
+            if (container != null) {
+                container.removeMessageListener(subscriber, new ChannelTopic(ChatRedisKeys.channelRoom(roomId)));
+                redisUnsubscribes.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("[CHAT] redis unsubscribe failed room={}: {}", roomId, e.getMessage());
+        }
+    }
+
+    /**
+     * 이 세션에만 "이제부터 실시간으로 받는다"를 알린다(클라이언트가 catch-up으로 그 전 빈틈을 메운다).
+     */
+    private void notifySubscribed(String sessionId, Long roomId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        simpMessagingTemplate.convertAndSendToUser(sessionId, SUBSCRIBED_DESTINATION,
+                Map.of("roomId", roomId), accessor.getMessageHeaders());
+    }
+
+    private void submit(Runnable task) {
+        worker.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("[CHAT] room subscription update failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    static Long roomIdOf(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package kr.java.sse_websocket.chat.redis;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.chat.domain.ChatStreamPage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis Streams 기반 채팅 전파(chat.redis.transport=stream).
+ *
+ * Pub/Sub와 차이:
+ * - Pub/Sub은 fire-and-forget이라 구독 재연결/GC pause 동안의 메시지가 조용히 사라진다.
+ * - stream은 chat:stream:{roomId}에 남아 있으므로, 노드는 방별 offset(마지막 entry id)부터 이어 읽는다.
+ *
+ * 구조:
+ * - entry id = {방별 순번}-0 (RedisChatPublisher 스크립트가 INCR로 발급) → 클라이언트 재개 지점으로 그대로 쓴다.
+ * - 노드 offset: 로컬 구독자가 있는 방만(ChatRoomSubscriptionTracker가 addRoom/removeRoom), 메모리에 보관
+ * - 읽기 스레드 1개가 XREAD BLOCK으로 활성 방 전체를 한 번에 읽고 STOMP로 보낸다(헤더 seq 포함).
+ * - 트리밍: XADD MAXLEN ~ stream-max-len. 재개 요청이 트리밍된 구간이면 resync를 돌려준다.
+ * - chat:seq를 잃어도(eviction 등) stream이 남아 있으면 마지막 entry id가 순번 기준이다
+ *   (발급 스크립트도 같은 값에서 이어서 INCR한다 → RedisChatPublisher).
+ *
+ * consumer group은 쓰지 않는다. 메시지를 노드끼리 나눠 갖는 게 아니라 구독자가 있는 노드가 모두 받아야 하기 때문.
+ */
+@Slf4j
+@Component
+public class ChatStreamTransport {
+
+    private static final byte[] EVENT_FIELD = "e".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisChatSubscriber subscriber;
+    private final ChatEventEncoder chatEventEncoder;
+    private final boolean enabled;
+    private final int readBatch;
+    private final Duration block;
+
+    // roomId -> 이 노드가 마지막으로 전달한 entry id
+    private final Map<Long, String> offsets = new ConcurrentHashMap<>();
+
+    private final ExecutorService reader =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("chat-stream-"));
+    private volatile boolean running = true;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong readErrors = new AtomicLong();
+
+    public ChatStreamTransport(StringRedisTemplate stringRedisTemplate,
+                               RedisChatSubscriber subscriber,
+                               ChatEventEncoder chatEventEncoder,
+                               @Value("${chat.redis.enabled:true}") boolean redisEnabled,
+                               @Value("${chat.redis.transport:pubsub}") String transport,
+                               @Value("${chat.redis.stream-read-batch:200}") int readBatch,
+                               @Value("${chat.redis.stream-block-ms:1000}") long blockMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.subscriber = subscriber;
+        this.chatEventEncoder = chatEventEncoder;
+        this.enabled = redisEnabled && "stream".equals(transport);
+        this.readBatch = readBatch;
+        this.block = Duration.ofMillis(blockMillis);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            reader.execute(this::readLoop);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        reader.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 방 읽기 시작. offset은 현재 마지막 순번(이후 메시지부터 전달).
+     */
+    public void addRoom(Long roomId) {
+        offsets.computeIfAbsent(roomId, id -> lastSeq(id) + "-0");
+    }
+
+    public void removeRoom(Long roomId) {
+        offsets.remove(roomId);
+    }
+
+    public long lastSeq(Long roomId) {
+        String value = stringRedisTemplate.opsForValue().get(ChatRedisKeys.seqKey(roomId));
+        if (value != null) {
+            return Long.parseLong(value);
+        }
+        // 순번 키가 없으면 stream 마지막 entry(없으면 0)
+        byte[] key = bytes(ChatRedisKeys.streamKey(roomId));
+        List<ByteRecord> last = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRevRange(key, Range.unbounded(), Limit.limit().count(1)));
+        return last == null || last.isEmpty() ? 0 : seqOf(last.get(0));
+    }
+
+    /**
+     * 클라이언트 재개: afterSeq 이후 이벤트를 stream에서 읽는다(DB 조회 없음).
+     * - afterSeq가 null이면 현재 lastSeq만 돌려준다(재개 기준점 확보용).
+     * - afterSeq가 lastSeq보다 크면 순번이 처음부터 다시 시작된 것(stream까지 유실)이므로 resync.
+     */
+    public ChatStreamPage readAfter(Long roomId, Long afterSeq, int limit) {
+        if (afterSeq != null && afterSeq < 0) {
+            throw new IllegalArgumentException("afterSeq must not be negative");
+        }
+        long lastSeq = lastSeq(roomId);
+        if (afterSeq == null || afterSeq == lastSeq) {
+            return ChatStreamPage.builder().lastSeq(lastSeq).events(List.of()).build();
+        }
+        if (afterSeq > lastSeq) {
+            return ChatStreamPage.builder().lastSeq(lastSeq).resync(true).events(List.of()).build();
+        }
+
+        byte[] key = bytes(ChatRedisKeys.streamKey(roomId));
+        Range<String> range = Range.rightUnbounded(Range.Bound.inclusive((afterSeq + 1) + "-0"));
+        List<ByteRecord> records = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRange(key, range, Limit.limit().count(limit)));
+        if (records == null) {
+            records = List.of();
+        }
+
+        // 순번은 빈틈없이 증가하므로 첫 entry가 afterSeq+1이 아니면 그 사이는 트리밍된 것
+        boolean trimmed = records.isEmpty() || seqOf(records.get(0)) != afterSeq + 1;
+        if (trimmed) {
+            return ChatStreamPage.builder().lastSeq(lastSeq).resync(true).events(List.of()).build();
+        }
+
+        List<ChatStreamPage.Entry> events = new ArrayList<>(records.size());
+        for (ByteRecord record : records) {
+            events.add(new ChatStreamPage.Entry(seqOf(record),
+                    new String(chatEventEncoder.toJson(eventOf(record)), StandardCharsets.UTF_8)));
+        }
+        long last = events.get(events.size() - 1).getSeq();
+        return ChatStreamPage.builder()
+                .lastSeq(lastSeq)
+                .hasMore(last < lastSeq)
+                .events(events)
+                .build();
+    }
+
+    public Map<String, Long> stats() {
+        return Map.of(
+                "rooms", (long) offsets.size(),
+                "delivered", delivered.get(),
+                "readErrors", readErrors.get()
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readLoop() {
+        StreamReadOptions options = StreamReadOptions.empty().count(readBatch).block(block);
+        while (running) {
+            try {
+                if (offsets.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                    continue;
+                }
+                StreamOffset<byte[]>[] streams = offsets.entrySet().stream()
+                        .map(e -> StreamOffset.create(bytes(ChatRedisKeys.streamKey(e.getKey())), ReadOffset.from(e.getValue())))
+                        .toArray(StreamOffset[]::new);
+
+                List<ByteRecord> records = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                        connection.streamCommands().xRead(options, streams));
+                if (records == null) {
+                    continue;
+                }
+                for (ByteRecord record : records) {
+                    Long roomId = ChatRedisKeys.roomIdOfStreamKey(new String(record.getStream(), StandardCharsets.UTF_8));
+                    // 그 사이 로컬 구독자가 모두 나간 방은 건너뛴다
+                    if (offsets.replace(roomId, record.getId().getValue()) == null) {
+                        continue;
+                    }
+                    subscriber.deliver(roomId, eventOf(record), seqOf(record));
+                    delivered.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                readErrors.incrementAndGet();
+                log.warn("[CHAT] stream read failed: {}", e.getMessage());
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long seqOf(ByteRecord record) {
+        return record.getId().getTimestamp();
+    }
+
+    private static byte[] eventOf(ByteRecord record) {
+        for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+            if (Arrays.equals(field.getKey(), EVENT_FIELD)) {
+                return field.getValue();
+            }
+        }
+        throw new IllegalArgumentException("stream entry has no event field: " + record.getId());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
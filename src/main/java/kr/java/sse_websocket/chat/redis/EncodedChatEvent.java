@@ -0,0 +1,10 @@
+package kr.java.sse_websocket.chat.redis;
+
+/**
+ * 한 번 인코딩된 채팅 이벤트.
+ * - bytes는 recent cache, Pub/Sub, STOMP 전송에 그대로 쓰인다(다시 직렬화하지 않는다).
+ * - roomId는 키/채널 계산용(bytes를 디코딩하지 않고 라우팅하기 위함)
+ * - messageId는 recent list 중복 확인용(write-behind 임시 메시지는 null)
+ */
+public record EncodedChatEvent(Long roomId, Long messageId, byte[] bytes) {
+}
@@ -0,0 +1,88 @@
+package kr.java.sse_websocket.chat.redis;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * JSON 형식(기존 형식, 기본값).
+ * - 브라우저가 받는 형식과 같아서 STOMP/API까지 변환 없이 그대로 나간다.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonChatEventCodec implements ChatEventCodec {
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public boolean accepts(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == '{';
+    }
+
+    @Override
+    public byte[] encode(ChatEventPayload payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("chat event encode failed", e);
+        }
+    }
+
+    @Override
+    public ChatEventPayload decode(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, ChatEventPayload.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("chat event decode failed", e);
+        }
+    }
+
+    /**
+     * roomId 필드만 스트리밍으로 읽는다. ChatEventPayload는 roomId가 첫 필드라 바로 끝난다.
+     */
+    @Override
+    public Long roomIdOf(byte[] bytes) {
+        Long roomId = longField(bytes, "roomId");
+        if (roomId == null) {
+            throw new IllegalArgumentException("chat event has no roomId");
+        }
+        return roomId;
+    }
+
+    /**
+     * messageId는 두 번째 필드라 roomId와 마찬가지로 앞부분만 읽는다.
+     */
+    @Override
+    public Long messageIdOf(byte[] bytes) {
+        return longField(bytes, "messageId");
+    }
+
+    // 최상위 숫자 필드 1개(없거나 null이면 null)
+    private Long longField(byte[] bytes, String name) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("chat event is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(field)) {
+                    return value == JsonToken.VALUE_NULL ? null : parser.getLongValue();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("chat event decode failed", e);
+        }
+    }
+}
@@ -1,29 +1,245 @@
 package kr.java.sse_websocket.chat.redis;
 
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
 /**
- * 채팅 이벤트를 Redis Pub/Sub로 발행하는 Publisher.
+ * 채팅 이벤트를 Redis에 반영하는 Publisher.
+ *
+ * recent cache 갱신(LPUSHX + LTRIM)과 전파를 Lua 스크립트 1번으로 처리한다.
+ * - 원격(TLS) Redis에서는 명령 3개를 순서대로 보내는 왕복 지연이 전송 지연의 대부분이다 → 1왕복
+ * - 스크립트는 원자적으로 실행되므로 "캐시에는 있는데 전파는 안 된" 중간 상태가 없다.
+ * - 여러 메시지는 pipeline으로 묶어 N개를 1왕복에 보낸다(outbox 배치 전달).
+ *   명령별 결과를 보고 실패한 메시지만 돌려준다(성공한 메시지는 다시 보내지 않음).
+ *
+ * 중복 전달 방지:
+ * - outbox는 at-least-once라 같은 이벤트가 다시 올 수 있다(pipeline 중간 끊김, dispatchedAt 갱신 전 장애).
+ * - 스크립트는 이벤트 bytes의 SHA1을 방별 전달 기록(chat:delivered:{roomId}, 최근 dedupe-window개)에서 먼저 찾고,
+ *   있으면 아무것도 하지 않는다(-1 반환). 기록은 모든 명령이 성공한 뒤 마지막에 남긴다
+ *   (스크립트는 중간 실패 시 롤백되지 않으므로, 앞에서 남기면 실패한 메시지가 재시도에서 건너뛰어진다).
+ *
+ * 전파 방식(chat.redis.transport):
+ * - pubsub(기본): PUBLISH chat:room:{roomId}
+ * - stream: 방별 순번(INCR chat:seq:{roomId})을 entry id로 XADD chat:stream:{roomId}(MAXLEN ~ 트리밍)
+ *   순번 키를 잃었으면(eviction 등) stream 마지막 entry id에서 다시 시작한다
+ *   (1부터 다시 세면 XADD가 "id가 마지막보다 작다"로 계속 실패한다).
+ *
+ * 값은 이미 인코딩된 bytes(EncodedChatEvent)를 그대로 보낸다.
+ *
+ * recent list는 이미 있을 때만 앞에 붙인다(LPUSHX).
+ * - 없는 list를 새 메시지 1개로 만들면 "캐시 hit인데 히스토리가 1개"가 된다.
+ * - list는 ChatHistoryService의 read-through 채우기(DB 기준 전체)로만 생성되고, 그 충돌 확인용으로 버전을 올린다.
+ * - 채우기는 list에 담은 최신 messageId(recent-head)를 남긴다. 그 이하 messageId가 전달되면
+ *   (커밋 ~ outbox 전달 사이에 채우기가 이미 담았거나, 전달 순서가 뒤바뀐 경우) list 순서를 믿을 수 없으므로
+ *   붙이지 않고 list를 지운다 → 다음 조회가 DB 기준으로 다시 채운다(중복/순서 뒤섞임 없음).
+ *
+ * write-behind는 전송 시점(저장 전)에 여기로 오고, 저장(flush) 후 bumpRecentVersions로 버전을 한 번 더 올린다.
+ * - 전송 시점 INCR: 채우기가 버전을 읽은 뒤 전송된 메시지(list가 없어 LPUSHX가 무시됨)를 감지
+ * - flush 시점 INCR: 전송 이후 ~ flush 전에 버전을 읽고 DB를 읽은 채우기(메시지가 아직 DB에 없음)를 감지
  */
 @Component
-@RequiredArgsConstructor
 public class RedisChatPublisher {
 
+    // 두 스크립트 공통: 버전 올리기 + recent list 앞에 붙이기.
+    // KEYS[1]=recent list, KEYS[2]=list version, KEYS[3]=list head messageId,
+    // ARGV[1]=encoded event, ARGV[2]=cache size, ARGV[5]=meta ttl, ARGV[6]=messageId('' = write-behind 임시 메시지)
+    private static final String PUSH_RECENT = """
+            redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[5])
+            local head = ARGV[6] ~= '' and redis.call('GET', KEYS[3])
+            if head and tonumber(ARGV[6]) <= tonumber(head) then
+                redis.call('DEL', KEYS[1], KEYS[3])
+            elseif redis.call('LPUSHX', KEYS[1], ARGV[1]) > 0 then
+                redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+                if ARGV[6] ~= '' then
+                    redis.call('SET', KEYS[3], ARGV[6], 'EX', ARGV[5])
+                end
+            end
+            """;
+
+    // 전달 기록(마지막에 남긴다)
+    // ARGV[4]=dedupe window, ARGV[5]=meta ttl
+    private static final String RECORD_DELIVERED = """
+            local now = redis.call('TIME')
+            redis.call('ZADD', KEYS[%1$d], tonumber(now[1]) * 1000000 + tonumber(now[2]), id)
+            redis.call('ZREMRANGEBYRANK', KEYS[%1$d], 0, -tonumber(ARGV[4]) - 1)
+            redis.call('EXPIRE', KEYS[%1$d], ARGV[5])
+            """;
+
+    // KEYS[1..3]=PUSH_RECENT, KEYS[4]=delivered
+    // ARGV[1]=encoded event, ARGV[2]=cache size, ARGV[3]=channel, ARGV[4]=dedupe window, ARGV[5]=meta ttl, ARGV[6]=messageId
+    private static final byte[] CACHE_AND_PUBLISH = ("""
+            local id = redis.sha1hex(ARGV[1])
+            if redis.call('ZSCORE', KEYS[4], id) then
+                return -1
+            end
+            """ + PUSH_RECENT + """
+            local receivers = redis.call('PUBLISH', ARGV[3], ARGV[1])
+            """ + RECORD_DELIVERED.formatted(4) + """
+            return receivers
+            """).getBytes(StandardCharsets.UTF_8);
+
+    // KEYS[1..3]=PUSH_RECENT, KEYS[4]=seq, KEYS[5]=stream, KEYS[6]=delivered
+    // ARGV[1]=encoded event, ARGV[2]=cache size, ARGV[3]=stream max len, ARGV[4]=dedupe window, ARGV[5]=meta ttl, ARGV[6]=messageId
+    private static final byte[] CACHE_AND_APPEND = ("""
+            local id = redis.sha1hex(ARGV[1])
+            if redis.call('ZSCORE', KEYS[6], id) then
+                return -1
+            end
+            if redis.call('EXISTS', KEYS[4]) == 0 then
+                local last = redis.call('XREVRANGE', KEYS[5], '+', '-', 'COUNT', 1)[1]
+                if last then
+                    redis.call('SET', KEYS[4], string.match(last[1], '^(%d+)'))
+                end
+            end
+            local seq = redis.call('INCR', KEYS[4])
+            redis.call('XADD', KEYS[5], 'MAXLEN', '~', ARGV[3], seq .. '-0', 'e', ARGV[1])
+            """ + PUSH_RECENT + RECORD_DELIVERED.formatted(6) + """
+            return seq
+            """).getBytes(StandardCharsets.UTF_8);
+
     private final StringRedisTemplate stringRedisTemplate;
-    private final ObjectMapper objectMapper;
+    private final byte[] recentCacheSize;
+    private final boolean stream;
+    private final byte[] streamMaxLen;
+    private final byte[] dedupeWindow;
+    private final byte[] metaTtl = bytes(String.valueOf(ChatRedisKeys.META_TTL_SECONDS));
+
+    public RedisChatPublisher(StringRedisTemplate stringRedisTemplate,
+                              @Value("${chat.redis.recent-cache-size:100}") int recentCacheSize,
+                              @Value("${chat.redis.transport:pubsub}") String transport,
+                              @Value("${chat.redis.stream-max-len:1000}") int streamMaxLen,
+                              @Value("${chat.redis.dedupe-window:1000}") int dedupeWindow) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.recentCacheSize = bytes(String.valueOf(recentCacheSize));
+        this.stream = "stream".equals(transport);
+        this.streamMaxLen = bytes(String.valueOf(streamMaxLen));
+        this.dedupeWindow = bytes(String.valueOf(Math.max(1, dedupeWindow)));
+    }
 
-    public void publishRoomMessage(ChatEventPayload payload) {
+    /**
+     * recent cache 갱신 + 전파(1왕복).
+     */
+    public void cacheAndPublish(EncodedChatEvent event) {
         try {
-            String channel = ChatRedisKeys.channelRoom(payload.getRoomId());
-            String json = objectMapper.writeValueAsString(payload);
-            stringRedisTemplate.convertAndSend(channel, json);
+            stringRedisTemplate.execute((RedisCallback<Object>) (RedisConnection connection) -> eval(connection, event));
         } catch (Exception e) {
             // 실습 단계: 예외를 삼키지 말고 그대로 올리는 편이 장애 인지가 빠름
             throw new IllegalStateException("Redis publish failed", e);
         }
     }
+
+    /**
+     * 여러 메시지의 recent cache 갱신 + 전파를 pipeline 1왕복으로 보낸다.
+     * - 같은 방의 메시지는 목록 순서대로 실행된다.
+     *
+     * @return 실패한 메시지의 index(명령별 결과 기준). 연결 자체가 실패해 결과를 모르면 예외.
+     */
+    public Set<Integer> cacheAndPublishAll(List<EncodedChatEvent> events) {
+        if (events.isEmpty()) {
+            return Set.of();
+        }
+        if (events.size() == 1) {
+            cacheAndPublish(events.get(0));
+            return Set.of();
+        }
+        try {
+            // EVALSHA는 NOSCRIPT 처리(재전송)가 pipeline 안에서 번거로우므로 짧은 스크립트 본문을 그대로 보낸다.
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                for (EncodedChatEvent event : events) {
+                    eval(connection, event);
+                }
+                return null;
+            });
+            return Set.of();
+        } catch (RedisPipelineException e) {
+            return failedIndexes(e, events.size());
+        } catch (Exception e) {
+            throw new IllegalStateException("Redis publish failed", e);
+        }
+    }
+
+    // pipeline 결과는 명령 순서대로, 실패한 자리에는 예외 객체가 들어 있다.
+    private static Set<Integer> failedIndexes(RedisPipelineException e, int size) {
+        List<Object> results = e.getResults();
+        if (results.size() != size) {
+            throw new IllegalStateException("Redis publish failed", e);
+        }
+        Set<Integer> failed = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            if (results.get(i) instanceof Throwable) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * write-behind flush 직후: 저장된 방들의 list 버전을 올린다(pipeline 1왕복).
+     * - 저장 전에 DB를 읽은 채우기가 메시지 빠진 list를 쓰지 못하게 한다.
+     */
+    public void bumpRecentVersions(Collection<Long> roomIds) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                for (Long roomId : roomIds) {
+                    byte[] key = bytes(ChatRedisKeys.recentVersionKey(roomId));
+                    connection.stringCommands().incr(key);
+                    connection.keyCommands().expire(key, ChatRedisKeys.META_TTL_SECONDS);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Redis version bump failed", e);
+        }
+    }
+
+    private Object eval(RedisConnection connection, EncodedChatEvent event) {
+        Long roomId = event.roomId();
+        byte[] messageId = event.messageId() == null ? new byte[0] : bytes(String.valueOf(event.messageId()));
+        if (stream) {
+            return connection.scriptingCommands().eval(CACHE_AND_APPEND, ReturnType.INTEGER, 6,
+                    bytes(ChatRedisKeys.recentListKey(roomId)),
+                    bytes(ChatRedisKeys.recentVersionKey(roomId)),
+                    bytes(ChatRedisKeys.recentHeadKey(roomId)),
+                    bytes(ChatRedisKeys.seqKey(roomId)),
+                    bytes(ChatRedisKeys.streamKey(roomId)),
+                    bytes(ChatRedisKeys.deliveredKey(roomId)),
+                    event.bytes(),
+                    recentCacheSize,
+                    streamMaxLen,
+                    dedupeWindow,
+                    metaTtl,
+                    messageId);
+        }
+        return connection.scriptingCommands().eval(CACHE_AND_PUBLISH, ReturnType.INTEGER, 4,
+                bytes(ChatRedisKeys.recentListKey(roomId)),
+                bytes(ChatRedisKeys.recentVersionKey(roomId)),
+                bytes(ChatRedisKeys.recentHeadKey(roomId)),
+                bytes(ChatRedisKeys.deliveredKey(roomId)),
+                event.bytes(),
+                recentCacheSize,
+                bytes(ChatRedisKeys.channelRoom(roomId)),
+                dedupeWindow,
+                metaTtl,
+                messageId);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
 }
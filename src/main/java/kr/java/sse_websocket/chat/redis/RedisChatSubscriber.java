@@ -1,41 +1,122 @@
 package kr.java.sse_websocket.chat.redis;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Redis Pub/Sub 구독자.
  *
- * - 모든 서버 인스턴스가 Redis 채널(chat:room:*)을 구독한다.
+ * - 서버 인스턴스는 로컬 구독자가 있는 방의 Redis 채널(chat:room:{roomId})만 구독한다(ChatRoomSubscriptionTracker).
  * - 메시지를 수신하면 STOMP 토픽(/topic/chat/rooms/{roomId})으로 브로드캐스트한다.
  *
  * 이 구조의 핵심:
  * - WebSocket 세션은 서버 인스턴스마다 분산되어 있어도,
- *   Redis를 통해 "모든 서버가 동일 이벤트를 받는" 구조가 된다.
+ *   Redis를 통해 "그 방 구독자가 있는 모든 서버가 동일 이벤트를 받는" 구조가 된다.
+ *
+ * 본문은 디코딩하지 않는다.
+ * - roomId는 채널 이름(chat:room:{roomId})에서 얻고, 받은 bytes를 그대로 STOMP 프레임 body로 보낸다.
+ * - chat.redis.codec=binary면 브라우저용 JSON으로 이 노드에서 1번 변환한다.
+ *
+ * 전달은 방별 레인에서 병렬로 한다(같은 방은 순서 유지, ChatDeliveryLanes).
+ * 레인이 가득 차 버린 메시지는 그 방 구독자에게 resync 알림(STOMP 헤더 resync=true)을 보내 catch-up으로 메우게 한다.
  */
 @Component
 @RequiredArgsConstructor
 public class RedisChatSubscriber implements MessageListener {
 
-    private final ObjectMapper objectMapper;
+    static final long RESYNC_NOTICE_INTERVAL_MS = 1000;
+
     private final SimpMessagingTemplate simpMessagingTemplate;
+    private final ChatEventEncoder chatEventEncoder;
+    private final ChatRecentNearCache chatRecentNearCache;
+    private final ChatDeliveryLanes chatDeliveryLanes;
+
+    // 방별 마지막 resync 알림 시각(레인이 밀린 동안 버릴 때마다 알리지 않도록)
+    private final Map<Long, Long> lastResyncNotice = new ConcurrentHashMap<>();
+    private final AtomicLong resyncNotices = new AtomicLong();
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String json = new String(message.getBody());
-            ChatEventPayload payload = objectMapper.readValue(json, ChatEventPayload.class);
-
-            String topic = "/topic/chat/rooms/" + payload.getRoomId();
-            simpMessagingTemplate.convertAndSend(topic, payload);
+            Long roomId = ChatRedisKeys.roomIdOfChannel(new String(message.getChannel(), StandardCharsets.UTF_8));
+            deliver(roomId, message.getBody(), null);
         } catch (Exception e) {
             // 실습 단계: subscriber 에러는 로그로라도 남기는 것을 권장
             // (여기서는 런타임 예외로 올리면 listener container가 영향을 받을 수 있어 주의)
             System.err.println("[RedisChatSubscriber] parse/broadcast failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 인코딩된 이벤트를 /topic/chat/rooms/{roomId}로 보낸다.
+     * - seq(stream transport의 방별 순번)가 있으면 STOMP 헤더 seq로 싣는다(클라이언트 재개 지점).
+     * - 보내기 전에 L1 최근 메시지 창에 먼저 붙인다(받은 직후 최근 메시지를 조회해도 보이도록).
+     * - 변환/전송은 방별 레인(ChatDeliveryLanes)에서 한다. 수신 스레드는 넣기만 하고 바로 다음 메시지를 받는다.
+     */
+    public void deliver(Long roomId, byte[] encoded, Long seq) {
+        if (!chatDeliveryLanes.submit(roomId, () -> deliverNow(roomId, encoded, seq))) {
+            noticeResync(roomId);
+        }
+    }
+
+    /**
+     * 보낸 resync 알림 수(방별로 RESYNC_NOTICE_INTERVAL_MS에 1번).
+     */
+    public long resyncNotices() {
+        return resyncNotices.get();
+    }
+
+    /**
+     * 버린 메시지가 있는 방의 구독자에게 catch-up을 요청한다. 레인을 거치지 않고 수신 스레드에서 바로 보낸다.
+     */
+    private void noticeResync(Long roomId) {
+        long now = System.currentTimeMillis();
+        Long last = lastResyncNotice.get(roomId);
+        if (last != null && now - last < RESYNC_NOTICE_INTERVAL_MS) {
+            return;
+        }
+        lastResyncNotice.put(roomId, now);
+        resyncNotices.incrementAndGet();
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader("resync", "true");
+        accessor.setLeaveMutable(true);
+        byte[] body = ("{\"roomId\":" + roomId + ",\"resync\":true}").getBytes(StandardCharsets.UTF_8);
+        simpMessagingTemplate.send("/topic/chat/rooms/" + roomId, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+
+    private void deliverNow(Long roomId, byte[] encoded, Long seq) {
+        byte[] json = chatEventEncoder.toJson(encoded);
+        chatRecentNearCache.append(roomId, json);
+
+        String topic = "/topic/chat/rooms/" + roomId;
+        simpMessagingTemplate.send(topic, MessageBuilder.createMessage(json, jsonHeaders(seq)));
+    }
+
+    /**
+     * byte[] payload는 message converter를 거치지 않고 STOMP body로 그대로 나간다.
+     */
+    private static MessageHeaders jsonHeaders(Long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (seq != null) {
+            accessor.setNativeHeader("seq", String.valueOf(seq));
+        }
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
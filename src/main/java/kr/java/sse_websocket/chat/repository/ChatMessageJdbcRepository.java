@@ -0,0 +1,45 @@
+package kr.java.sse_websocket.chat.repository;
+
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 채팅 메시지 일괄 저장(JDBC).
+ *
+ * - ChatMessage는 IDENTITY 전략이라 Hibernate JDBC batching이 꺼진다(행마다 insert + 키 조회).
+ * - write-behind 모드에서는 모인 메시지를 multi-row insert 한 문장으로 저장한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * insert into chat_messages ... values (...), (...), ... 한 번으로 저장한다.
+     * @return 저장된 행 수
+     */
+    public int insertAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(
+                "insert into chat_messages (room_id, sender_username, content, created_at) values ");
+        List<Object> args = new ArrayList<>(messages.size() * 4);
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage m = messages.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args.add(m.getRoomId());
+            args.add(m.getSenderUsername());
+            args.add(m.getContent());
+            args.add(Timestamp.from(m.getCreatedAt()));
+        }
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
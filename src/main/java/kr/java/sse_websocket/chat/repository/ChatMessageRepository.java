@@ -12,6 +12,12 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     // 최근 N개 가져오기(내림차순)
     List<ChatMessage> findByRoomIdOrderByCreatedAtDesc(Long roomId, Pageable pageable);
 
-    // room에서 특정 id 이후 메시지(선택 확장용)
-    List<ChatMessage> findByRoomIdAndIdGreaterThanOrderByIdAsc(Long roomId, Long afterId);
+    // room에서 특정 id 이후 메시지(catch-up). idx_chat_messages_room_id(roomId, +PK id) 범위 조회, 반드시 limit과 함께
+    List<ChatMessage> findByRoomIdAndIdGreaterThanOrderByIdAsc(Long roomId, Long afterId, Pageable pageable);
+
+    // 최신부터 N번째 메시지 위치 확인용(catch-up 간격 상한 판단)
+    List<ChatMessage> findByRoomIdOrderByIdDesc(Long roomId, Pageable pageable);
+
+    // (afterId, toId] 구간 메시지 수(catch-up 캐시 완전성 확인). idx_chat_messages_room_id만으로 센다(행 접근 없음)
+    long countByRoomIdAndIdGreaterThanAndIdLessThanEqual(Long roomId, Long afterId, Long toId);
 }
@@ -0,0 +1,32 @@
+package kr.java.sse_websocket.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * 채팅방 생성(JDBC).
+ *
+ * - select → save 순서면 같은 쌍을 동시에 만들 때 uk_chat_rooms_pair 위반으로 한쪽 요청이 실패한다.
+ * - on duplicate key update id = id는 이미 있는 쌍이면 아무것도 바꾸지 않으므로, 이후 select 1번으로 어느 쪽이든 같은 방을 얻는다.
+ *   (insert ignore와 달리 유니크 충돌만 무시한다. NOT NULL/길이 위반 같은 다른 오류는 경고로 삼키지 않고 그대로 실패한다.)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatRoomJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * (userA, userB) 방이 없을 때만 만든다. userA <= userB로 정렬된 값을 넘긴다.
+     * @return 새로 만들었으면 1, 이미 있었으면 0
+     */
+    public int insertIfAbsent(String userA, String userB) {
+        return jdbcTemplate.update(
+                "insert into chat_rooms (user_a, user_b, created_at) values (?, ?, ?) on duplicate key update id = id",
+                userA, userB, Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,452 @@
+package kr.java.sse_websocket.chat.service;
+
+import kr.java.sse_websocket.chat.domain.ChatCatchUpPage;
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 히스토리 조회.
+ *
+ * 최근 메시지(read-through):
+ * 0) L1(ChatRecentNearCache): 이 노드가 메시지를 받고 있는 방은 메모리 창에서 응답(Redis 왕복 없음)
+ * 1) Redis recent list hit → 인코딩된 bytes를 그대로 JSON 배열로 응답
+ * 2) miss → DB에서 읽어 list를 채운다(다음 요청부터 hit)
+ *    - 같은 노드의 동시 miss는 방별 1번의 DB 로딩으로 합친다(single-flight)
+ *    - 노드 간에는 SET NX 락으로 1노드만 채우고, 나머지는 잠깐 기다렸다가 캐시를 다시 본다
+ *    - 채우는 동안 새 메시지가 들어왔으면(list 버전 변경) 쓰지 않는다 → 캐시에 빈틈이 생기지 않는다
+ *    - 메시지가 없는 방도 빈 방 표시(길이 0 원소) 1개로 채운다 → 빈 방 조회가 매번 DB로 가지 않는다.
+ *      이후 메시지는 그 앞에 붙고(LPUSHX), 표시는 읽을 때 걸러낸다.
+ *
+ * catch-up(afterId 이후 메시지):
+ * 1) Redis recent list가 afterId 직후부터 덮고 있으면 캐시에서 응답
+ *    - 단, (afterId, 캐시 최대 id] 구간의 DB 건수(인덱스 count 1번)와 캐시 건수가 같을 때만.
+ *      id 순서와 커밋/발행 순서가 어긋나거나 발행이 빠진 메시지가 있으면 캐시에 구멍이 있으므로 DB로 넘긴다.
+ * 2) 아니면 (roomId, id) 인덱스 범위 조회. 항상 page-limit개까지만 읽는다.
+ * 3) 놓친 양이 max-gap을 넘으면 tooFarBehind → 클라이언트는 이어 받지 않고 최근 메시지를 다시 로딩
+ */
+@Slf4j
+@Service
+public class ChatHistoryService {
+
+    // 최근 메시지 API 1회 최대 건수
+    public static final int MAX_RECENT = 200;
+
+    // KEYS[1]=recent list, KEYS[2]=list version, KEYS[3]=list head messageId,
+    // ARGV[1]=채우기 전에 읽은 버전('' = 없음), ARGV[2]=cache size, ARGV[3]=최신 messageId, ARGV[4]=head ttl, ARGV[5..]=최신순 entries
+    private static final byte[] FILL_IF_UNCHANGED = """
+            local version = redis.call('GET', KEYS[2]) or ''
+            if version ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('RPUSH', KEYS[1], unpack(ARGV, 5))
+            redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+            redis.call('SET', KEYS[3], ARGV[3], 'EX', ARGV[4])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    // 빈 방 표시(인코딩된 이벤트는 비어 있지 않다). list 맨 뒤(가장 오래된 자리)에만 온다.
+    private static final byte[] EMPTY_ROOM = new byte[0];
+
+    private static final DefaultRedisScript<Long> UNLOCK_IF_OWNER = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChatEventEncoder chatEventEncoder;
+    private final ChatRecentNearCache chatRecentNearCache;
+
+    private final int pageLimit;
+    private final int maxGap;
+    private final int recentCacheSize;
+    private final Duration fillLockTtl;
+    private final long fillWaitMillis;
+
+    // roomId -> 이 노드에서 진행 중인 채우기(single-flight)
+    private final Map<Long, CompletableFuture<List<byte[]>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong dbLoads = new AtomicLong();
+    private final AtomicLong fills = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong lockWaits = new AtomicLong();
+    private final AtomicLong fillSkipped = new AtomicLong();
+    private final AtomicLong cacheGaps = new AtomicLong();
+
+    public ChatHistoryService(ChatMessageRepository chatMessageRepository,
+                              StringRedisTemplate stringRedisTemplate,
+                              ChatEventEncoder chatEventEncoder,
+                              ChatRecentNearCache chatRecentNearCache,
+                              @Value("${chat.catch-up.page-limit:200}") int pageLimit,
+                              @Value("${chat.catch-up.max-gap:1000}") int maxGap,
+                              @Value("${chat.redis.recent-cache-size:100}") int recentCacheSize,
+                              @Value("${chat.redis.recent-fill-lock-ms:3000}") long fillLockMillis,
+                              @Value("${chat.redis.recent-fill-wait-ms:500}") long fillWaitMillis) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.chatEventEncoder = chatEventEncoder;
+        this.chatRecentNearCache = chatRecentNearCache;
+        this.pageLimit = pageLimit;
+        this.maxGap = maxGap;
+        this.recentCacheSize = recentCacheSize;
+        this.fillLockTtl = Duration.ofMillis(fillLockMillis);
+        this.fillWaitMillis = fillWaitMillis;
+    }
+
+    /**
+     * 최근 메시지(오래된 → 최신) JSON 배열.
+     * - 캐시 원소는 전송 시점에 인코딩된 bytes 그대로이므로 디코딩/재직렬화 없이 이어서 응답한다.
+     * - L1(노드 메모리) → L2(Redis recent list) → DB 순으로 찾는다.
+     */
+    public byte[] recent(Long roomId, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_RECENT);
+
+        // 1) L1: 이 노드가 메시지를 받고 있는 방이면 메모리 창에서 바로 응답
+        List<byte[]> newestFirst = chatRecentNearCache.get(roomId, limit);
+        if (newestFirst != null) {
+            return joinAscending(newestFirst, limit);
+        }
+
+        // 2) L2: Redis cache (LPUSH 구조라 최신이 앞, 화면은 오래된→최신 순이 자연스러움)
+        // L1에 담을 방이면 창 전체를 읽는다(이후 더 큰 size 요청도 L1에서 응답).
+        boolean nearCached = chatRecentNearCache.follows(roomId);
+        long stamp = chatRecentNearCache.stamp(roomId);
+        newestFirst = readRecent(roomId, nearCached ? -1 : limit - 1);
+        if (newestFirst != null && !newestFirst.isEmpty()) {
+            hits.incrementAndGet();
+            newestFirst = withoutEmptyRoom(newestFirst);
+        } else {
+            // 3) miss면 DB에서 읽어 캐시를 채운다(read-through)
+            misses.incrementAndGet();
+            newestFirst = loadThrough(roomId);
+        }
+
+        if (nearCached) {
+            List<byte[]> json = new ArrayList<>(newestFirst.size());
+            for (byte[] encoded : newestFirst) {
+                json.add(chatEventEncoder.toJson(encoded));
+            }
+            chatRecentNearCache.load(roomId, stamp, json);
+            newestFirst = json;
+        }
+        return joinAscending(newestFirst, limit);
+    }
+
+    /**
+     * 계층별(L1 / L2 / DB) 적중 통계.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>(chatRecentNearCache.stats());
+        stats.put("l2Hits", hits.get());
+        stats.put("l2Misses", misses.get());
+        stats.put("dbLoads", dbLoads.get());
+        stats.put("fills", fills.get());
+        stats.put("collapsed", collapsed.get());
+        stats.put("lockWaits", lockWaits.get());
+        stats.put("fillSkipped", fillSkipped.get());
+        stats.put("cacheGaps", cacheGaps.get());
+        return stats;
+    }
+
+    // 최신순 → 오래된 → 최신 순 JSON 배열
+    private byte[] joinAscending(List<byte[]> newestFirst, int limit) {
+        List<byte[]> asc = new ArrayList<>(newestFirst.subList(0, Math.min(limit, newestFirst.size())));
+        Collections.reverse(asc);
+        return chatEventEncoder.joinArray(asc);
+    }
+
+    /**
+     * 같은 방의 동시 miss는 먼저 온 요청 1개만 채우고 나머지는 그 결과를 기다린다.
+     */
+    private List<byte[]> loadThrough(Long roomId) {
+        CompletableFuture<List<byte[]>> mine = new CompletableFuture<>();
+        CompletableFuture<List<byte[]>> running = inFlight.putIfAbsent(roomId, mine);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            List<byte[]> loaded = fill(roomId);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(roomId, mine);
+        }
+    }
+
+    /**
+     * 노드 간 채우기 락을 잡고 DB → Redis로 채운다. 락을 못 잡으면 잠깐 기다렸다 캐시를 다시 본다.
+     * @return 최신순 entries
+     */
+    private List<byte[]> fill(Long roomId) {
+        String lockKey = ChatRedisKeys.recentLockKey(roomId);
+        String token = UUID.randomUUID().toString();
+
+        String version;
+        Boolean locked;
+        try {
+            // 버전은 DB를 읽기 전에 확보해야 그 사이 들어온 메시지를 감지할 수 있다.
+            version = stringRedisTemplate.opsForValue().get(ChatRedisKeys.recentVersionKey(roomId));
+            locked = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, fillLockTtl);
+        } catch (Exception e) {
+            // Redis 장애: 캐시 없이 DB로 응답
+            log.warn("[CHAT] recent cache unavailable room={}: {}", roomId, e.getMessage());
+            return loadFromDb(roomId);
+        }
+
+        if (!Boolean.TRUE.equals(locked)) {
+            lockWaits.incrementAndGet();
+            List<byte[]> filled = awaitFill(roomId);
+            return filled != null ? filled : loadFromDb(roomId);
+        }
+
+        try {
+            List<byte[]> entries = loadFromDb(roomId);
+            writeBack(roomId, version, entries);
+            return entries;
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_IF_OWNER, List.of(lockKey), token);
+            } catch (Exception e) {
+                // 락은 TTL로 풀린다
+                log.debug("[CHAT] recent fill unlock failed room={}: {}", roomId, e.getMessage());
+            }
+        }
+    }
+
+    private List<byte[]> awaitFill(Long roomId) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fillWaitMillis);
+        try {
+            while (System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+                List<byte[]> cached = readRecent(roomId, MAX_RECENT - 1);
+                if (cached != null && !cached.isEmpty()) {
+                    return withoutEmptyRoom(cached);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private void writeBack(Long roomId, String version, List<byte[]> entries) {
+        List<byte[]> cacheEntries = entries.isEmpty()
+                ? List.of(EMPTY_ROOM)
+                : entries.subList(0, Math.min(entries.size(), recentCacheSize));
+        Long head = entries.isEmpty() ? null : chatEventEncoder.wrap(entries.get(0)).messageId();
+        byte[][] keysAndArgs = new byte[7 + cacheEntries.size()][];
+        keysAndArgs[0] = ChatRedisKeys.recentListKey(roomId).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[1] = ChatRedisKeys.recentVersionKey(roomId).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[2] = ChatRedisKeys.recentHeadKey(roomId).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[3] = (version == null ? "" : version).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[4] = String.valueOf(recentCacheSize).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[5] = String.valueOf(head == null ? 0L : head).getBytes(StandardCharsets.UTF_8);
+        keysAndArgs[6] = String.valueOf(ChatRedisKeys.META_TTL_SECONDS).getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < cacheEntries.size(); i++) {
+            keysAndArgs[7 + i] = cacheEntries.get(i);
+        }
+        try {
+            Long written = stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.scriptingCommands().eval(FILL_IF_UNCHANGED, ReturnType.INTEGER, 3, keysAndArgs));
+            if (written != null && written == 1) {
+                fills.incrementAndGet();
+            } else {
+                fillSkipped.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("[CHAT] recent cache fill failed room={}: {}", roomId, e.getMessage());
+        }
+    }
+
+    /**
+     * DB 최신순 메시지를 표준 인코딩으로(캐시에 그대로 넣을 수 있게).
+     */
+    private List<byte[]> loadFromDb(Long roomId) {
+        dbLoads.incrementAndGet();
+        List<ChatMessage> rows = chatMessageRepository.findByRoomIdOrderByIdDesc(
+                roomId, PageRequest.of(0, Math.max(recentCacheSize, MAX_RECENT)));
+        List<byte[]> encoded = new ArrayList<>(rows.size());
+        for (ChatMessage m : rows) {
+            encoded.add(chatEventEncoder.encode(toPayload(m)).bytes());
+        }
+        return encoded;
+    }
+
+    /**
+     * recent list 0..stop(최신순). stop=-1이면 전체. 빈 방 표시가 들어 있을 수 있다(withoutEmptyRoom).
+     * @return Redis 장애 시 null
+     */
+    private List<byte[]> readRecent(Long roomId, long stop) {
+        try {
+            byte[] key = ChatRedisKeys.recentListKey(roomId).getBytes(StandardCharsets.UTF_8);
+            return stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.listCommands().lRange(key, 0, stop));
+        } catch (Exception e) {
+            log.warn("[CHAT] recent cache read failed room={}: {}", roomId, e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<byte[]> withoutEmptyRoom(List<byte[]> newestFirst) {
+        int last = newestFirst.size() - 1;
+        if (last >= 0 && newestFirst.get(last).length == 0) {
+            return newestFirst.subList(0, last);
+        }
+        return newestFirst;
+    }
+
+    @Transactional(readOnly = true)
+    public ChatCatchUpPage catchUp(Long roomId, long afterId, int size) {
+        int limit = Math.min(Math.max(size, 1), pageLimit);
+
+        List<ChatEventPayload> fromCache = fromCache(roomId, afterId, limit);
+        if (fromCache != null) {
+            boolean hasMore = fromCache.size() > limit;
+            List<ChatEventPayload> page = hasMore ? fromCache.subList(0, limit) : fromCache;
+            return page(page, hasMore, "cache");
+        }
+
+        // 캐시가 덮지 못하는 구간: 먼저 간격 상한 확인(최신부터 max-gap번째 메시지보다 afterId가 오래됐는지)
+        List<ChatMessage> boundary = chatMessageRepository.findByRoomIdOrderByIdDesc(roomId, PageRequest.of(maxGap, 1));
+        if (!boundary.isEmpty() && boundary.get(0).getId() > afterId) {
+            return ChatCatchUpPage.builder()
+                    .messages(List.of())
+                    .tooFarBehind(true)
+                    .source("db")
+                    .build();
+        }
+
+        List<ChatMessage> rows = chatMessageRepository.findByRoomIdAndIdGreaterThanOrderByIdAsc(
+                roomId, afterId, PageRequest.of(0, limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<ChatEventPayload> page = new ArrayList<>(Math.min(rows.size(), limit));
+        for (ChatMessage m : hasMore ? rows.subList(0, limit) : rows) {
+            page.add(toPayload(m));
+        }
+        return page(page, hasMore, "db");
+    }
+
+    /**
+     * recent list에서 afterId 이후를 오름차순으로(최대 limit+1개) 꺼낸다.
+     * - afterId 이하 메시지가 list에 있어야(덮는 지점) 그 뒤가 빠짐없이 들어 있다고 볼 수 있다.
+     * - 덮는 지점 뒤에 write-behind 임시 메시지(messageId 없음)가 있으면 id 순서/저장 여부를 알 수 없으므로
+     *   캐시로 답하지 않고 DB로 넘긴다(건너뛰면 그 메시지가 빠진 채 "covered"로 응답하게 된다).
+     * - 덮는 지점이 있어도 그 뒤에 빠진 id가 있을 수 있다(늦게 커밋된 작은 id, 발행 실패).
+     *   DB 건수와 캐시 건수가 다르면 DB로 넘긴다. 중복 발행(at-least-once)된 원소는 1번만 센다.
+     * @return 캐시가 afterId 직후 구간을 덮지 못하면 null
+     */
+    private List<ChatEventPayload> fromCache(Long roomId, long afterId, int limit) {
+        List<byte[]> cached = readRecent(roomId, -1);
+        if (cached == null || cached.isEmpty()) {
+            return null;
+        }
+
+        // 최신이 앞 → 오래된 것부터 디코딩하면서, afterId 직후 위치(from)를 찾는다.
+        List<ChatEventPayload> oldestFirst = new ArrayList<>(cached.size());
+        int from = -1;
+        for (int i = cached.size() - 1; i >= 0; i--) {
+            byte[] entry = cached.get(i);
+            if (entry.length == 0) {
+                from = 0; // 빈 방 표시: 방의 첫 메시지부터 담겨 있다
+                continue;
+            }
+            ChatEventPayload payload = chatEventEncoder.decode(entry);
+            Long id = payload.getMessageId();
+            if (id != null && id <= afterId) {
+                from = oldestFirst.size() + 1;
+            }
+            oldestFirst.add(payload);
+        }
+        if (from < 0) {
+            return null;
+        }
+
+        List<ChatEventPayload> asc = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        long maxCachedId = afterId;
+        for (int i = from; i < oldestFirst.size(); i++) {
+            ChatEventPayload payload = oldestFirst.get(i);
+            Long id = payload.getMessageId();
+            if (id == null) {
+                return null; // afterId 이후에 임시 메시지가 있다 → DB 기준으로 응답
+            }
+            if (id <= afterId || !seen.add(id)) {
+                continue;
+            }
+            maxCachedId = Math.max(maxCachedId, id);
+            asc.add(payload);
+        }
+
+        // 캐시에 구멍이 없는지: (afterId, maxCachedId] 구간 건수 비교
+        if (!seen.isEmpty()
+                && chatMessageRepository.countByRoomIdAndIdGreaterThanAndIdLessThanEqual(roomId, afterId, maxCachedId)
+                != seen.size()) {
+            cacheGaps.incrementAndGet();
+            return null;
+        }
+        // list는 발행 순서라 id 순서와 다를 수 있다
+        asc.sort(Comparator.comparing(ChatEventPayload::getMessageId));
+        return asc.size() > limit + 1 ? asc.subList(0, limit + 1) : asc;
+    }
+
+    private static ChatEventPayload toPayload(ChatMessage m) {
+        return ChatEventPayload.builder()
+                .roomId(m.getRoomId())
+                .messageId(m.getId())
+                .senderUsername(m.getSenderUsername())
+                .content(m.getContent())
+                .createdAt(m.getCreatedAt())
+                .build();
+    }
+
+    private static ChatCatchUpPage page(List<ChatEventPayload> messages, boolean hasMore, String source) {
+        return ChatCatchUpPage.builder()
+                .messages(messages)
+                .hasMore(hasMore)
+                .nextAfterId(hasMore ? messages.get(messages.size() - 1).getMessageId() : null)
+                .source(source)
+                .build();
+    }
+}
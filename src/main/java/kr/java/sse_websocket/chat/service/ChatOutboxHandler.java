@@ -0,0 +1,64 @@
+package kr.java.sse_websocket.chat.service;
+
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.EncodedChatEvent;
+import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import kr.java.sse_websocket.outbox.service.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 채팅 메시지 outbox 전달(커밋 이후).
+ *
+ * 1) Redis recent cache 갱신
+ * 2) Redis Pub/Sub publish(모든 서버에서 subscriber가 받아서 WebSocket 브로드캐스트)
+ *
+ * 1), 2)는 RedisChatPublisher의 Lua 스크립트로 1왕복에 처리하고, outbox 배치는 pipeline으로 묶는다.
+ * outbox payload는 ChatEventEncoder가 만든 bytes 그대로(binary는 base64)이므로 여기서 다시 직렬화하지 않는다.
+ * 같은 메시지가 다시 전달돼도 스크립트가 최근 전달 기록으로 걸러낸다(그래도 남는 중복은 클라이언트가 messageId로 제거).
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatOutboxHandler implements OutboxHandler {
+
+    static final String CHAT_MESSAGE = "chat.message";
+
+    private final ChatEventEncoder chatEventEncoder;
+    private final RedisChatPublisher redisChatPublisher;
+
+    @Override
+    public Collection<String> eventTypes() {
+        return List.of(CHAT_MESSAGE);
+    }
+
+    @Override
+    public void handle(String eventType, String payload) {
+        deliver(chatEventEncoder.fromOutboxPayload(payload));
+    }
+
+    /**
+     * 부하가 몰려 outbox 배치에 메시지가 여러 개 쌓였으면 pipeline 1왕복으로 보낸다.
+     */
+    @Override
+    public Set<Integer> handleBatch(String eventType, List<String> payloads) {
+        List<EncodedChatEvent> events = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            events.add(chatEventEncoder.fromOutboxPayload(payload));
+        }
+        // 명령별로 실패한 메시지만 outbox 재시도 대상이 된다.
+        return redisChatPublisher.cacheAndPublishAll(events);
+    }
+
+    /**
+     * recent cache 갱신 + publish(1왕복).
+     * - write-behind 모드는 outbox를 거치지 않고 전송 시점에 바로 호출한다.
+     */
+    public void deliver(EncodedChatEvent event) {
+        redisChatPublisher.cacheAndPublish(event);
+    }
+}
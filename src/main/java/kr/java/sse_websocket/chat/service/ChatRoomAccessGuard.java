@@ -0,0 +1,119 @@
+package kr.java.sse_websocket.chat.service;
+
+import kr.java.sse_websocket.chat.domain.ChatRoom;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
+import kr.java.sse_websocket.chat.repository.ChatRoomRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 채팅방 멤버 검증.
+ *
+ * 문제:
+ * - 메시지 전송/히스토리 조회마다 findById(roomId)로 방을 읽어 userA/userB만 비교했다(메시지당 DB 조회 1번).
+ *
+ * 동작:
+ * - 방은 (userA, userB) 쌍이 바뀌지 않으므로 roomId -> 멤버 쌍을 노드 메모리에 든다(최대 cache-size개, LRU).
+ * - 없는 방은 담지 않는다(나중에 생길 수 있는 id).
+ * - 방을 만들거나 조회한 경로(ChatRoomResolver)에서 미리 담아 두므로 첫 전송도 DB를 거치지 않는다.
+ *
+ * 검증 실패는 기존과 같은 IllegalArgumentException("room not found" / "not a member").
+ */
+@Component
+public class ChatRoomAccessGuard {
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final int cacheSize;
+
+    // roomId -> 멤버 쌍(접근 순서). 모든 접근은 this 락 안에서.
+    private final LinkedHashMap<Long, Members> members = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    public ChatRoomAccessGuard(ChatRoomRepository chatRoomRepository,
+                               @Value("${chat.room-access.cache-size:10000}") int cacheSize) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * username이 방 멤버가 아니면 예외.
+     */
+    public void assertMember(Long roomId, String username) {
+        if (!membersOf(roomId).contains(normalize(username))) {
+            denied.incrementAndGet();
+            throw new IllegalArgumentException("not a member");
+        }
+    }
+
+    /**
+     * 이미 읽은 방을 담아 둔다(방 생성/조회 직후).
+     */
+    public void remember(ChatRoomRef room) {
+        if (room.id() != null) {
+            put(room.id(), new Members(room.userA(), room.userB()));
+        }
+    }
+
+    /**
+     * 멤버 캐시 통계(디버그용). hitRatePct = hits / (hits + misses) * 100
+     */
+    public Map<String, Long> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        long size;
+        synchronized (this) {
+            size = members.size();
+        }
+        return Map.of(
+                "hits", h,
+                "misses", m,
+                "hitRatePct", h + m == 0 ? 0 : h * 100 / (h + m),
+                "denied", denied.get(),
+                "rooms", size
+        );
+    }
+
+    private Members membersOf(Long roomId) {
+        Members cached;
+        synchronized (this) {
+            cached = members.get(roomId);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        ChatRoom room = chatRoomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalArgumentException("room not found"));
+        Members loaded = new Members(room.getUserA(), room.getUserB());
+        put(roomId, loaded);
+        return loaded;
+    }
+
+    private synchronized void put(Long roomId, Members value) {
+        if (cacheSize <= 0) {
+            return;
+        }
+        members.put(roomId, value);
+        if (members.size() > cacheSize) {
+            members.remove(members.keySet().iterator().next());
+        }
+    }
+
+    private record Members(String userA, String userB) {
+
+        boolean contains(String username) {
+            return userA.equals(username) || userB.equals(username);
+        }
+    }
+}
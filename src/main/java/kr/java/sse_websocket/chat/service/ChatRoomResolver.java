@@ -0,0 +1,141 @@
+package kr.java.sse_websocket.chat.service;
+
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
+import kr.java.sse_websocket.chat.repository.ChatRoomJdbcRepository;
+import kr.java.sse_websocket.chat.repository.ChatRoomRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (userA, userB) 쌍 → 채팅방 조회/생성.
+ *
+ * 문제:
+ * - 방을 열 때마다 findByUserAAndUserB 조회, 없으면 save.
+ *   두 사용자가 동시에 서로의 채팅을 열면 둘 다 "없음"을 보고 save → 한쪽이 uk_chat_rooms_pair 위반으로 실패했다.
+ *
+ * 동작:
+ * 1) 쌍 캐시(노드 메모리, 최대 pair-cache-size개 LRU) hit면 DB를 거치지 않는다. 방은 삭제/변경되지 않으므로 TTL이 없다.
+ * 2) miss면 같은 노드의 같은 쌍 요청은 1번으로 합친다(single-flight).
+ * 3) 조회 → 없으면 insert(중복이면 무시) → 다시 조회. 노드 간 경쟁도 DB 유니크 제약이 정리한다(실패하는 요청 없음).
+ *
+ * 찾은 방은 멤버 검증 캐시(ChatRoomAccessGuard)에도 담는다(트랜잭션 밖, 커밋된 행만).
+ * 캐시에는 엔티티가 아니라 불변 값(ChatRoomRef)을 담는다(여러 요청/스레드가 공유해도 안전).
+ */
+@Component
+public class ChatRoomResolver {
+
+    private final ChatRoomRepository chatRoomRepository;
+    private final ChatRoomJdbcRepository chatRoomJdbcRepository;
+    private final ChatRoomAccessGuard chatRoomAccessGuard;
+    private final int cacheSize;
+
+    // "userA\nuserB" -> 방(접근 순서). 모든 접근은 this 락 안에서.
+    private final LinkedHashMap<String, ChatRoomRef> rooms = new LinkedHashMap<>(16, 0.75f, true);
+    // 쌍 -> 이 노드에서 진행 중인 조회/생성
+    private final Map<String, CompletableFuture<ChatRoomRef>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+
+    public ChatRoomResolver(ChatRoomRepository chatRoomRepository,
+                            ChatRoomJdbcRepository chatRoomJdbcRepository,
+                            ChatRoomAccessGuard chatRoomAccessGuard,
+                            @Value("${chat.room-access.pair-cache-size:10000}") int cacheSize) {
+        this.chatRoomRepository = chatRoomRepository;
+        this.chatRoomJdbcRepository = chatRoomJdbcRepository;
+        this.chatRoomAccessGuard = chatRoomAccessGuard;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @param userA 정규화 + 정렬된 작은 쪽
+     * @param userB 정규화 + 정렬된 큰 쪽
+     */
+    public ChatRoomRef resolve(String userA, String userB) {
+        String key = userA + "\n" + userB;
+
+        ChatRoomRef cached;
+        synchronized (this) {
+            cached = rooms.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<ChatRoomRef> mine = new CompletableFuture<>();
+        CompletableFuture<ChatRoomRef> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            ChatRoomRef room = findOrInsert(userA, userB);
+            put(key, room);
+            chatRoomAccessGuard.remember(room);
+            mine.complete(room);
+            return room;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 쌍 캐시 통계(디버그용). hitRatePct = hits / (hits + misses) * 100
+     */
+    public Map<String, Long> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        long size;
+        synchronized (this) {
+            size = rooms.size();
+        }
+        return Map.of(
+                "hits", h,
+                "misses", m,
+                "hitRatePct", h + m == 0 ? 0 : h * 100 / (h + m),
+                "collapsed", collapsed.get(),
+                "created", created.get(),
+                "pairs", size
+        );
+    }
+
+    private ChatRoomRef findOrInsert(String userA, String userB) {
+        // 대부분은 이미 있는 방이므로 조회 먼저(insert 시도로 auto_increment를 소모하지 않도록)
+        return chatRoomRepository.findByUserAAndUserB(userA, userB).map(ChatRoomRef::of).orElseGet(() -> {
+            if (chatRoomJdbcRepository.insertIfAbsent(userA, userB) > 0) {
+                created.incrementAndGet();
+            }
+            return chatRoomRepository.findByUserAAndUserB(userA, userB)
+                    .map(ChatRoomRef::of)
+                    .orElseThrow(() -> new IllegalStateException("chat room not found after insert: " + userA + "/" + userB));
+        });
+    }
+
+    private synchronized void put(String key, ChatRoomRef room) {
+        if (cacheSize <= 0) {
+            return;
+        }
+        rooms.put(key, room);
+        if (rooms.size() > cacheSize) {
+            rooms.remove(rooms.keySet().iterator().next());
+        }
+    }
+}
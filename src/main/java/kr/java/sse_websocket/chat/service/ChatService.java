@@ -1,20 +1,24 @@
 package kr.java.sse_websocket.chat.service;
 
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
 import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.EncodedChatEvent;
 import kr.java.sse_websocket.chat.domain.ChatMessage;
-import kr.java.sse_websocket.chat.domain.ChatRoom;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
 import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
-import kr.java.sse_websocket.chat.repository.ChatRoomRepository;
-import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
-import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import kr.java.sse_websocket.outbox.service.OutboxDispatcher;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 
@@ -25,65 +29,107 @@ import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
  * 1) 메시지 DB 저장(정합성)
  * 2) Redis recent cache 갱신(초기 로딩 성능)
  * 3) Redis Pub/Sub publish(Scale-out 실시간 전파)
+ *
+ * 저장 모드(chat.persistence.mode):
+ * - sync(기본): 메시지마다 트랜잭션으로 저장하고, 2)/3)은 outbox에 기록해 커밋 이후 ChatOutboxHandler가 수행한다.
+ * - write-behind: 메모리 큐에 넣고 2)/3)을 바로 수행(임시 순번 provisionalId), 저장은 ChatWriteBehindQueue가 묶어서 한다.
+ *   → 전송 지연에서 DB 왕복이 빠지는 대신, 강제 종료 시 flush 전 메시지가 유실될 수 있다(ChatWriteBehindQueue 참고).
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChatService {
 
-    private final ChatRoomRepository chatRoomRepository;
+    private static final String PROVISIONAL_PREFIX = UUID.randomUUID().toString().substring(0, 8) + "-";
+
+    // chat_messages.content 길이(ChatMessage)
+    public static final int MAX_CONTENT_LENGTH = 4000;
+
+    private final ChatRoomResolver chatRoomResolver;
     private final ChatMessageRepository chatMessageRepository;
 
-    private final StringRedisTemplate stringRedisTemplate;
-    private final RedisChatPublisher redisChatPublisher;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ChatOutboxHandler chatOutboxHandler;
+    private final ChatEventEncoder chatEventEncoder;
+    private final ChatWriteBehindQueue chatWriteBehindQueue;
+    private final TransactionTemplate transactionTemplate;
 
-    @Value("${chat.redis.recent-cache-size:100}")
-    private int recentCacheSize;
+    private final AtomicLong provisionalSeq = new AtomicLong();
 
-    @Transactional
-    public ChatRoom getOrCreateRoom(String username1, String username2) {
+    @Value("${chat.persistence.mode:sync}")
+    private String persistenceMode;
+
+    /**
+     * 두 사용자의 1:1 방(없으면 생성). 순서와 무관하게 같은 방을 돌려준다.
+     * - 쌍 캐시 + insert-or-get(ChatRoomResolver): 반복 조회는 DB를 거치지 않고, 동시 생성도 실패하지 않는다.
+     */
+    public ChatRoomRef getOrCreateRoom(String username1, String username2) {
         String u1 = normalize(username1);
         String u2 = normalize(username2);
 
         String userA = (u1.compareTo(u2) <= 0) ? u1 : u2;
         String userB = (u1.compareTo(u2) <= 0) ? u2 : u1;
 
-        return chatRoomRepository.findByUserAAndUserB(userA, userB)
-                .orElseGet(() -> chatRoomRepository.save(ChatRoom.builder()
-                        .userA(userA)
-                        .userB(userB)
-                        .build()));
+        return chatRoomResolver.resolve(userA, userB);
     }
 
     /**
-     * 메시지 전송(저장 + 캐시 + publish)
+     * 메시지 전송.
+     * - sync: 저장 + outbox 기록(캐시/publish는 커밋 이후), 반환 메시지는 id가 있다.
+     * - write-behind: 큐 적재 + 즉시 전파, 반환 메시지는 아직 id가 없다.
+     * - content는 비어 있지 않고 MAX_CONTENT_LENGTH자 이하여야 한다.
+     *   write-behind는 저장 전에 전파하므로, 저장에서 거절될 메시지는 큐에 넣기 전에 걸러야 한다.
      */
-    @Transactional
     public ChatMessage sendMessage(Long roomId, String senderUsername, String content) {
         String sender = normalize(senderUsername);
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("content must not be blank");
+        }
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("content is too long: " + content.length());
+        }
 
-        // 1) DB 저장
-        ChatMessage saved = chatMessageRepository.save(ChatMessage.builder()
+        ChatMessage message = ChatMessage.builder()
                 .roomId(roomId)
                 .senderUsername(sender)
                 .content(content)
-                .build());
-
-        // 2) Redis recent cache 저장(문자열로 간단히 캐싱)
-        //    - MVP에서는 JSON 직렬화를 간단히 하기 위해 payload JSON을 list에 넣는 편이 낫다.
-        ChatEventPayload payload = ChatEventPayload.builder()
-                .roomId(roomId)
-                .messageId(saved.getId())
-                .senderUsername(saved.getSenderUsername())
-                .content(saved.getContent())
-                .createdAt(saved.getCreatedAt())
+                .createdAt(Instant.now())
                 .build();
 
-        cacheRecent(roomId, payload);
+        if ("write-behind".equals(persistenceMode) && chatWriteBehindQueue.offer(message)) {
+            ChatEventPayload payload = toPayload(message);
+            payload.setProvisionalId(PROVISIONAL_PREFIX + provisionalSeq.incrementAndGet());
+            try {
+                chatOutboxHandler.deliver(chatEventEncoder.encode(payload));
+            } catch (Exception e) {
+                // write-behind는 outbox 재시도가 없다. 저장은 진행되므로 히스토리 조회로 복구된다.
+                log.warn("[CHAT] write-behind fan-out failed: room={}, cause={}", roomId, e.getMessage());
+            }
+            return message;
+        }
 
-        // 3) Redis publish(모든 서버에서 subscriber가 받아서 WebSocket 브로드캐스트)
-        redisChatPublisher.publishRoomMessage(payload);
+        // 큐가 가득 찬 경우에도 여기로 온다(유실 대신 동기 저장으로 역압)
+        return transactionTemplate.execute(status -> {
+            // 1) DB 저장
+            ChatMessage saved = chatMessageRepository.save(message);
+
+            // 2) recent cache + Redis publish는 커밋 이후 outbox로 전달(ChatOutboxHandler)
+            //    - 트랜잭션 안에서 Redis 왕복을 하지 않고, 롤백된 메시지는 전파되지 않는다.
+            //    - 인코딩은 여기서 1번만 하고, 이후 cache/publish/STOMP는 같은 bytes를 쓴다.
+            EncodedChatEvent encoded = chatEventEncoder.encode(toPayload(saved));
+            outboxDispatcher.recordEncoded(ChatOutboxHandler.CHAT_MESSAGE, chatEventEncoder.toOutboxPayload(encoded));
+            return saved;
+        });
+    }
 
-        return saved;
+    private ChatEventPayload toPayload(ChatMessage m) {
+        return ChatEventPayload.builder()
+                .roomId(m.getRoomId())
+                .messageId(m.getId())
+                .senderUsername(m.getSenderUsername())
+                .content(m.getContent())
+                .createdAt(m.getCreatedAt())
+                .build();
     }
 
     /**
@@ -95,38 +141,4 @@ public class ChatService {
                 roomId, PageRequest.of(0, Math.min(size, 200))
         );
     }
-
-    private void cacheRecent(Long roomId, ChatEventPayload payload) {
-        try {
-            // payload를 Redis list에 넣기 위해 publish와 동일한 JSON 형태를 권장
-            // (여기서는 publisher가 ObjectMapper를 갖고 있으니, 캐시도 publisher를 통해 json을 만드는 방식이 더 깔끔하지만
-            //  MVP에서는 단순화를 위해 convertAndSend와 별개로 저장은 StringRedisTemplate로만 처리)
-            String key = ChatRedisKeys.recentListKey(roomId);
-
-            // StringRedisTemplate는 "값은 문자열" 전제이므로, publisher 쪽 JSON 생성과 동일하게 만들려면
-            // ObjectMapper를 여기서도 쓰는 게 베스트지만, MVP에서는 publish에서 만든 JSON 재사용이 어렵다.
-            // 따라서 cache는 "messageId|sender|content" 형태로도 가능하나, 아래는 payload.toString()을 피하기 위해 최소 JSON을 직접 구성한다.
-            String json = "{\"roomId\":" + payload.getRoomId()
-                    + ",\"messageId\":" + payload.getMessageId()
-                    + ",\"senderUsername\":\"" + escapeJson(payload.getSenderUsername())
-                    + "\",\"content\":\"" + escapeJson(payload.getContent())
-                    + "\",\"createdAt\":\"" + payload.getCreatedAt() + "\"}";
-
-            // 최신이 앞: LPUSH
-            stringRedisTemplate.opsForList().leftPush(key, json);
-            // 최근 N개 유지: LTRIM
-            stringRedisTemplate.opsForList().trim(key, 0, recentCacheSize - 1);
-        } catch (Exception e) {
-            // 캐시는 실패해도 DB 정합성은 유지되므로, MVP에서는 로그만
-            System.err.println("[ChatService] cacheRecent failed: " + e.getMessage());
-        }
-    }
-
-    private String escapeJson(String s) {
-        if (s == null) return "";
-        return s.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r");
-    }
 }
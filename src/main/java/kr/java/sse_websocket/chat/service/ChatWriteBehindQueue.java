@@ -0,0 +1,228 @@
+package kr.java.sse_websocket.chat.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import kr.java.sse_websocket.chat.repository.ChatMessageJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 메시지 write-behind(group commit) 큐.
+ *
+ * chat.persistence.mode=write-behind 일 때만 사용된다.
+ * - 전송 스레드는 메모리 큐에 넣고 바로 반환(DB 왕복 없음)
+ * - flush 스레드 1개가 첫 메시지 이후 flush-interval-ms 동안(또는 batch-size개까지) 모아서 multi-row insert 1번
+ *
+ * 유실 범위(bounded loss):
+ * - 정상 종료: @PreDestroy에서 큐를 끝까지 flush 하므로 유실 없음
+ * - 프로세스 강제 종료: 아직 flush 안 된 메시지(최대 queue-capacity, 보통 flush-interval-ms 분량)가 유실된다
+ * - DB 장애: max-retries 재시도 후에도 실패한 배치는 한 행씩 다시 저장하고, 그래도 실패한 행만 버리고 dropped로 집계한다
+ *   (제약 위반 행 1개 때문에 같은 배치의 정상 메시지까지 버리지 않는다)
+ * - 큐가 가득 차면 offer()가 false → 호출자가 동기 저장으로 처리한다(유실 대신 역압)
+ *
+ * 저장한 배치의 방들은 recent list 버전을 올린다(RedisChatPublisher.bumpRecentVersions).
+ * - 전송 시점에는 아직 DB에 없으므로, 그 사이 DB를 읽은 read-through 채우기가 메시지 빠진 list를 쓰지 못하게 한다.
+ */
+@Slf4j
+@Component
+public class ChatWriteBehindQueue {
+
+    private final ChatMessageJdbcRepository chatMessageJdbcRepository;
+    private final RedisChatPublisher redisChatPublisher;
+
+    private final BlockingQueue<ChatMessage> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+    private final boolean enabled;
+
+    private final ExecutorService flusher =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("chat-write-behind-"));
+    private volatile boolean running = true;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong overflow = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rowFallbacks = new AtomicLong();
+
+    public ChatWriteBehindQueue(ChatMessageJdbcRepository chatMessageJdbcRepository,
+                                RedisChatPublisher redisChatPublisher,
+                                @Value("${chat.persistence.write-behind.queue-capacity:10000}") int queueCapacity,
+                                @Value("${chat.persistence.write-behind.batch-size:200}") int batchSize,
+                                @Value("${chat.persistence.write-behind.flush-interval-ms:20}") long flushIntervalMillis,
+                                @Value("${chat.persistence.write-behind.max-retries:3}") int maxRetries,
+                                @Value("${chat.persistence.mode:sync}") String persistenceMode) {
+        this.chatMessageJdbcRepository = chatMessageJdbcRepository;
+        this.redisChatPublisher = redisChatPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxRetries = maxRetries;
+        this.enabled = "write-behind".equals(persistenceMode);
+    }
+
+    @PostConstruct
+    void start() {
+        // sync 모드에서는 큐를 쓰지 않으므로 flush 스레드도 띄우지 않는다.
+        if (enabled) {
+            flusher.execute(this::flushLoop);
+        }
+    }
+
+    /**
+     * 남은 메시지를 모두 flush 한 뒤 종료한다(정상 종료 시 유실 없음).
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.shutdown();
+        if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("[CHAT] write-behind flush did not finish, pending={}", queue.size());
+            flusher.shutdownNow();
+        }
+    }
+
+    /**
+     * 저장 대기열에 넣는다.
+     * @return 큐가 가득 찼으면 false(호출자가 동기 저장)
+     */
+    public boolean offer(ChatMessage message) {
+        if (queue.offer(message)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        overflow.incrementAndGet();
+        return false;
+    }
+
+    public Map<String, Long> stats() {
+        return Map.of(
+                "enqueued", enqueued.get(),
+                "flushed", flushed.get(),
+                "batches", batches.get(),
+                "overflow", overflow.get(),
+                "dropped", dropped.get(),
+                "rowFallbacks", rowFallbacks.get(),
+                "pending", (long) queue.size()
+        );
+    }
+
+    private void flushLoop() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                ChatMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // group commit: 첫 메시지 이후 flush-interval 동안 더 모은다(이미 쌓여 있으면 바로 가져감)
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    ChatMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 강제 종료: 손에 든 배치와 큐에 남은 것까지만 한 번 더 시도
+            Thread.currentThread().interrupt();
+            queue.drainTo(batch);
+            write(batch);
+        }
+    }
+
+    private void write(List<ChatMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                chatMessageJdbcRepository.insertAll(batch);
+                flushed.addAndGet(batch.size());
+                batches.incrementAndGet();
+                bumpRecentVersions(batch);
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+                    log.warn("[CHAT] write-behind batch failed, retrying row by row: size={}, cause={}",
+                            batch.size(), e.getMessage());
+                    writeRows(batch);
+                    return;
+                }
+                log.warn("[CHAT] write-behind batch failed (attempt {}): {}", attempt + 1, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(50L * (attempt + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 배치 저장이 끝내 실패하면 한 행씩 저장한다. 실패한 행만 버린다.
+     */
+    private void writeRows(List<ChatMessage> batch) {
+        rowFallbacks.incrementAndGet();
+        List<ChatMessage> written = new ArrayList<>(batch.size());
+        for (ChatMessage m : batch) {
+            try {
+                chatMessageJdbcRepository.insertAll(List.of(m));
+                written.add(m);
+            } catch (Exception e) {
+                dropped.incrementAndGet();
+                log.error("[CHAT] write-behind message dropped: room={}, sender={}, cause={}",
+                        m.getRoomId(), m.getSenderUsername(), e.getMessage());
+            }
+        }
+        if (!written.isEmpty()) {
+            flushed.addAndGet(written.size());
+            bumpRecentVersions(written);
+        }
+    }
+
+    private void bumpRecentVersions(List<ChatMessage> batch) {
+        Set<Long> roomIds = new LinkedHashSet<>();
+        for (ChatMessage m : batch) {
+            roomIds.add(m.getRoomId());
+        }
+        try {
+            redisChatPublisher.bumpRecentVersions(roomIds);
+        } catch (Exception e) {
+            // 저장은 끝났다. 버전을 못 올리면 이 구간의 채우기가 메시지 빠진 list를 남길 수 있다.
+            log.warn("[CHAT] write-behind version bump failed: rooms={}, cause={}", roomIds.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package kr.java.sse_websocket.config;
+
+import kr.java.sse_websocket.notifications.cluster.SseClusterSubscriber;
+import kr.java.sse_websocket.notifications.cluster.SsePresenceDirectory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 알림 클러스터 전달용 Redis 구독 컨테이너.
+ *
+ * - sse:node:{nodeId}: 이 노드가 소유한 사용자에게 가는 타겟 프레임
+ * - sse:broadcast: 전체 발송 프레임
+ *
+ * 조건:
+ * - notifications.cluster.enabled=true일 때만 활성화(테스트 환경에서 Redis 의존 제거)
+ */
+@Configuration
+@RequiredArgsConstructor
+public class NotificationClusterConfig {
+
+    private final RedisConnectionFactory redisConnectionFactory;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "notifications.cluster", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer notificationListenerContainer(SseClusterSubscriber subscriber,
+                                                                       SsePresenceDirectory presenceDirectory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+
+        container.addMessageListener(subscriber, new ChannelTopic(SsePresenceDirectory.nodeChannel(presenceDirectory.nodeId())));
+        container.addMessageListener(subscriber, new ChannelTopic(SsePresenceDirectory.broadcastChannel()));
+        return container;
+    }
+}
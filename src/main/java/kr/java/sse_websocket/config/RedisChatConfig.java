@@ -3,9 +3,11 @@ package kr.java.sse_websocket.config;
 import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
 import kr.java.sse_websocket.chat.redis.RedisChatSubscriber;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
@@ -15,6 +17,16 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
  *
  * 조건:
  * - chat.redis.enabled=true일 때만 활성화(테스트 환경에서 Redis 의존 제거)
+ *
+ * 구독 방식:
+ * - chat.redis.dynamic-subscriptions=true(기본): 시작 시 구독 없음. 로컬 STOMP 구독자가 있는 방 채널만
+ *   ChatRoomSubscriptionTracker가 붙였다 뗀다.
+ * - false: chat:room:* 패턴 1개로 모든 방을 받는다(기존 방식).
+ *
+ * 수신 스레드:
+ * - listener는 Redis 연결의 수신 스레드에서 바로(SyncTaskExecutor) 호출한다.
+ *   기본값(SimpleAsyncTaskExecutor)은 메시지마다 새 스레드라 같은 방의 도착 순서가 레인에 들어가기 전에 섞인다.
+ * - listener는 ChatDeliveryLanes에 넣기만 하므로 수신 스레드를 오래 잡지 않는다.
  */
 @Configuration
 @RequiredArgsConstructor
@@ -22,14 +34,24 @@ public class RedisChatConfig {
 
     private final RedisConnectionFactory redisConnectionFactory;
 
+    @Value("${chat.redis.dynamic-subscriptions:true}")
+    private boolean dynamicSubscriptions;
+
+    @Value("${chat.redis.transport:pubsub}")
+    private String transport;
+
     @Bean
     @ConditionalOnProperty(prefix = "chat.redis", name = "enabled", havingValue = "true", matchIfMissing = true)
     public RedisMessageListenerContainer redisMessageListenerContainer(RedisChatSubscriber subscriber) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(redisConnectionFactory);
+        container.setTaskExecutor(new SyncTaskExecutor());
 
-        // chat:room:* 패턴 구독
-        container.addMessageListener(subscriber, new PatternTopic(ChatRedisKeys.channelPatternAllRooms()));
+        // stream transport는 Pub/Sub을 쓰지 않는다(ChatStreamTransport)
+        if (!dynamicSubscriptions && !"stream".equals(transport)) {
+            // chat:room:* 패턴 구독
+            container.addMessageListener(subscriber, new PatternTopic(ChatRedisKeys.channelPatternAllRooms()));
+        }
         return container;
     }
 }
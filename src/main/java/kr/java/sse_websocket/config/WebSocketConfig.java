@@ -1,7 +1,12 @@
 package kr.java.sse_websocket.config;
 
 
+import kr.java.sse_websocket.ws.ExactDestinationSubscriptionRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.security.messaging.context.SecurityContextChannelInterceptor;
@@ -19,6 +24,9 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  *
  * 본 단계에서는 단순 브로커(enableSimpleBroker)를 사용한다.
  * (추후 Redis relay 등으로 확장 가능)
+ *
+ * 단순 브로커의 구독 레지스트리는 목적지 완전 일치 전용(ExactDestinationSubscriptionRegistry)으로 바꾼다.
+ * - websocket.broker.exact-registry=false면 Spring 기본 레지스트리(패턴 매칭)를 그대로 쓴다.
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -46,6 +54,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     }
 
 
+    /**
+     * SimpleBrokerMessageHandler가 시작되기 전에 구독 레지스트리를 교체한다.
+     * - SimpleBrokerRegistration에는 레지스트리 설정이 없어서 빈 후처리로 넣는다.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "websocket.broker", name = "exact-registry", havingValue = "true", matchIfMissing = true)
+    static BeanPostProcessor exactDestinationRegistryInstaller() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler handler) {
+                    handler.setSubscriptionRegistry(new ExactDestinationSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
     /**
      * (핵심) STOMP 인바운드 채널에 SecurityContextChannelInterceptor 추가.
      * - STOMP 메시지 처리 쓰레드에서 SecurityContextHolder를 채움
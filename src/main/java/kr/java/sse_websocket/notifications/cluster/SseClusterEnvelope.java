@@ -0,0 +1,25 @@
+package kr.java.sse_websocket.notifications.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 노드 간 SSE 프레임 전달용 envelope(Redis Pub/Sub).
+ *
+ * - username이 null이면 전체 발송, 아니면 해당 사용자에게만
+ * - frame: 발송 노드에서 이미 인코딩한 SSE 프레임 원문(수신 노드는 재직렬화하지 않는다)
+ * - originNodeId: 발송 노드(자기 자신이 보낸 전체 발송은 무시하기 위함)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SseClusterEnvelope {
+    private String originNodeId;
+    private String username;
+    private Long id;
+    private String eventName;
+    private String frame;
+}
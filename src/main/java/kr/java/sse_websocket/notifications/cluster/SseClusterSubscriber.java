@@ -0,0 +1,44 @@
+package kr.java.sse_websocket.notifications.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.service.BroadcastNotificationCache;
+import kr.java.sse_websocket.notifications.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 노드 채널(sse:node:{나의 nodeId}) + 전체 채널(sse:broadcast) 구독자.
+ *
+ * - 다른 노드가 보낸 프레임을 이 노드의 로컬 연결에 그대로 적재한다.
+ * - 전체 발송 알림을 받으면 이 노드 접속자들의 unreadCount도 갱신하고, 인박스 공유 캐시를 무효화한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SseClusterSubscriber implements MessageListener {
+
+    private final ObjectMapper objectMapper;
+    private final SseDeliveryRouter sseDeliveryRouter;
+    private final NotificationService notificationService;
+    private final BroadcastNotificationCache broadcastNotificationCache;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SseClusterEnvelope envelope = objectMapper.readValue(message.getBody(), SseClusterEnvelope.class);
+            sseDeliveryRouter.onClusterEnvelope(envelope);
+
+            boolean remoteBroadcast = envelope.getUsername() == null && envelope.getId() != null;
+            if (remoteBroadcast) {
+                broadcastNotificationCache.invalidate();
+                notificationService.pushUnreadCountToActiveUsers();
+            }
+        } catch (Exception e) {
+            // listener container 스레드로 예외를 올리지 않는다.
+            log.warn("[SSE] cluster message handling failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package kr.java.sse_websocket.notifications.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.notifications.utils.SseReplayBuffer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 클러스터 단위 SSE 전달 경로.
+ *
+ * 타겟 발송:
+ * 1) 이 노드에 연결이 있으면 로컬 큐에 적재
+ * 2) 없으면 presence 디렉터리에서 소유 노드를 찾아 그 노드 채널(sse:node:{nodeId})로만 publish
+ * 3) 어느 노드에도 없으면 delivered=false (DB에 저장돼 있으므로 목록/재연결로 복구)
+ *
+ * 전체 발송:
+ * - 로컬 연결에 적재 + sse:broadcast 채널로 다른 노드에 전달
+ *
+ * notifications.cluster.enabled=false면 로컬 Registry만 사용한다(기존 동작).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SseDeliveryRouter {
+
+    private final SseEmitterRegistry sseEmitterRegistry;
+    private final SseReplayBuffer sseReplayBuffer;
+    private final SsePresenceDirectory presenceDirectory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 전체 발송.
+     * @param id 재연결 복구 대상 이벤트면 notificationId, 아니면 null
+     */
+    public void sendToAll(Long id, SseFrame frame) {
+        deliverLocalToAll(id, frame);
+
+        if (presenceDirectory.isEnabled()) {
+            publish(SsePresenceDirectory.broadcastChannel(), envelope(null, id, frame));
+        }
+    }
+
+    /**
+     * 타겟 발송.
+     * @return 연결을 가진 노드(로컬 또는 원격)에 전달됐는지
+     */
+    public boolean sendToUser(String usernameRaw, Long id, SseFrame frame) {
+        String username = normalize(usernameRaw);
+
+        if (sseEmitterRegistry.isConnected(username)) {
+            return deliverLocal(username, id, frame);
+        }
+
+        Optional<String> owner = presenceDirectory.ownerOf(username);
+        if (owner.isPresent() && !owner.get().equals(presenceDirectory.nodeId())) {
+            long receivers = publish(SsePresenceDirectory.nodeChannel(owner.get()), envelope(username, id, frame));
+            if (receivers > 0) {
+                return true;
+            }
+        }
+
+        // 어느 노드에도 연결 없음: 재연결 복구를 위해 기록만 남긴다.
+        if (id != null) {
+            sseReplayBuffer.record(id, username, frame);
+            presenceDirectory.markMissed(username, id);
+        }
+        return false;
+    }
+
+    /**
+     * 사용자 연결이 이 노드 또는 다른 노드(presence)에 있는지.
+     */
+    public boolean isOnline(String usernameRaw) {
+        String username = normalize(usernameRaw);
+        return sseEmitterRegistry.isConnected(username) || presenceDirectory.ownerOf(username).isPresent();
+    }
+
+    public boolean sendToUser(String username, String eventName, Object data) {
+        return sendToUser(username, null, sseEmitterRegistry.encode(eventName, data));
+    }
+
+    /**
+     * 다른 노드에서 온 envelope 처리(SseClusterSubscriber).
+     */
+    public void onClusterEnvelope(SseClusterEnvelope envelope) {
+        if (presenceDirectory.nodeId().equals(envelope.getOriginNodeId())) {
+            return; // 내가 보낸 전체 발송(이미 로컬 전달함)
+        }
+
+        SseFrame frame = SseFrame.fromText(envelope.getEventName(), envelope.getFrame());
+        if (envelope.getUsername() == null) {
+            deliverLocalToAll(envelope.getId(), frame);
+            return;
+        }
+
+        boolean delivered = deliverLocal(envelope.getUsername(), envelope.getId(), frame);
+        if (!delivered && envelope.getId() != null) {
+            // presence가 갱신되기 전에 연결이 끊긴 경우
+            presenceDirectory.markMissed(envelope.getUsername(), envelope.getId());
+        }
+    }
+
+    private void deliverLocalToAll(Long id, SseFrame frame) {
+        if (id != null) {
+            sseReplayBuffer.record(id, null, frame);
+        }
+        sseEmitterRegistry.sendToAll(frame);
+    }
+
+    private boolean deliverLocal(String username, Long id, SseFrame frame) {
+        if (id != null) {
+            sseReplayBuffer.record(id, username, frame);
+        }
+        return sseEmitterRegistry.sendTo(username, frame);
+    }
+
+    private SseClusterEnvelope envelope(String username, Long id, SseFrame frame) {
+        return SseClusterEnvelope.builder()
+                .originNodeId(presenceDirectory.nodeId())
+                .username(username)
+                .id(id)
+                .eventName(frame.eventName())
+                .frame(frame.text())
+                .build();
+    }
+
+    /**
+     * @return 메시지를 받은 구독자 수(0이면 대상 노드가 없거나 죽은 상태)
+     */
+    private long publish(String channel, SseClusterEnvelope envelope) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(envelope);
+            byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+            Long receivers = stringRedisTemplate.execute(
+                    (RedisCallback<Long>) connection -> connection.publish(channelBytes, body));
+            return receivers == null ? 0 : receivers;
+        } catch (Exception e) {
+            log.warn("[SSE] cluster publish failed channel={}, msg={}", channel, e.getMessage());
+            return 0;
+        }
+    }
+}
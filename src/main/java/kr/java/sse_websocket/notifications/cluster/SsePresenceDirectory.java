@@ -0,0 +1,191 @@
+package kr.java.sse_websocket.notifications.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE presence 디렉터리(Redis).
+ *
+ * - sse:presence:{username} = 연결을 가진 노드 id (TTL)
+ * - 타겟 발송은 이 값을 보고 "해당 노드 채널"로만 보낸다(전체 노드 브로드캐스트 X).
+ *
+ * 동작:
+ * - 연결 등록/해제 시 Redis 반영은 전용 스레드에서 순서대로 처리한다(발송/콜백 스레드 블로킹 방지).
+ * - TTL은 주기적으로 갱신한다(노드가 죽으면 TTL 만료로 자연 정리).
+ * - 해제는 "내 노드가 소유자일 때만" 삭제한다(다른 노드로 재연결한 경우 덮어쓴 값을 지우지 않도록).
+ *
+ * notifications.cluster.enabled=false면 모든 연산이 no-op(단일 노드/테스트 환경).
+ */
+@Slf4j
+@Component
+public class SsePresenceDirectory {
+
+    private static final DefaultRedisScript<Long> DELETE_IF_OWNER = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Duration ttl;
+
+    // 이 노드에 연결된 사용자(TTL 갱신 대상)
+    private final Set<String> localUsers = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService worker =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-presence-"));
+
+    public SsePresenceDirectory(StringRedisTemplate stringRedisTemplate,
+                                @Value("${notifications.cluster.enabled:true}") boolean enabled,
+                                @Value("${notifications.cluster.node-id:local}") String nodeId,
+                                @Value("${notifications.cluster.presence-ttl-seconds:90}") long ttlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        long refreshSeconds = Math.max(1, ttl.toSeconds() / 3);
+        worker.scheduleAtFixedRate(this::refreshAll, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        log.info("[SSE] cluster presence enabled nodeId={}", nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public static String presenceKey(String username) {
+        return "sse:presence:" + username;
+    }
+
+    public static String missedKey(String username) {
+        return "sse:missed:" + username;
+    }
+
+    public static String nodeChannel(String nodeId) {
+        return "sse:node:" + nodeId;
+    }
+
+    public static String broadcastChannel() {
+        return "sse:broadcast";
+    }
+
+    /**
+     * 이 노드에 사용자 연결이 생겼음을 기록한다(비동기).
+     */
+    public void register(String username) {
+        if (!enabled) {
+            return;
+        }
+        localUsers.add(username);
+        submit(() -> stringRedisTemplate.opsForValue().set(presenceKey(username), nodeId, ttl));
+    }
+
+    /**
+     * 이 노드의 사용자 연결이 끊겼음을 기록한다(비동기, 소유자일 때만 삭제).
+     */
+    public void unregister(String username) {
+        if (!enabled) {
+            return;
+        }
+        localUsers.remove(username);
+        submit(() -> stringRedisTemplate.execute(DELETE_IF_OWNER, List.of(presenceKey(username)), nodeId));
+    }
+
+    /**
+     * 사용자 연결을 가진 노드 id.
+     */
+    public Optional<String> ownerOf(String username) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(stringRedisTemplate.opsForValue().get(presenceKey(username)));
+    }
+
+    /**
+     * 어느 노드에도 전달되지 못한 타겟 알림 id를 남긴다.
+     * - 재연결한 노드의 링 버퍼에는 이 알림이 없으므로, replay 시 DB 복구가 필요하다는 표시로 쓴다.
+     */
+    public void markMissed(String username, long notificationId) {
+        if (!enabled) {
+            return;
+        }
+        submit(() -> stringRedisTemplate.opsForValue().set(missedKey(username), String.valueOf(notificationId), ttl));
+    }
+
+    /**
+     * markMissed로 남은 가장 최근 id(없으면 empty).
+     */
+    public Optional<Long> lastMissedId(String username) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String value = stringRedisTemplate.opsForValue().get(missedKey(username));
+        return value == null ? Optional.empty() : Optional.of(Long.parseLong(value));
+    }
+
+    /**
+     * 로컬 사용자 presence TTL 일괄 갱신(pipeline 1회 왕복).
+     */
+    private void refreshAll() {
+        if (localUsers.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) (RedisConnection connection) -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (String username : localUsers) {
+                    conn.setEx(presenceKey(username), ttl.toSeconds(), nodeId);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("[SSE] presence refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void submit(Runnable task) {
+        worker.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("[SSE] presence update failed: {}", e.getMessage());
+            }
+        });
+    }
+}
@@ -1,24 +1,19 @@
 package kr.java.sse_websocket.notifications.controller;
 
-import kr.java.sse_websocket.notifications.domain.Notification;
-import kr.java.sse_websocket.notifications.domain.NotificationRead;
-import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.domain.NotificationBulkReadRequest;
+import kr.java.sse_websocket.notifications.domain.NotificationPage;
 import kr.java.sse_websocket.notifications.domain.NotificationView;
-import kr.java.sse_websocket.notifications.repository.NotificationReadRepository;
-import kr.java.sse_websocket.notifications.repository.NotificationRepository;
-import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.service.NotificationInboxService;
+import kr.java.sse_websocket.notifications.service.NotificationReadService;
+import kr.java.sse_websocket.notifications.service.UnreadCounterService;
+import kr.java.sse_websocket.notifications.utils.NotificationCursor;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 
@@ -38,50 +33,54 @@ import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 @RequestMapping("/api/notifications")
 public class NotificationApiController {
 
-    private final NotificationRepository notificationRepository;
-    private final NotificationReadRepository notificationReadRepository;
+    private static final int MAX_BULK_READ = 500;
 
     /**
-     * (추가) unreadCount를 즉시 푸시하기 위해 Registry 주입.
+     * 목록 조회: 전체 발송(공유 캐시) + 사용자 타겟(인덱스 쿼리) 병합.
      */
-    private final SseEmitterRegistry sseEmitterRegistry;
+    private final NotificationInboxService notificationInboxService;
+
+    /**
+     * 읽음 저장 + 안읽음 카운터 감소 + unreadCount push(커밋 이후, 사용자별 합치기).
+     */
+    private final NotificationReadService notificationReadService;
+
+    /**
+     * 안읽음 카운트는 증분 카운터에서 조회한다(anti-join count 대신 PK 조회).
+     */
+    private final UnreadCounterService unreadCounterService;
 
     /**
      * 알림 목록 조회(최근 N개).
      *
      * - 초기 화면 렌더링 또는 새로고침 시 사용
      * - read 여부를 함께 내려준다.
+     * - count 쿼리 없이 최신 N개만 조회한다(더 이전 목록은 /feed 커서로 이어서 조회).
      */
     @GetMapping
     public List<NotificationView> list(Principal principal,
                                        @RequestParam(defaultValue = "50") int size) {
-        String username = normalize(principal.getName());
+        return notificationInboxService.page(principal.getName(), null, size).getItems();
+    }
 
-        // 최신순 N개
-        Page<Notification> page = notificationRepository.findVisibleForUser(
-                username,
-                PageRequest.of(0, Math.min(size, 200), Sort.by(Sort.Direction.DESC, "createdAt"))
-        );
-
-        List<Notification> notifications = page.getContent();
-        List<Long> ids = notifications.stream().map(Notification::getId).toList();
-
-        // 현재 페이지에 대해서만 read 여부를 묶어서 조회(N+1 방지)
-        Set<Long> readIds = ids.isEmpty()
-                ? Set.of()
-                : notificationReadRepository.findReadNotificationIds(username, ids);
-
-        return notifications.stream()
-                .map(n -> NotificationView.builder()
-                        .id(n.getId())
-                        .title(n.getTitle())
-                        .body(n.getBody())
-                        .sender(n.getSender())
-                        .target(n.getTargetType() == NotificationTargetType.ALL ? "ALL" : n.getTargetUsername())
-                        .createdAt(n.getCreatedAt())
-                        .read(readIds.contains(n.getId()))
-                        .build())
-                .collect(Collectors.toList());
+    /**
+     * 커서 기반 목록 조회(무한 스크롤).
+     *
+     * - cursor 없으면 최신 페이지, 있으면 그 이전 페이지
+     * - (createdAt, id) seek 조회라 깊이와 무관하게 page size만큼만 읽는다.
+     * - 응답의 nextCursor를 그대로 다음 요청에 넘긴다(null이면 끝).
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationPage> feed(Principal principal,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        NotificationCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : NotificationCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(notificationInboxService.page(principal.getName(), after, size));
     }
 
     /**
@@ -93,29 +92,46 @@ public class NotificationApiController {
      * - 읽음 처리 성공 후 unreadCount를 SSE로 즉시 push한다.
      *
      * 트랜잭션:
-     * - 읽음 저장 + unreadCount 재계산의 정합성을 위해 트랜잭션으로 묶는다.
+     * - 읽음 저장 + 안읽음 카운터 감소를 NotificationReadService에서 트랜잭션으로 묶는다.
      */
     @PostMapping("/{id}/read")
     public ResponseEntity<Void> read(@PathVariable Long id, Principal principal) {
         String username = normalize(principal.getName());
 
         // 존재하지 않는 알림이면 404
-        if (!notificationRepository.existsById(id)) {
+        if (!notificationReadService.markRead(username, id)) {
             return ResponseEntity.notFound().build();
         }
 
-        // idempotent: 이미 읽은 상태면 저장 생략
-        if (!notificationReadRepository.existsByNotificationIdAndUsername(id, username)) {
-            notificationReadRepository.save(NotificationRead.builder()
-                    .notificationId(id)
-                    .username(username)
-                    .build());
-        }
+        return ResponseEntity.ok().build();
+    }
 
-        // unreadCount 재계산 후 SSE push
-        long unread = notificationRepository.countUnreadForUser(username);
-        sseEmitterRegistry.sendTo(username, "unreadCount", unread);
+    /**
+     * 일괄 읽음 처리(선택한 여러 건).
+     * - 요청 1번 = 쿼리 몇 번 + unreadCount push 1번(건수와 무관)
+     * - 한 번에 최대 MAX_BULK_READ건
+     */
+    @PostMapping("/read")
+    public ResponseEntity<Map<String, Integer>> readMany(@RequestBody NotificationBulkReadRequest request,
+                                                         Principal principal) {
+        List<Long> ids = request.getIds();
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BULK_READ) {
+            return ResponseEntity.badRequest().build();
+        }
+        int read = notificationReadService.markReadMany(principal.getName(), ids);
+        return ResponseEntity.ok(Map.of("read", read));
+    }
 
+    /**
+     * 모두 읽음 처리.
+     * - upTo: 화면에 보이는 가장 최근 알림 id(그 이후 도착한 알림은 안읽음 유지). 없으면 현재 최신까지.
+     */
+    @PostMapping("/read-all")
+    public ResponseEntity<Void> readAll(@RequestParam(required = false) Long upTo, Principal principal) {
+        if (upTo != null && upTo <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        notificationReadService.markReadUpTo(principal.getName(), upTo);
         return ResponseEntity.ok().build();
     }
 
@@ -126,7 +142,7 @@ public class NotificationApiController {
     @GetMapping("/unread-count")
     public Map<String, Long> unreadCount(Principal principal) {
         String username = normalize(principal.getName());
-        long count = notificationRepository.countUnreadForUser(username);
+        long count = unreadCounterService.unreadCount(username);
         return Map.of("count", count);
     }
 }
\ No newline at end of file
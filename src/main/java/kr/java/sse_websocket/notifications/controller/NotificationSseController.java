@@ -1,9 +1,11 @@
 package kr.java.sse_websocket.notifications.controller;
 
 
+import kr.java.sse_websocket.notifications.service.NotificationService;
 import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -20,30 +22,49 @@ import java.security.Principal;
 public class NotificationSseController {
 
     private final SseEmitterRegistry registry;
+    private final NotificationService notificationService;
 
     /**
      * 로그인 사용자 기준으로 SSE 연결을 생성/등록한다.
      *
      * 이벤트:
      * - connected: 연결 직후 확인용 1회 이벤트
+     *
+     * 재연결:
+     * - EventSource는 재연결 시 마지막으로 받은 id를 Last-Event-ID 헤더로 보낸다.
+     * - 헤더가 있으면 그 이후 놓친 알림만 다시 보낸다(NotificationService.replaySince).
      */
     @GetMapping("/sse/notifications")
-    public SseEmitter subscribe(Principal principal) {
+    public SseEmitter subscribe(Principal principal,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         // Principal은 Spring Security가 세션에서 복원해 제공
         String username = principal.getName();
 
         SseEmitter emitter = registry.add(username);
 
         // 연결 확인 이벤트(클라이언트가 정상 연결됐는지 눈으로 확인 가능)
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("connected")
-                    .data("ok"));
-        } catch (Exception e) {
-            // 초기 전송 실패면 연결이 이미 끊긴 경우 -> 제거
-            registry.remove(username);
+        // - 연결 큐를 거쳐 전송되므로 이후 이벤트와 순서가 보장된다.
+        // - 전송 실패 시 연결 정리는 Registry가 처리한다.
+        registry.sendTo(username, "connected", "ok");
+
+        // 재연결이면 놓친 이벤트 복구
+        Long lastId = parseLastEventId(lastEventId);
+        if (lastId != null) {
+            notificationService.replaySince(username, lastId);
         }
 
         return emitter;
     }
+
+    private Long parseLastEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // 형식이 맞지 않는 id는 무시(새 연결처럼 처리)
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -55,7 +55,9 @@ public class NotificationWsController {
         NotificationMessage msg =
                 notificationService.sendToUser(principal.getName(), target, req.getTitle(), req.getBody());
 
-        // delivered는 "현재 SSE 연결이 있어서 즉시 푸시 성공했는지"를 의미
+        // delivered는 "현재 SSE 연결이 있어서 즉시 푸시 대상인지"를 의미
+        // - 실제 push는 커밋 이후 outbox가 하므로, 발송 트랜잭션 밖에서 연결 여부로 판단한다.
+        msg.setDelivered(notificationService.isOnline(target));
         return new AdminSendResult(msg, msg.isDelivered());
     }
 
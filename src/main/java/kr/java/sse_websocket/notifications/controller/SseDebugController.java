@@ -1,11 +1,17 @@
 package kr.java.sse_websocket.notifications.controller;
 
+import kr.java.sse_websocket.notifications.service.UnreadCountPusher;
+import kr.java.sse_websocket.notifications.service.UnreadCounterService;
+import kr.java.sse_websocket.notifications.utils.SseConnectionStats;
 import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.utils.SseHeartbeatWheel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 // /api/admin/sse/active-users
@@ -14,6 +20,9 @@ import java.util.Set;
 public class SseDebugController {
 
     private final SseEmitterRegistry registry;
+    private final SseHeartbeatWheel heartbeatWheel;
+    private final UnreadCountPusher unreadCountPusher;
+    private final UnreadCounterService unreadCounterService;
 
     /**
      * 현재 SSE 연결된 사용자 목록을 반환한다.
@@ -24,4 +33,41 @@ public class SseDebugController {
     public Set<String> activeUsers() {
         return registry.snapshot().keySet();
     }
-}
\ No newline at end of file
+
+    /**
+     * 연결별 outbound 큐 상태(큐 깊이, 누적 전송/드롭, drain 지연)를 반환한다.
+     * - 느린 소비자(stalled browser) 식별용
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/sse/connections")
+    public List<SseConnectionStats> connections() {
+        return registry.stats();
+    }
+
+    /**
+     * heartbeat 전송/죽은 연결 정리(reap) 누적 건수.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/sse/heartbeat")
+    public Map<String, Long> heartbeat() {
+        return heartbeatWheel.stats();
+    }
+
+    /**
+     * unreadCount push 합치기 통계(requested / pushed / saved / deferred).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/sse/unread-count")
+    public Map<String, Long> unreadCountPushes() {
+        return unreadCountPusher.stats();
+    }
+
+    /**
+     * 안읽음 카운터 정합성 보정 통계(reconciled / drifted).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/sse/unread-counters")
+    public Map<String, Long> unreadCounters() {
+        return unreadCounterService.stats();
+    }
+}
@@ -20,8 +20,8 @@ import java.time.Instant;
 @Builder
 @Entity
 @Table(name = "notifications", indexes = {
-        @Index(name = "idx_notifications_created_at", columnList = "createdAt"),
-        @Index(name = "idx_notifications_target", columnList = "targetType,targetUsername")
+        @Index(name = "idx_notifications_created_at", columnList = "createdAt,id"),
+        @Index(name = "idx_notifications_target", columnList = "targetType,targetUsername,createdAt,id")
 })
 public class Notification {
 
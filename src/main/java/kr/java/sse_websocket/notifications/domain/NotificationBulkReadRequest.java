@@ -0,0 +1,14 @@
+package kr.java.sse_websocket.notifications.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 일괄 읽음 요청 DTO.
+ * - ids: 읽음 처리할 알림 id 목록
+ */
+@Data
+public class NotificationBulkReadRequest {
+    private List<Long> ids;
+}
@@ -0,0 +1,32 @@
+package kr.java.sse_websocket.notifications.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 안읽음 카운트 계산용 카운터(key-value).
+ *
+ * 키 규칙(UnreadCounterService 참고):
+ * - broadcast:total                : 전체 발송 알림 총 개수
+ * - user:{username}:targeted-unread : 사용자에게 온 타겟 알림 중 안읽음 수
+ * - user:{username}:broadcast-read  : 사용자가 읽은 전체 발송 알림 수
+ *
+ * unread = (broadcast:total - broadcast-read) + targeted-unread
+ * => 배지 조회가 anti-join count 대신 PK 조회 1번이 된다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    @Column(length = 150)
+    private String counterKey;
+
+    @Column(nullable = false)
+    private long counterValue;
+}
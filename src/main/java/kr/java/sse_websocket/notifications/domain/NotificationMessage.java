@@ -1,8 +1,10 @@
 package kr.java.sse_websocket.notifications.domain;
 
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
@@ -24,9 +26,12 @@ import java.time.Instant;
  *
  * - DB 저장 후 생성된 notificationId를 전달한다.
  * - delivered: 현재 실시간으로 바로 전달되었는지(접속 중인 SSE emitter 존재 여부)
+ * - outbox payload(JSON)로도 저장되므로 역직렬화용 기본 생성자를 둔다.
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class NotificationMessage {
 
     /** 알림 식별자(임시) */
@@ -0,0 +1,18 @@
+package kr.java.sse_websocket.notifications.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 커서 기반 목록 응답.
+ * - nextCursor가 null이면 마지막 페이지
+ * - 전체 개수(count)는 내려주지 않는다(count 쿼리 없이 O(page size) 유지)
+ */
+@Data
+@Builder
+public class NotificationPage {
+    private List<NotificationView> items;
+    private String nextCursor;
+}
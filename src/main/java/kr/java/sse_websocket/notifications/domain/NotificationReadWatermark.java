@@ -0,0 +1,106 @@
+package kr.java.sse_websocket.notifications.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 전체 발송(ALL) 알림의 사용자별 읽음 상태(watermark + 예외 집합).
+ *
+ * - readUpToId 이하의 ALL 알림은 모두 읽음
+ * - readUpToId보다 큰 id 중 개별로 읽은 것만 exceptionIds에 모아 둔다(쉼표 구분)
+ * - 예외 집합이 앞에서부터 연속으로 채워지면 watermark를 앞으로 당기고 예외에서 뺀다(compact)
+ *
+ * => 전체 발송 1건당 사용자 수만큼 notification_reads 행이 쌓이지 않고, 사용자당 1행으로 끝난다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "notification_read_watermarks")
+public class NotificationReadWatermark {
+
+    /**
+     * 예외 집합 최대 크기. 넘으면 개별 읽음은 notification_reads 행으로 기록한다.
+     */
+    public static final int MAX_EXCEPTIONS = 256;
+
+    @Id
+    @Column(length = 100)
+    private String username;
+
+    @Column(nullable = false)
+    private long readUpToId;
+
+    @Column(nullable = false, length = 4000)
+    private String exceptionIds;
+
+    public boolean isRead(long notificationId) {
+        return notificationId <= readUpToId || exceptions().contains(notificationId);
+    }
+
+    public NavigableSet<Long> exceptions() {
+        if (exceptionIds == null || exceptionIds.isEmpty()) {
+            return new TreeSet<>();
+        }
+        return Arrays.stream(exceptionIds.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * 개별 읽음 추가.
+     * @return 새로 읽음 처리됐으면 true(이미 읽음이거나 예외 집합이 가득 찼으면 false)
+     */
+    public boolean addException(long notificationId) {
+        NavigableSet<Long> exceptions = exceptions();
+        if (notificationId <= readUpToId || exceptions.contains(notificationId)
+                || exceptions.size() >= MAX_EXCEPTIONS) {
+            return false;
+        }
+        exceptions.add(notificationId);
+        exceptionIds = join(exceptions);
+        return true;
+    }
+
+    /**
+     * watermark 바로 다음 ALL 알림들(id 오름차순)이 예외 집합에 연속으로 있으면 watermark를 당긴다.
+     * @param nextBroadcastIds readUpToId 이후의 ALL 알림 id(오름차순)
+     */
+    public void compact(List<Long> nextBroadcastIds) {
+        NavigableSet<Long> exceptions = exceptions();
+        for (Long id : nextBroadcastIds) {
+            if (!exceptions.remove(id)) {
+                break;
+            }
+            readUpToId = id;
+        }
+        // watermark 아래로 내려간 예외는 의미가 없다.
+        exceptions.headSet(readUpToId, true).clear();
+        exceptionIds = join(exceptions);
+    }
+
+    /**
+     * upToId까지 전부 읽음(전체 읽음 처리).
+     */
+    public void advanceTo(long upToId) {
+        if (upToId <= readUpToId) {
+            return;
+        }
+        readUpToId = upToId;
+        NavigableSet<Long> exceptions = exceptions();
+        exceptions.headSet(readUpToId, true).clear();
+        exceptionIds = join(exceptions);
+    }
+
+    private static String join(NavigableSet<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
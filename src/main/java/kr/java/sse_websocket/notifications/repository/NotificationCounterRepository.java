@@ -0,0 +1,71 @@
+package kr.java.sse_websocket.notifications.repository;
+
+import kr.java.sse_websocket.notifications.domain.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 안읽음 카운터 Repository.
+ *
+ * - 증감/설정은 upsert(INSERT ... ON DUPLICATE KEY UPDATE) 한 문장으로 처리한다.
+ *   (행이 없을 때의 조회-후-삽입 경쟁을 DB에 맡긴다. H2는 MODE=MySQL에서 동일 문법 지원)
+ * - 초기화/보정은 insertIfAbsent + lockValue로 행을 잠근 뒤 계산한다(UnreadCounterService 참고).
+ */
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, String> {
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into notification_counters (counter_key, counter_value)
+        values (:key, :delta)
+        on duplicate key update counter_value = counter_value + :delta
+    """)
+    int increment(@Param("key") String key, @Param("delta") long delta);
+
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into notification_counters (counter_key, counter_value)
+        values (:key, :value)
+        on duplicate key update counter_value = :value
+    """)
+    int set(@Param("key") String key, @Param("value") long value);
+
+    /**
+     * 행이 없으면 value로 만든다(있으면 그대로). 이어지는 lockValue가 항상 행을 잡을 수 있게 한다.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into notification_counters (counter_key, counter_value)
+        values (:key, :value)
+        on duplicate key update counter_value = counter_value
+    """)
+    int insertIfAbsent(@Param("key") String key, @Param("value") long value);
+
+    /**
+     * 행 잠금 후 값 조회(트랜잭션 안에서만 의미가 있다). 같은 키의 증감/보정은 커밋까지 여기서 기다린다.
+     */
+    @Query(nativeQuery = true, value = """
+        select counter_value
+        from notification_counters
+        where counter_key = :key
+        for update
+    """)
+    Long lockValue(@Param("key") String key);
+
+    /**
+     * 카운터 행이 있는 사용자 키 목록(정합성 보정 대상).
+     */
+    @Query("""
+        select c.counterKey
+        from NotificationCounter c
+        where c.counterKey like 'user:%:broadcast-read'
+    """)
+    List<String> findUserSeedKeys();
+}
@@ -0,0 +1,73 @@
+package kr.java.sse_websocket.notifications.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 읽음 행 일괄 저장(JDBC).
+ *
+ * - JPA save는 행마다 insert 1번 + IDENTITY 키 조회라 대량 읽음 처리에 맞지 않는다.
+ * - on duplicate key update: 동시에 같은 알림을 읽어도 unique 제약 위반 없이 1건만 남는다.
+ *   이미 있는 행은 read_at을 그대로 둔다. 잘못된 username 같은 오류는 insert ignore처럼 경고로 바뀌지 않고 예외가 된다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationReadJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * (notificationId, username) 읽음 행을 JDBC batch로 저장한다.
+     * @return 새로 저장된 행 수(드라이버가 건수를 알려주지 않으면 요청 건수로 본다)
+     */
+    public int insertIfAbsentBatch(String username, Collection<Long> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = notificationIds.stream()
+                .map(id -> new Object[]{id, username, now})
+                .toList();
+
+        int[] counts = jdbcTemplate.batchUpdate("""
+                insert into notification_reads (notification_id, username, read_at)
+                values (?, ?, ?)
+                on duplicate key update read_at = read_at
+                """, args);
+
+        int inserted = 0;
+        for (int c : counts) {
+            inserted += c == Statement.SUCCESS_NO_INFO ? 1 : Math.max(c, 0);
+        }
+        return inserted;
+    }
+
+    /**
+     * upToId 이하의 사용자 타겟 알림 중 안읽은 것을 한 문장(insert ... select)으로 읽음 처리한다.
+     * @return 새로 저장된 행 수
+     */
+    public int insertTargetedUpTo(String username, long upToId) {
+        return jdbcTemplate.update("""
+                insert into notification_reads (notification_id, username, read_at)
+                select n.id, ?, ?
+                from notifications n
+                where n.target_type = 'USER'
+                  and n.target_username = ?
+                  and n.id <= ?
+                  and not exists (
+                      select 1
+                      from notification_reads r
+                      where r.notification_id = n.id
+                        and r.username = ?
+                  )
+                on duplicate key update read_at = read_at
+                """, username, Timestamp.from(Instant.now()), username, upToId, username);
+    }
+}
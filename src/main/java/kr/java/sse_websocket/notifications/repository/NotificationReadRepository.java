@@ -2,10 +2,12 @@ package kr.java.sse_websocket.notifications.repository;
 
 import kr.java.sse_websocket.notifications.domain.NotificationRead;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 
@@ -31,4 +33,66 @@ public interface NotificationReadRepository extends JpaRepository<NotificationRe
     """)
     Set<Long> findReadNotificationIds(@Param("username") String username,
                                       @Param("notificationIds") Collection<Long> notificationIds);
-}
\ No newline at end of file
+
+    /**
+     * 전체 발송 읽음 수 계산용: watermark 도입 전 방식(행 1건씩)으로 남아 있는 ALL 읽음 수.
+     * - watermark(afterId) 이하로 이미 덮인 행은 중복 집계하지 않는다.
+     */
+    @Query("""
+        select count(r)
+        from NotificationRead r
+        where r.username = :username
+          and r.notificationId > :afterId
+          and exists (
+              select 1
+              from Notification n
+              where n.id = r.notificationId
+                and n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+          )
+    """)
+    long countLegacyBroadcastReadsAbove(@Param("username") String username, @Param("afterId") long afterId);
+
+    /**
+     * watermark 이관 대상: ALL 알림 읽음 행을 가진 사용자.
+     */
+    @Query("""
+        select distinct r.username
+        from NotificationRead r
+        where exists (
+            select 1
+            from Notification n
+            where n.id = r.notificationId
+              and n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+        )
+    """)
+    List<String> findUsernamesWithLegacyBroadcastReads();
+
+    /**
+     * watermark 이관 대상: 사용자의 ALL 알림 읽음 id(오름차순).
+     */
+    @Query("""
+        select r.notificationId
+        from NotificationRead r
+        where r.username = :username
+          and exists (
+              select 1
+              from Notification n
+              where n.id = r.notificationId
+                and n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+          )
+        order by r.notificationId asc
+    """)
+    List<Long> findLegacyBroadcastReadIds(@Param("username") String username);
+
+    /**
+     * watermark로 이관된 읽음 행 삭제.
+     */
+    @Modifying
+    @Query("""
+        delete from NotificationRead r
+        where r.username = :username
+          and r.notificationId in :notificationIds
+    """)
+    int deleteByUsernameAndNotificationIds(@Param("username") String username,
+                                           @Param("notificationIds") Collection<Long> notificationIds);
+}
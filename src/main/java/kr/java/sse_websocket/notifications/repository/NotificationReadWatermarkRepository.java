@@ -0,0 +1,36 @@
+package kr.java.sse_websocket.notifications.repository;
+
+import jakarta.persistence.LockModeType;
+import kr.java.sse_websocket.notifications.domain.NotificationReadWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * 전체 발송 읽음 watermark Repository.
+ */
+public interface NotificationReadWatermarkRepository extends JpaRepository<NotificationReadWatermark, String> {
+
+    /**
+     * 행이 없으면 만든다(동시 생성 경쟁은 on duplicate key update로 DB에 맡김).
+     * - insert ignore와 달리 PK 충돌만 무시한다(길이 초과 같은 다른 오류는 그대로 실패).
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+        insert into notification_read_watermarks (username, read_up_to_id, exception_ids)
+        values (:username, 0, '')
+        on duplicate key update username = username
+    """)
+    int insertIfAbsent(@Param("username") String username);
+
+    /**
+     * 같은 사용자의 동시 읽음 처리가 예외 집합을 덮어쓰지 않도록 행 잠금 후 조회.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from NotificationReadWatermark w where w.username = :username")
+    Optional<NotificationReadWatermark> findForUpdate(@Param("username") String username);
+}
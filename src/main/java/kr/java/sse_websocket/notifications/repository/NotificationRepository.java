@@ -1,20 +1,86 @@
 package kr.java.sse_websocket.notifications.repository;
 
 import kr.java.sse_websocket.notifications.domain.Notification;
-import org.springframework.data.domain.Page;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * 알림 조회/카운트용 Repository.
  */
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
     /**
-     * 로그인 사용자 관점에서 "보이는 알림" 페이징 조회.
-     * - ALL 또는 USER(targetUsername=username)
+     * 인박스(전체 발송 스트림): 최신순 ALL 알림 상위 N개.
+     * - 모든 사용자에게 같은 결과이므로 BroadcastNotificationCache가 공유한다.
+     * - List 반환이라 count 쿼리가 나가지 않는다.
+     */
+    @Query("""
+        select n
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+        order by n.createdAt desc, n.id desc
+    """)
+    List<Notification> findBroadcastLatest(Pageable pageable);
+
+    /**
+     * 인박스(전체 발송 스트림): 커서 (createdAt, id) 이전 ALL 알림(seek).
+     * - 캐시 범위를 넘어선 깊은 페이지에서만 쓴다.
+     */
+    @Query("""
+        select n
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+          and (
+                n.createdAt < :createdAt
+             or (n.createdAt = :createdAt and n.id < :id)
+          )
+        order by n.createdAt desc, n.id desc
+    """)
+    List<Notification> findBroadcastBefore(@Param("createdAt") Instant createdAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    /**
+     * 인박스(사용자 타겟 스트림): 최신순 상위 N개.
+     * - OR 조건 없이 (targetType, targetUsername, createdAt) 인덱스 범위만 읽는다.
+     */
+    @Query("""
+        select n
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.USER
+          and n.targetUsername = :username
+        order by n.createdAt desc, n.id desc
+    """)
+    List<Notification> findTargetedForUserLatest(@Param("username") String username, Pageable pageable);
+
+    /**
+     * 인박스(사용자 타겟 스트림): 커서 (createdAt, id) 이전(seek).
+     */
+    @Query("""
+        select n
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.USER
+          and n.targetUsername = :username
+          and (
+                n.createdAt < :createdAt
+             or (n.createdAt = :createdAt and n.id < :id)
+          )
+        order by n.createdAt desc, n.id desc
+    """)
+    List<Notification> findTargetedForUserBefore(@Param("username") String username,
+                                                 @Param("createdAt") Instant createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+
+    /**
+     * SSE 재연결 복구용: afterId 이후 "보이는 알림"을 id 오름차순으로 조회.
+     * - 재연결 링 버퍼에서 밀려난 경우에만 사용한다.
      */
     @Query("""
         select n
@@ -23,30 +89,69 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
               n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
            or (n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.USER and n.targetUsername = :username)
         )
-        order by n.createdAt desc
+        and n.id > :afterId
+        order by n.id asc
     """)
-    Page<Notification> findVisibleForUser(@Param("username") String username, Pageable pageable);
+    List<Notification> findVisibleForUserAfterId(@Param("username") String username,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    /**
+     * 안읽음 카운터 초기화/보정용: 전체 발송 알림 총 개수.
+     */
+    long countByTargetType(NotificationTargetType targetType);
 
     /**
-     * 안읽음 카운트:
-     * - 보이는 알림 중에서 notification_reads에 (notificationId, username)가 없는 것만 count
-     *
-     * 주의:
-     * - 실습 단계에서는 서브쿼리 방식이 가장 단순/명료하다.
+     * 안읽음 카운터 초기화/보정용: 사용자에게 온 타겟 알림 중 안읽음 수.
+     * - OR 조건이 없으므로 (targetType, targetUsername) 기준으로 좁혀진다.
      */
-    @org.springframework.data.jpa.repository.Query("""
+    @Query("""
         select count(n)
         from Notification n
-        where (
-              n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
-           or (n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.USER and n.targetUsername = :username)
-        )
-        and not exists (
-            select 1
-            from NotificationRead r
-            where r.notificationId = n.id
-              and r.username = :username
-        )
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.USER
+          and n.targetUsername = :username
+          and not exists (
+              select 1
+              from NotificationRead r
+              where r.notificationId = n.id
+                and r.username = :username
+          )
+    """)
+    long countUnreadTargetedForUser(@Param("username") String username);
+
+    /**
+     * 전체 발송 읽음 watermark compact용: afterId 이후 ALL 알림 id(오름차순).
+     */
+    @Query("""
+        select n.id
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+          and n.id > :afterId
+        order by n.id asc
+    """)
+    List<Long> findBroadcastIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * 전체 발송 읽음 watermark compact 한계: afterId 이후 ALL 알림 중 since 이후에 만든 첫 id(없으면 null).
+     * - 이 id부터는 아직 커밋되지 않은 더 작은 id가 있을 수 있어 watermark가 건너뛰면 안 된다.
+     */
+    @Query("""
+        select min(n.id)
+        from Notification n
+        where n.targetType = kr.java.sse_websocket.notifications.domain.NotificationTargetType.ALL
+          and n.id > :afterId
+          and n.createdAt >= :since
     """)
-    long countUnreadForUser(@Param("username") String username);
-}
\ No newline at end of file
+    Long findFirstBroadcastIdCreatedSince(@Param("afterId") long afterId, @Param("since") Instant since);
+
+    /**
+     * 전체 발송 읽음 수 계산용: watermark 이하 ALL 알림 개수.
+     */
+    long countByTargetTypeAndIdLessThanEqual(NotificationTargetType targetType, Long id);
+
+    /**
+     * 전체 읽음 처리 기준점(upTo 미지정 시): 현재 가장 최근 알림 id.
+     */
+    @Query("select max(n.id) from Notification n")
+    Long findMaxId();
+}
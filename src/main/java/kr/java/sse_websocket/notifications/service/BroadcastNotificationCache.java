@@ -0,0 +1,103 @@
+package kr.java.sse_websocket.notifications.service;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 최근 전체 발송(ALL) 알림 캐시(노드 로컬, 모든 사용자가 공유).
+ *
+ * 문제:
+ * - 인박스 조회마다 사용자별로 같은 ALL 알림을 OR 조건 쿼리로 다시 읽는다.
+ *
+ * 동작:
+ * - 최근 capacity개를 최신순으로 메모리에 들고 있다가 모든 사용자의 인박스 조회에 그대로 쓴다.
+ * - 전체 발송이 커밋되면 무효화하고, 다음 조회 때 1번만 다시 읽는다(동시 조회는 1번으로 합침).
+ * - 다른 노드의 발송은 sse:broadcast 수신 시 무효화하고, TTL로 한 번 더 보정한다.
+ *
+ * 캐시된 엔티티는 읽기 전용으로만 쓴다(수정 금지).
+ */
+@Component
+public class BroadcastNotificationCache {
+
+    private final NotificationRepository notificationRepository;
+    private final int capacity;
+    private final long ttlNanos;
+
+    private volatile Snapshot snapshot;
+    // 무효화 세대: 로딩 중에 무효화되면 로딩 결과를 버린다.
+    private final AtomicLong generation = new AtomicLong();
+
+    public BroadcastNotificationCache(NotificationRepository notificationRepository,
+                                      @Value("${notifications.inbox.broadcast-cache-size:500}") int capacity,
+                                      @Value("${notifications.inbox.broadcast-cache-ttl-ms:30000}") long ttlMillis) {
+        this.notificationRepository = notificationRepository;
+        this.capacity = capacity;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * 최근 ALL 알림 스냅샷(최신순).
+     */
+    public Snapshot recent() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(System.nanoTime(), ttlNanos)) {
+            return current;
+        }
+        return reload();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(System.nanoTime(), ttlNanos)) {
+            return current; // 먼저 들어온 스레드가 이미 로딩함
+        }
+        long gen = generation.get();
+        List<Notification> items = notificationRepository.findBroadcastLatest(PageRequest.of(0, capacity));
+        Snapshot loaded = new Snapshot(List.copyOf(items), items.size() < capacity, System.nanoTime());
+        if (generation.get() == gen) {
+            snapshot = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * 전체 발송 이후 호출. 트랜잭션 안이면 커밋 이후 무효화한다(커밋 전 재로딩으로 새 알림을 놓치지 않도록).
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow();
+                }
+            });
+        } else {
+            invalidateNow();
+        }
+    }
+
+    private void invalidateNow() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * @param items    최신순 ALL 알림
+     * @param complete true면 DB의 ALL 알림 전부(capacity보다 적음) → 캐시 밖 조회가 필요 없다
+     */
+    public record Snapshot(List<Notification> items, boolean complete, long loadedAtNanos) {
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAtNanos > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package kr.java.sse_websocket.notifications.service;
+
+import kr.java.sse_websocket.notifications.repository.NotificationReadRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 기존 ALL 알림 읽음 행(notification_reads) → 사용자별 watermark 이관.
+ *
+ * - notifications.read-model.migrate-legacy=true일 때만 기동 시 1회 실행한다.
+ * - 사용자 단위 트랜잭션이므로 중간에 실패해도 다음 기동 때 이어서 진행된다.
+ * - 이관 전/중에도 기존 행은 읽음으로 인정되므로 서비스 중단이 필요 없다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "notifications.read-model", name = "migrate-legacy", havingValue = "true")
+public class BroadcastReadMigrationRunner implements ApplicationRunner {
+
+    private final NotificationReadRepository notificationReadRepository;
+    private final BroadcastReadTracker broadcastReadTracker;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int users = 0;
+        long rows = 0;
+        for (String username : notificationReadRepository.findUsernamesWithLegacyBroadcastReads()) {
+            try {
+                rows += broadcastReadTracker.migrateLegacy(username);
+                users++;
+            } catch (Exception e) {
+                log.warn("[NOTI] broadcast read migration failed username={}, msg={}", username, e.getMessage());
+            }
+        }
+        log.info("[NOTI] broadcast read migration done users={}, rows={}", users, rows);
+    }
+}
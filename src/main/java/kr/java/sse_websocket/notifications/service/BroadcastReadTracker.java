@@ -0,0 +1,222 @@
+package kr.java.sse_websocket.notifications.service;
+
+import kr.java.sse_websocket.notifications.domain.NotificationRead;
+import kr.java.sse_websocket.notifications.domain.NotificationReadWatermark;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.repository.NotificationReadJdbcRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationReadRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationReadWatermarkRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 전체 발송(ALL) 알림 읽음 상태(watermark + 예외 집합).
+ *
+ * 문제:
+ * - ALL 알림을 읽을 때마다 notification_reads에 1행 → 전체 발송 1건당 최대 사용자 수만큼 행이 쌓인다.
+ *
+ * 해결:
+ * - 사용자당 1행(NotificationReadWatermark)에 "id X까지 전부 읽음 + 그 이후 개별 읽음 id"만 저장한다.
+ *
+ * 이관(migration):
+ * - 기존 notification_reads의 ALL 읽음 행도 계속 읽음으로 인정한다(조회/카운트 모두).
+ * - notifications.read-model.migrate-legacy=true면 기동 시 기존 행을 watermark로 옮기고 삭제한다.
+ * - 예외 집합이 가득 찬 사용자는 개별 읽음을 기존 방식(행 1건)으로 기록한다.
+ *
+ * compact 안전 구간:
+ * - id는 커밋 순서와 다르게 보일 수 있다(작은 id의 트랜잭션이 늦게 커밋). 그 id를 못 본 채 watermark가 건너뛰면
+ *   사용자가 보지 않은 알림이 읽음이 된다.
+ * - 그래서 compact는 compact-settle-seconds보다 오래전에 만든 알림까지만 건너뛰고, 최근 알림의 읽음은 예외 집합에 남긴다.
+ */
+@Component
+public class BroadcastReadTracker {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadRepository notificationReadRepository;
+    private final NotificationReadJdbcRepository notificationReadJdbcRepository;
+    private final NotificationReadWatermarkRepository watermarkRepository;
+    private final Duration compactSettle;
+
+    public BroadcastReadTracker(NotificationRepository notificationRepository,
+                                NotificationReadRepository notificationReadRepository,
+                                NotificationReadJdbcRepository notificationReadJdbcRepository,
+                                NotificationReadWatermarkRepository watermarkRepository,
+                                @Value("${notifications.read-model.compact-settle-seconds:60}") long compactSettleSeconds) {
+        this.notificationRepository = notificationRepository;
+        this.notificationReadRepository = notificationReadRepository;
+        this.notificationReadJdbcRepository = notificationReadJdbcRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.compactSettle = Duration.ofSeconds(compactSettleSeconds);
+    }
+
+    /**
+     * ALL 알림 1건 읽음 처리.
+     * @return 새로 읽음 처리됐으면 true(이미 읽었으면 false)
+     */
+    @Transactional
+    public boolean markRead(String username, long notificationId) {
+        NotificationReadWatermark watermark = lockWatermark(username);
+        if (watermark.isRead(notificationId)
+                || notificationReadRepository.existsByNotificationIdAndUsername(notificationId, username)) {
+            return false;
+        }
+
+        if (!watermark.addException(notificationId)) {
+            // 예외 집합이 가득 참 → 기존 방식으로 기록(조회/카운트에서 계속 인정됨)
+            notificationReadRepository.save(NotificationRead.builder()
+                    .notificationId(notificationId)
+                    .username(username)
+                    .build());
+            return true;
+        }
+        compact(watermark);
+        return true;
+    }
+
+    /**
+     * ALL 알림 여러 건 읽음 처리(watermark 행 잠금 1번, compact 1번).
+     * @return 새로 읽음 처리된 건수
+     */
+    @Transactional
+    public int markReadAll(String username, Collection<Long> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        NotificationReadWatermark watermark = lockWatermark(username);
+        Set<Long> legacyRead = notificationReadRepository.findReadNotificationIds(username, notificationIds);
+
+        int added = 0;
+        List<Long> overflow = new ArrayList<>();
+        for (Long id : new TreeSet<>(notificationIds)) {
+            if (watermark.isRead(id) || legacyRead.contains(id)) {
+                continue;
+            }
+            if (watermark.addException(id)) {
+                added++;
+            } else {
+                overflow.add(id);
+            }
+        }
+        compact(watermark);
+
+        // 예외 집합이 가득 차서 못 담은 읽음은 기존 방식(행)으로 한 번에 저장
+        return added + notificationReadJdbcRepository.insertIfAbsentBatch(username, overflow);
+    }
+
+    /**
+     * upToId 이하 ALL 알림 전부 읽음(전체 읽음 처리).
+     */
+    @Transactional
+    public void markReadUpTo(String username, long upToId) {
+        NotificationReadWatermark watermark = lockWatermark(username);
+        watermark.advanceTo(upToId);
+        compact(watermark);
+    }
+
+    /**
+     * 주어진 ALL 알림 id 중 watermark 기준으로 읽은 id(기존 행 방식은 포함하지 않음).
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> readAmong(String username, Collection<Long> broadcastIds) {
+        if (broadcastIds.isEmpty()) {
+            return Set.of();
+        }
+        return watermarkRepository.findById(username)
+                .map(w -> {
+                    Set<Long> read = new HashSet<>();
+                    for (Long id : broadcastIds) {
+                        if (w.isRead(id)) {
+                            read.add(id);
+                        }
+                    }
+                    return read;
+                })
+                .orElseGet(Set::of);
+    }
+
+    /**
+     * 사용자가 읽은 ALL 알림 수(watermark 이하 + 예외 집합 + 기존 행 방식).
+     */
+    @Transactional(readOnly = true)
+    public long countReads(String username) {
+        long readUpToId = 0;
+        long exceptions = 0;
+        NotificationReadWatermark watermark = watermarkRepository.findById(username).orElse(null);
+        if (watermark != null) {
+            readUpToId = watermark.getReadUpToId();
+            exceptions = watermark.exceptions().size();
+        }
+        long belowWatermark = readUpToId == 0
+                ? 0
+                : notificationRepository.countByTargetTypeAndIdLessThanEqual(NotificationTargetType.ALL, readUpToId);
+        return belowWatermark + exceptions
+                + notificationReadRepository.countLegacyBroadcastReadsAbove(username, readUpToId);
+    }
+
+    /**
+     * 기존 notification_reads의 ALL 읽음 행을 watermark로 옮긴다.
+     * @return 옮기고 삭제한 행 수
+     */
+    @Transactional
+    public int migrateLegacy(String username) {
+        List<Long> legacyIds = notificationReadRepository.findLegacyBroadcastReadIds(username);
+        if (legacyIds.isEmpty()) {
+            return 0;
+        }
+        NotificationReadWatermark watermark = lockWatermark(username);
+
+        List<Long> migrated = new ArrayList<>();
+        for (Long id : legacyIds) {
+            if (watermark.isRead(id)) {
+                migrated.add(id); // 이미 watermark로 덮인 중복 행
+                continue;
+            }
+            if (!watermark.addException(id)) {
+                compact(watermark);
+                if (!watermark.addException(id)) {
+                    break; // 더 못 옮기는 행은 기존 방식으로 남긴다.
+                }
+            }
+            migrated.add(id);
+        }
+        compact(watermark);
+
+        if (!migrated.isEmpty()) {
+            notificationReadRepository.deleteByUsernameAndNotificationIds(username, migrated);
+        }
+        return migrated.size();
+    }
+
+    private NotificationReadWatermark lockWatermark(String username) {
+        watermarkRepository.insertIfAbsent(username);
+        return watermarkRepository.findForUpdate(username)
+                .orElseThrow(() -> new IllegalStateException("watermark row missing: " + username));
+    }
+
+    private void compact(NotificationReadWatermark watermark) {
+        int pending = watermark.exceptions().size();
+        if (pending == 0) {
+            return;
+        }
+        long afterId = watermark.getReadUpToId();
+        List<Long> next = notificationRepository.findBroadcastIdsAfter(afterId, PageRequest.of(0, pending));
+        // 최근 알림부터는 건너뛰지 않는다(그 앞에 아직 안 보이는 id가 있을 수 있다).
+        Long unsettled = notificationRepository.findFirstBroadcastIdCreatedSince(afterId, Instant.now().minus(compactSettle));
+        if (unsettled != null) {
+            next = next.stream().takeWhile(id -> id < unsettled).toList();
+        }
+        watermark.compact(next);
+    }
+}
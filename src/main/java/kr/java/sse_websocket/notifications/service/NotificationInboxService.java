@@ -0,0 +1,135 @@
+package kr.java.sse_websocket.notifications.service;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.domain.NotificationPage;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.domain.NotificationView;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import kr.java.sse_websocket.notifications.utils.NotificationCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 인박스 목록 조회.
+ *
+ * 구조:
+ * - 전체 발송 스트림: 모든 사용자 공통 → BroadcastNotificationCache(메모리)에서 읽는다.
+ * - 타겟 스트림: 사용자별 → (targetType, targetUsername, createdAt) 인덱스 쿼리
+ * - 두 스트림 모두 (createdAt, id) 최신순이므로 앞에서부터 병합해 page size만큼 자른다.
+ *
+ * => OR 조건 쿼리가 사라지고, 사용자당 DB 조회는 타겟 스트림 1번(+ 캐시 범위를 넘는 깊은 페이지만 ALL 1번).
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationInboxService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // (createdAt, id) 최신순
+    private static final Comparator<Notification> NEWEST_FIRST =
+            Comparator.comparing(Notification::getCreatedAt)
+                    .thenComparing(Notification::getId)
+                    .reversed();
+
+    private final NotificationRepository notificationRepository;
+    private final BroadcastNotificationCache broadcastCache;
+    private final NotificationReadService notificationReadService;
+
+    /**
+     * @param after null이면 최신 페이지
+     */
+    public NotificationPage page(String usernameRaw, NotificationCursor after, int size) {
+        String username = normalize(usernameRaw);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // 다음 페이지 존재 여부는 1건 더 읽어서 판단(count 쿼리 대신)
+        int fetch = limit + 1;
+        PageRequest pageable = PageRequest.of(0, fetch);
+
+        List<Notification> targeted = after == null
+                ? notificationRepository.findTargetedForUserLatest(username, pageable)
+                : notificationRepository.findTargetedForUserBefore(username, after.createdAt(), after.id(), pageable);
+        List<Notification> broadcasts = broadcastsBefore(after, fetch);
+
+        List<Notification> merged = merge(broadcasts, targeted, fetch);
+        boolean hasNext = merged.size() > limit;
+        List<Notification> notifications = hasNext ? merged.subList(0, limit) : merged;
+
+        // 현재 페이지에 대해서만 read 여부를 묶어서 조회(N+1 방지)
+        Set<Long> readIds = notificationReadService.readIdsAmong(username, notifications);
+
+        List<NotificationView> items = notifications.stream()
+                .map(n -> NotificationView.builder()
+                        .id(n.getId())
+                        .title(n.getTitle())
+                        .body(n.getBody())
+                        .sender(n.getSender())
+                        .target(n.getTargetType() == NotificationTargetType.ALL ? "ALL" : n.getTargetUsername())
+                        .createdAt(n.getCreatedAt())
+                        .read(readIds.contains(n.getId()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return NotificationPage.builder()
+                .items(items)
+                .nextCursor(hasNext ? NotificationCursor.after(notifications.get(notifications.size() - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * 커서 이전 ALL 알림 최대 fetch개.
+     * - 캐시 안에서 충분히 채워지거나 캐시가 전체를 담고 있으면 DB 조회 없음
+     */
+    private List<Notification> broadcastsBefore(NotificationCursor after, int fetch) {
+        BroadcastNotificationCache.Snapshot snapshot = broadcastCache.recent();
+        List<Notification> cached = snapshot.items();
+
+        int from = 0;
+        if (after != null) {
+            while (from < cached.size() && !isBefore(cached.get(from), after)) {
+                from++;
+            }
+        }
+        int available = cached.size() - from;
+        if (available >= fetch || snapshot.complete()) {
+            return cached.subList(from, from + Math.min(available, fetch));
+        }
+
+        // 캐시 범위를 넘는 깊은 페이지
+        PageRequest pageable = PageRequest.of(0, fetch);
+        return after == null
+                ? notificationRepository.findBroadcastLatest(pageable)
+                : notificationRepository.findBroadcastBefore(after.createdAt(), after.id(), pageable);
+    }
+
+    private static boolean isBefore(Notification n, NotificationCursor cursor) {
+        int cmp = n.getCreatedAt().compareTo(cursor.createdAt());
+        return cmp < 0 || (cmp == 0 && n.getId() < cursor.id());
+    }
+
+    /**
+     * 최신순으로 정렬된 두 스트림을 앞에서부터 병합(최대 limit개).
+     */
+    private static List<Notification> merge(List<Notification> a, List<Notification> b, int limit) {
+        List<Notification> out = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (out.size() < limit && (i < a.size() || j < b.size())) {
+            if (j >= b.size() || (i < a.size() && NEWEST_FIRST.compare(a.get(i), b.get(j)) <= 0)) {
+                out.add(a.get(i++));
+            } else {
+                out.add(b.get(j++));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package kr.java.sse_websocket.notifications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.cluster.SseDeliveryRouter;
+import kr.java.sse_websocket.notifications.domain.NotificationMessage;
+import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.outbox.service.OutboxHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 알림 outbox 전달(커밋 이후 SSE push).
+ *
+ * - notification.broadcast: 전체 접속자(다른 노드 포함) + 접속자 unreadCount 갱신
+ * - notification.user: 타겟 사용자(연결을 가진 노드) + unreadCount 갱신
+ *
+ * 같은 알림이 다시 전달돼도 event id(=notificationId)가 같으므로 클라이언트가 중복을 제거한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxHandler implements OutboxHandler {
+
+    static final String BROADCAST = "notification.broadcast";
+    static final String TARGETED = "notification.user";
+
+    private final ObjectMapper objectMapper;
+    private final SseEmitterRegistry sseEmitterRegistry;
+    private final SseDeliveryRouter sseDeliveryRouter;
+    private final UnreadCountPusher unreadCountPusher;
+
+    @Override
+    public Collection<String> eventTypes() {
+        return List.of(BROADCAST, TARGETED);
+    }
+
+    @Override
+    public void handle(String eventType, String payload) throws Exception {
+        NotificationMessage msg = objectMapper.readValue(payload, NotificationMessage.class);
+
+        // id = notificationId: 재연결 시 Last-Event-ID로 이어받을 수 있도록 stamp + 링 버퍼 기록
+        SseFrame frame = sseEmitterRegistry.encode("notification", msg.getId(), msg);
+
+        if (BROADCAST.equals(eventType)) {
+            // 다른 노드 접속자에게는 sse:broadcast 채널로 전달된다.
+            sseDeliveryRouter.sendToAll(msg.getId(), frame);
+            // unreadCount는 사용자별로 다르므로 이 노드 접속자 각각 갱신(사용자별로 합쳐짐)
+            unreadCountPusher.requestAll(sseEmitterRegistry.activeUsernames());
+            return;
+        }
+
+        // 다른 노드에 연결된 사용자면 presence 디렉터리로 찾은 소유 노드에만 전달된다.
+        if (sseDeliveryRouter.sendToUser(msg.getTarget(), msg.getId(), frame)) {
+            unreadCountPusher.request(msg.getTarget());
+        }
+    }
+}
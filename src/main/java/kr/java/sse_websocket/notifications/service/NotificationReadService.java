@@ -0,0 +1,164 @@
+package kr.java.sse_websocket.notifications.service;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.domain.NotificationRead;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.repository.NotificationReadJdbcRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationReadRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 읽음 처리 서비스.
+ *
+ * - 읽음 저장과 안읽음 카운터 감소를 같은 트랜잭션으로 묶는다.
+ * - idempotent: 이미 읽은 알림이면 저장/카운터 변경 없이 성공 처리한다.
+ * - 전체 발송(ALL) 알림은 행 대신 사용자별 watermark(BroadcastReadTracker)에 기록한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationReadService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadRepository notificationReadRepository;
+    private final NotificationReadJdbcRepository notificationReadJdbcRepository;
+    private final BroadcastReadTracker broadcastReadTracker;
+    private final UnreadCounterService unreadCounterService;
+    private final UnreadCountPusher unreadCountPusher;
+
+    /**
+     * @return 알림이 존재하면 true(404 판단용)
+     */
+    @Transactional
+    public boolean markRead(String usernameRaw, Long notificationId) {
+        String username = normalize(usernameRaw);
+
+        Optional<Notification> notification = notificationRepository.findById(notificationId);
+        if (notification.isEmpty()) {
+            return false;
+        }
+
+        boolean firstRead;
+        if (notification.get().getTargetType() == NotificationTargetType.ALL) {
+            firstRead = broadcastReadTracker.markRead(username, notificationId);
+        } else {
+            firstRead = !notificationReadRepository.existsByNotificationIdAndUsername(notificationId, username);
+            if (firstRead) {
+                notificationReadRepository.save(NotificationRead.builder()
+                        .notificationId(notificationId)
+                        .username(username)
+                        .build());
+            }
+        }
+        if (firstRead) {
+            unreadCounterService.onFirstRead(username, notification.get());
+        }
+
+        // 커밋 이후 unreadCount push(debounce: 연속 읽음은 1번으로 합쳐짐)
+        unreadCountPusher.request(username);
+        return true;
+    }
+
+    /**
+     * 여러 알림 일괄 읽음 처리.
+     *
+     * - 알림 조회 1번 + 기존 읽음 조회 1번 + batch insert 1번 + watermark 갱신 1번
+     * - 카운터 증감과 unreadCount push도 요청당 1번
+     * - 없는 id, 본인에게 보이지 않는 id는 무시한다.
+     *
+     * @return 새로 읽음 처리된 건수
+     */
+    @Transactional
+    public int markReadMany(String usernameRaw, Collection<Long> notificationIds) {
+        String username = normalize(usernameRaw);
+
+        List<Long> broadcastIds = new ArrayList<>();
+        List<Long> targetedIds = new ArrayList<>();
+        for (Notification n : notificationRepository.findAllById(notificationIds)) {
+            if (n.getTargetType() == NotificationTargetType.ALL) {
+                broadcastIds.add(n.getId());
+            } else if (username.equals(n.getTargetUsername())) {
+                targetedIds.add(n.getId());
+            }
+        }
+
+        int targetedReads = 0;
+        if (!targetedIds.isEmpty()) {
+            Set<Long> alreadyRead = notificationReadRepository.findReadNotificationIds(username, targetedIds);
+            List<Long> missing = targetedIds.stream().filter(id -> !alreadyRead.contains(id)).toList();
+            targetedReads = notificationReadJdbcRepository.insertIfAbsentBatch(username, missing);
+        }
+        int broadcastReads = broadcastReadTracker.markReadAll(username, broadcastIds);
+
+        if (broadcastReads + targetedReads > 0) {
+            unreadCounterService.onReads(username, broadcastReads, targetedReads);
+        }
+        unreadCountPusher.request(username);
+        return broadcastReads + targetedReads;
+    }
+
+    /**
+     * upToId 이하로 보이는 알림 전부 읽음 처리("모두 읽음").
+     *
+     * - 전체 발송: watermark를 upToId로 당긴다(행 추가 없음)
+     * - 타겟: insert ... select 한 문장
+     * - 카운터는 증감량 대신 원본 기준으로 1번 다시 계산한다.
+     *
+     * - upToId는 현재 가장 최근 알림 id로 자른다(미래 알림까지 미리 읽음 처리되지 않게).
+     *
+     * @param upToId null이면 현재 가장 최근 알림까지. 0 이하면 예외.
+     */
+    @Transactional
+    public void markReadUpTo(String usernameRaw, Long upToId) {
+        if (upToId != null && upToId <= 0) {
+            throw new IllegalArgumentException("upTo must be positive");
+        }
+        String username = normalize(usernameRaw);
+
+        Long maxId = notificationRepository.findMaxId();
+        if (maxId == null) {
+            return; // 알림 없음
+        }
+        long upTo = upToId != null ? Math.min(upToId, maxId) : maxId;
+
+        broadcastReadTracker.markReadUpTo(username, upTo);
+        notificationReadJdbcRepository.insertTargetedUpTo(username, upTo);
+
+        unreadCounterService.recount(username);
+        unreadCountPusher.request(username);
+    }
+
+    /**
+     * 목록 화면용: 주어진 알림 중 사용자가 읽은 id.
+     * - 타겟 알림 + 기존 방식 ALL 읽음: notification_reads 1번 조회
+     * - ALL 알림: watermark 1행 조회
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> readIdsAmong(String usernameRaw, List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return Set.of();
+        }
+        String username = normalize(usernameRaw);
+
+        List<Long> ids = notifications.stream().map(Notification::getId).toList();
+        List<Long> broadcastIds = notifications.stream()
+                .filter(n -> n.getTargetType() == NotificationTargetType.ALL)
+                .map(Notification::getId)
+                .toList();
+
+        Set<Long> readIds = new HashSet<>(notificationReadRepository.findReadNotificationIds(username, ids));
+        readIds.addAll(broadcastReadTracker.readAmong(username, broadcastIds));
+        return readIds;
+    }
+}
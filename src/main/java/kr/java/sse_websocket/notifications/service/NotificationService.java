@@ -1,16 +1,26 @@
 package kr.java.sse_websocket.notifications.service;
 
+import kr.java.sse_websocket.notifications.cluster.SseDeliveryRouter;
+import kr.java.sse_websocket.notifications.cluster.SsePresenceDirectory;
 import kr.java.sse_websocket.notifications.domain.Notification;
 import kr.java.sse_websocket.notifications.domain.NotificationMessage;
 import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
 import kr.java.sse_websocket.notifications.repository.NotificationReadRepository;
 import kr.java.sse_websocket.notifications.repository.NotificationRepository;
 import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.notifications.utils.SseReplayBuffer;
+import kr.java.sse_websocket.outbox.service.OutboxDispatcher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
 
 /**
  * STEP 02
@@ -36,6 +46,7 @@ import java.time.Instant;
  *
  * 주의:
  * - 미접속 사용자는 SSE로 못 받지만, DB에 저장되어 있으므로 목록 조회로 복구 가능
+ * - SSE push는 트랜잭션 안에서 하지 않는다. outbox에 기록하고 커밋 이후 OutboxDispatcher가 전달한다.
  */
 @Service
 @RequiredArgsConstructor
@@ -44,6 +55,16 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final NotificationReadRepository notificationReadRepository; // 현재는 unreadCount 쿼리에서 간접 사용(확장 대비)
     private final SseEmitterRegistry sseEmitterRegistry;
+    private final SseReplayBuffer sseReplayBuffer;
+    private final SseDeliveryRouter sseDeliveryRouter;
+    private final SsePresenceDirectory presenceDirectory;
+    private final UnreadCountPusher unreadCountPusher;
+    private final UnreadCounterService unreadCounterService;
+    private final BroadcastNotificationCache broadcastNotificationCache;
+    private final OutboxDispatcher outboxDispatcher;
+
+    @Value("${notifications.sse.replay-db-limit:100}")
+    private int replayDbLimit;
 
     /**
      * 전체 발송.
@@ -60,9 +81,14 @@ public class NotificationService {
                 .createdAt(Instant.now())
                 .build());
 
-        // 2) SSE 실시간 전송(접속자에게만 delivered=true 의미가 있음)
-        // 전체 발송은 "개별 delivered" 개념이 애매하므로, 메시지 자체에는 delivered=false로 두고,
-        // 실제 연결 사용자에게는 모두 전송 시도한다.
+        // 안읽음 카운터: 전체 발송은 사용자 수와 무관하게 1행만 증가
+        unreadCounterService.onBroadcast();
+        // 인박스 공유 캐시 무효화(커밋 이후)
+        broadcastNotificationCache.invalidate();
+
+        // 2) SSE 전송은 outbox에 기록만 하고 커밋 이후 전달한다.
+        // - 트랜잭션 안에서 네트워크 I/O를 하지 않고, 롤백되면 아무것도 전달되지 않는다.
+        // 전체 발송은 "개별 delivered" 개념이 애매하므로 delivered=false로 둔다.
         NotificationMessage msg = NotificationMessage.builder()
                 .id(saved.getId())
                 .title(saved.getTitle())
@@ -73,10 +99,8 @@ public class NotificationService {
                 .delivered(false)
                 .build();
 
-        sseEmitterRegistry.sendToAll("notification", msg);
-
-        // 3) unreadCount는 사용자별로 다르므로, 현재 SSE 연결 중인 사용자에게 각각 계산해서 push
-        pushUnreadCountToActiveUsers();
+        // 3) 커밋 이후: 접속자 전원에게 notification + unreadCount push(NotificationOutboxHandler)
+        outboxDispatcher.record(NotificationOutboxHandler.BROADCAST, msg);
 
         return msg;
     }
@@ -100,7 +124,9 @@ public class NotificationService {
                 .createdAt(Instant.now())
                 .build());
 
-        // 2) SSE 전송(타겟에게만)
+        unreadCounterService.onTargeted(targetUsername);
+
+        // 2) SSE 전송(타겟에게만)은 커밋 이후 outbox로 전달
         NotificationMessage msg = NotificationMessage.builder()
                 .id(saved.getId())
                 .title(saved.getTitle())
@@ -111,24 +137,83 @@ public class NotificationService {
                 .delivered(false)
                 .build();
 
-        boolean delivered = sseEmitterRegistry.sendTo(targetUsername, "notification", msg);
-        msg.setDelivered(delivered);
-
-        // 3) unreadCount push(타겟만)
-        long unreadCount = notificationRepository.countUnreadForUser(targetUsername);
-        sseEmitterRegistry.sendTo(targetUsername, "unreadCount", unreadCount);
+        outboxDispatcher.record(NotificationOutboxHandler.TARGETED, msg);
 
         return msg;
     }
 
     /**
-     * 현재 SSE 연결 중인 사용자에게 unreadCount를 계산해 push한다.
-     * - 전체 발송 이후 배지 갱신용
+     * 사용자가 지금 SSE 연결을 가지고 있는지(이 노드 또는 presence 디렉터리 기준).
+     * - 타겟 발송 결과(delivered) 표시용. 발송 트랜잭션 밖에서 호출한다.
+     */
+    public boolean isOnline(String usernameRaw) {
+        return sseDeliveryRouter.isOnline(usernameRaw);
+    }
+
+    /**
+     * SSE 재연결(Last-Event-ID) 시 놓친 알림을 다시 보낸다.
+     *
+     * 순서:
+     * 1) 노드 로컬 링 버퍼에 lastEventId 이후 구간이 빈틈 없이 남아 있으면 메모리에서 재전송(DB 조회 없음)
+     * 2) 버퍼에서 밀려났거나 빈틈이 있으면(resync) DB에서 id > lastEventId 조회(최대 replay-db-limit건)
+     * 3) 그래도 너무 많이 놓쳤으면 resync 이벤트로 클라이언트에게 전체 재조회를 요청
+     *
+     * 재전송이 있었던 경우에만 unreadCount를 1회 push한다.
      */
-    private void pushUnreadCountToActiveUsers() {
-        for (String username : sseEmitterRegistry.activeUsernames()) {
-            long unreadCount = notificationRepository.countUnreadForUser(username);
-            sseEmitterRegistry.sendTo(username, "unreadCount", unreadCount);
+    @Transactional(readOnly = true)
+    public void replaySince(String usernameRaw, long lastEventId) {
+        String username = normalize(usernameRaw);
+
+        SseReplayBuffer.Replay buffered = sseReplayBuffer.since(lastEventId, username);
+
+        // 어느 노드에도 전달되지 못한 타겟 알림이 있으면 이 노드 버퍼만으로는 보장할 수 없다 → DB 복구
+        boolean missedElsewhere = presenceDirectory.lastMissedId(username)
+                .filter(missedId -> missedId > lastEventId)
+                .isPresent();
+
+        if (!buffered.resync() && !missedElsewhere) {
+            List<SseFrame> frames = buffered.frames();
+            if (frames.isEmpty()) {
+                return;
+            }
+            frames.forEach(frame -> sseEmitterRegistry.sendTo(username, frame));
+        } else {
+            List<Notification> missed = notificationRepository.findVisibleForUserAfterId(
+                    username, lastEventId, PageRequest.of(0, replayDbLimit + 1));
+
+            if (missed.size() > replayDbLimit) {
+                sseEmitterRegistry.sendTo(username, "resync", "too-far-behind");
+                return;
+            }
+            if (missed.isEmpty()) {
+                return;
+            }
+            for (Notification n : missed) {
+                NotificationMessage msg = toMessage(n);
+                sseEmitterRegistry.sendTo(username, sseEmitterRegistry.encode("notification", msg.getId(), msg));
+            }
         }
+
+        unreadCountPusher.request(username);
+    }
+
+    private NotificationMessage toMessage(Notification n) {
+        return NotificationMessage.builder()
+                .id(n.getId())
+                .title(n.getTitle())
+                .body(n.getBody())
+                .sender(n.getSender())
+                .target(n.getTargetType() == NotificationTargetType.ALL ? "ALL" : n.getTargetUsername())
+                .createdAt(n.getCreatedAt())
+                .delivered(false)
+                .build();
+    }
+
+    /**
+     * 현재(이 노드에) SSE 연결 중인 사용자에게 unreadCount를 계산해 push한다.
+     * - 전체 발송 이후 배지 갱신용(다른 노드는 sse:broadcast 수신 시 각자 호출)
+     */
+    public void pushUnreadCountToActiveUsers() {
+        unreadCountPusher.requestAll(sseEmitterRegistry.activeUsernames());
     }
 }
@@ -0,0 +1,143 @@
+package kr.java.sse_websocket.notifications.service;
+
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.notifications.cluster.SseDeliveryRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 사용자별 unreadCount push 합치기(debounce + coalesce).
+ *
+ * 문제:
+ * - 발송/읽음 처리마다 unreadCount 계산 + 프레임이 1개씩 나간다.
+ *   (admin이 50건 연속 발송, 사용자가 30건 연속 읽음 → 사용자당 수십 번의 동일 조회/프레임)
+ *
+ * 해결:
+ * - request(username)는 "갱신 필요" 표시만 하고, debounce-ms 뒤에 1번만 계산/전송한다.
+ * - 그 사이에 들어온 요청은 이미 예약된 1건에 합쳐진다.
+ * - 트랜잭션 안에서 요청되면 커밋 이후에 예약한다(커밋 전 값으로 계산하지 않도록). 롤백되면 예약하지 않는다.
+ * - 같은 사용자의 flush는 겹치지 않는다. 계산이 debounce-ms보다 오래 걸려도 다음 flush는 앞의 전송이 끝난 뒤에
+ *   계산하므로, 먼저 계산한 (오래된) 값이 나중에 도착하는 일이 없다.
+ */
+@Slf4j
+@Component
+public class UnreadCountPusher {
+
+    private final UnreadCounterService unreadCounterService;
+    private final SseDeliveryRouter sseDeliveryRouter;
+    private final long debounceMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // 예약된(아직 계산 전) 사용자
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // 지금 계산/전송 중인 사용자
+    private final Set<String> flushing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong pushed = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    public UnreadCountPusher(UnreadCounterService unreadCounterService,
+                             SseDeliveryRouter sseDeliveryRouter,
+                             @Value("${notifications.unread-count.debounce-ms:200}") long debounceMillis,
+                             @Value("${notifications.unread-count.threads:2}") int threads) {
+        this.unreadCounterService = unreadCounterService;
+        this.sseDeliveryRouter = sseDeliveryRouter;
+        this.debounceMillis = debounceMillis;
+        this.scheduler = Executors.newScheduledThreadPool(threads, new CustomizableThreadFactory("unread-count-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 사용자 unreadCount 갱신을 요청한다(즉시 반환).
+     */
+    public void request(String usernameRaw) {
+        String username = normalize(usernameRaw);
+        if (username == null) {
+            return;
+        }
+        afterCommit(() -> schedule(username));
+    }
+
+    /**
+     * 여러 사용자 갱신 요청(전체 발송 후 접속자 전원 등).
+     */
+    public void requestAll(Collection<String> usernames) {
+        afterCommit(() -> usernames.forEach(u -> schedule(normalize(u))));
+    }
+
+    private void schedule(String username) {
+        requested.incrementAndGet();
+        if (pending.add(username)) {
+            scheduler.schedule(() -> flush(username), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(String username) {
+        if (!flushing.add(username)) {
+            // 앞의 flush가 아직 진행 중: 예약(pending)은 그대로 두고 뒤로 미룬다(그 사이 요청도 계속 여기에 합쳐진다).
+            deferred.incrementAndGet();
+            scheduler.schedule(() -> flush(username), debounceMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        // 계산 전에 먼저 빼야, 계산 중 들어온 요청이 다음 flush로 예약된다.
+        pending.remove(username);
+        try {
+            long unreadCount = unreadCounterService.unreadCount(username);
+            sseDeliveryRouter.sendToUser(username, "unreadCount", unreadCount);
+            pushed.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("[SSE] unreadCount push failed username={}, msg={}", username, e.getMessage());
+        } finally {
+            flushing.remove(username);
+        }
+    }
+
+    private void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 누적 요청/실제 push 건수. saved = 합쳐져서 생략된 계산+프레임 수,
+     * deferred = 같은 사용자의 앞 flush가 끝나지 않아 뒤로 미룬 횟수.
+     */
+    public Map<String, Long> stats() {
+        long req = requested.get();
+        long push = pushed.get();
+        return Map.of(
+                "requested", req,
+                "pushed", push,
+                "saved", Math.max(0, req - push),
+                "deferred", deferred.get(),
+                "pending", (long) pending.size()
+        );
+    }
+}
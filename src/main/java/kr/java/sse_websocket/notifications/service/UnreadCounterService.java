@@ -0,0 +1,295 @@
+package kr.java.sse_websocket.notifications.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.domain.NotificationCounter;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.repository.NotificationCounterRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static kr.java.sse_websocket.common.UsernameNormalizer.normalize;
+
+/**
+ * 안읽음 카운트(증분 카운터).
+ *
+ * 문제:
+ * - 기존 countUnreadForUser는 OR + NOT EXISTS anti-join이라 알림/읽음 테이블이 커질수록 느려졌다.
+ * - 전체 발송마다 접속자 수만큼 이 쿼리가 돈다(접속자 수 × 테이블 크기).
+ *
+ * 해결:
+ * - 발송/첫 읽음 시점에 카운터를 증감하고, 배지 조회는 PK 조회 1번으로 끝낸다.
+ *   - 전체 발송: broadcast:total +1 (사용자 수와 무관하게 1행)
+ *   - 타겟 발송: user:{u}:targeted-unread +1
+ *   - 첫 읽음: 전체 알림이면 user:{u}:broadcast-read +1, 타겟 알림이면 targeted-unread -1
+ * - 증감은 발송/읽음 트랜잭션에 함께 묶이므로 롤백되면 카운터도 롤백된다.
+ *
+ * 초기화(기존 DB에 카운터 행이 없는 경우):
+ * - 행이 없으면 UNSEEDED(-1)로 만들고, 값은 원본 테이블로 계산해 채운다.
+ *   broadcast:total은 기동 시, 사용자 키는 첫 조회(unreadCount) 시.
+ * - UNSEEDED인 동안의 증감은 건너뛴다(나중 계산에 포함된다). 델타만 든 행이 생겨 초기화가 막히지 않는다.
+ * - 사용자 키 2개는 broadcast-read 행 잠금 하나로 묶는다. 증감과 초기화/보정이 같은 행에서 줄을 서므로
+ *   "계산 후 덮어쓰기" 사이에 끼어든 증감이 사라지지 않는다.
+ *
+ * 정합성 보정:
+ * - DB를 직접 수정하면 카운터가 어긋날 수 있다.
+ * - reconcile-interval-ms마다 같은 잠금 아래에서 원본 테이블로 다시 계산해 덮어쓴다(drift 건수는 stats로 확인).
+ */
+@Slf4j
+@Service
+public class UnreadCounterService {
+
+    static final String BROADCAST_TOTAL = "broadcast:total";
+    static final long UNSEEDED = -1;
+
+    private final NotificationCounterRepository counterRepository;
+    private final NotificationRepository notificationRepository;
+    private final BroadcastReadTracker broadcastReadTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final long reconcileIntervalMillis;
+
+    private final ScheduledExecutorService reconciler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("unread-counter-"));
+
+    private final AtomicLong reconciled = new AtomicLong();
+    private final AtomicLong drifted = new AtomicLong();
+
+    public UnreadCounterService(NotificationCounterRepository counterRepository,
+                                NotificationRepository notificationRepository,
+                                BroadcastReadTracker broadcastReadTracker,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${notifications.unread-counter.reconcile-interval-ms:600000}") long reconcileIntervalMillis) {
+        this.counterRepository = counterRepository;
+        this.notificationRepository = notificationRepository;
+        this.broadcastReadTracker = broadcastReadTracker;
+        this.transactionTemplate = transactionTemplate;
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    @PostConstruct
+    void start() {
+        // 기존 DB(알림은 있고 카운터는 없음)면 broadcast:total을 원본 기준으로 채운다.
+        reconciler.execute(this::reconcileTotalSafely);
+        if (reconcileIntervalMillis <= 0) {
+            return;
+        }
+        reconciler.scheduleWithFixedDelay(this::reconcileAll,
+                reconcileIntervalMillis, reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        reconciler.shutdownNow();
+    }
+
+    static String targetedUnreadKey(String username) {
+        return "user:" + username + ":targeted-unread";
+    }
+
+    static String broadcastReadKey(String username) {
+        return "user:" + username + ":broadcast-read";
+    }
+
+    /**
+     * 전체 발송 1건(발송 트랜잭션 안에서 호출).
+     */
+    public void onBroadcast() {
+        if (lockSeeded(BROADCAST_TOTAL)) {
+            counterRepository.increment(BROADCAST_TOTAL, 1);
+        }
+    }
+
+    /**
+     * 타겟 발송 1건(발송 트랜잭션 안에서 호출).
+     */
+    public void onTargeted(String usernameRaw) {
+        String username = normalize(usernameRaw);
+        if (lockSeeded(broadcastReadKey(username))) {
+            counterRepository.increment(targetedUnreadKey(username), 1);
+        }
+    }
+
+    /**
+     * 첫 읽음 1건(읽음 저장과 같은 트랜잭션 안에서 호출).
+     * - 본인에게 보이지 않는 알림(다른 사용자 타겟)은 카운트에 영향이 없다.
+     */
+    public void onFirstRead(String usernameRaw, Notification notification) {
+        String username = normalize(usernameRaw);
+        boolean broadcast = notification.getTargetType() == NotificationTargetType.ALL;
+        if (!broadcast && !username.equals(notification.getTargetUsername())) {
+            return;
+        }
+        if (!lockSeeded(broadcastReadKey(username))) {
+            return;
+        }
+        if (broadcast) {
+            counterRepository.increment(broadcastReadKey(username), 1);
+        } else {
+            counterRepository.increment(targetedUnreadKey(username), -1);
+        }
+    }
+
+    /**
+     * 일괄 읽음(같은 트랜잭션 안에서 1번 호출).
+     */
+    public void onReads(String usernameRaw, int broadcastReads, int targetedReads) {
+        String username = normalize(usernameRaw);
+        if (!lockSeeded(broadcastReadKey(username))) {
+            return;
+        }
+        if (broadcastReads > 0) {
+            counterRepository.increment(broadcastReadKey(username), broadcastReads);
+        }
+        if (targetedReads > 0) {
+            counterRepository.increment(targetedUnreadKey(username), -targetedReads);
+        }
+    }
+
+    /**
+     * 사용자 안읽음 카운트(PK 조회 1번).
+     */
+    public long unreadCount(String usernameRaw) {
+        String username = normalize(usernameRaw);
+        String targetedKey = targetedUnreadKey(username);
+        String readKey = broadcastReadKey(username);
+
+        Map<String, Long> values = counterRepository.findAllById(List.of(BROADCAST_TOTAL, targetedKey, readKey))
+                .stream()
+                .collect(Collectors.toMap(NotificationCounter::getCounterKey, NotificationCounter::getCounterValue));
+
+        long total = values.getOrDefault(BROADCAST_TOTAL, UNSEEDED);
+        if (total == UNSEEDED) {
+            total = reconcileTotal();
+        }
+        long read = values.getOrDefault(readKey, UNSEEDED);
+        if (read == UNSEEDED) {
+            // 아직 초기화되지 않은 사용자: 원본 테이블 기준으로 1번 계산
+            long[] seeded = reconcileUser(username);
+            return unreadFrom(total, seeded[0], seeded[1]);
+        }
+        return unreadFrom(total, values.getOrDefault(targetedKey, 0L), read);
+    }
+
+    /**
+     * 카운터 행을 잠그고 초기화 여부를 돌려준다(호출자 트랜잭션 안에서, 커밋까지 잠금 유지).
+     * - 행이 없으면 UNSEEDED로 만든다. UNSEEDED면 증감을 건너뛴다(초기화 계산이 이 변경까지 센다).
+     */
+    private boolean lockSeeded(String key) {
+        counterRepository.insertIfAbsent(key, UNSEEDED);
+        Long current = counterRepository.lockValue(key);
+        return current != null && current != UNSEEDED;
+    }
+
+    private static long unreadFrom(long total, long targetedUnread, long broadcastRead) {
+        return Math.max(0, total - broadcastRead) + Math.max(0, targetedUnread);
+    }
+
+    /**
+     * 전체/초기화된 사용자 카운터를 원본 테이블 기준으로 다시 맞춘다.
+     */
+    public void reconcileAll() {
+        try {
+            reconcileTotal();
+            for (String key : counterRepository.findUserSeedKeys()) {
+                reconcileUser(key.substring("user:".length(), key.length() - ":broadcast-read".length()));
+            }
+        } catch (Exception e) {
+            // 예외가 밖으로 나가면 scheduleWithFixedDelay가 멈추므로 여기서 끊는다.
+            log.warn("[NOTI] unread counter reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private void reconcileTotalSafely() {
+        try {
+            reconcileTotal();
+        } catch (Exception e) {
+            log.warn("[NOTI] unread counter seed failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * broadcast:total 행을 잠근 채로 다시 센다(잠금 동안 전체 발송 트랜잭션은 카운터 증가에서 기다린다).
+     */
+    private long reconcileTotal() {
+        return transactionTemplate.execute(status -> {
+            counterRepository.insertIfAbsent(BROADCAST_TOTAL, UNSEEDED);
+            long current = counterRepository.lockValue(BROADCAST_TOTAL);
+            long total = notificationRepository.countByTargetType(NotificationTargetType.ALL);
+            overwrite(BROADCAST_TOTAL, current, total);
+            return total;
+        });
+    }
+
+    /**
+     * 사용자 카운터를 원본 테이블 기준으로 다시 계산한다(전체 읽음 처리 등 증감량을 알기 어려운 경우).
+     */
+    public void recount(String usernameRaw) {
+        reconcileUser(normalize(usernameRaw));
+    }
+
+    /**
+     * broadcast-read 행을 잠근 채로 사용자 카운터 2개를 다시 계산한다.
+     * - 잠금을 먼저 잡으므로 이후 계산은 앞서 커밋된 증감을 모두 보고, 이후 증감은 이 트랜잭션 커밋을 기다린다.
+     *
+     * @return {targeted-unread, broadcast-read}
+     */
+    private long[] reconcileUser(String username) {
+        return transactionTemplate.execute(status -> {
+            String targetedKey = targetedUnreadKey(username);
+            String readKey = broadcastReadKey(username);
+            counterRepository.insertIfAbsent(readKey, UNSEEDED);
+            long currentRead = counterRepository.lockValue(readKey);
+            Long currentTargeted = counterRepository.findById(targetedKey)
+                    .map(NotificationCounter::getCounterValue).orElse(UNSEEDED);
+
+            long targeted = targetedUnread(username);
+            long read = broadcastReads(username);
+            // 초기화 전(UNSEEDED)에 쌓인 타겟 행 값은 drift로 세지 않는다.
+            overwrite(targetedKey, currentRead == UNSEEDED ? UNSEEDED : currentTargeted, targeted);
+            overwrite(readKey, currentRead, read);
+            return new long[]{targeted, read};
+        });
+    }
+
+    private long targetedUnread(String username) {
+        return notificationRepository.countUnreadTargetedForUser(username);
+    }
+
+    private long broadcastReads(String username) {
+        return broadcastReadTracker.countReads(username);
+    }
+
+    private void overwrite(String key, long current, long actual) {
+        if (current != UNSEEDED && current != actual) {
+            drifted.incrementAndGet();
+            log.info("[NOTI] unread counter drift key={}, counter={}, actual={}", key, current, actual);
+        }
+        if (current != actual) {
+            counterRepository.set(key, actual);
+        }
+        reconciled.incrementAndGet();
+    }
+
+    /**
+     * 보정 검사한 카운터 수 / 어긋나 있던 카운터 수(디버그용).
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "reconciled", reconciled.get(),
+                "drifted", drifted.get()
+        );
+    }
+}
@@ -0,0 +1,63 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * 알림 목록 keyset 페이지네이션 커서.
+ *
+ * - 마지막으로 내려준 알림의 (createdAt, id)를 담는다. 다음 페이지는 이보다 "이전" 알림만 조회한다.
+ * - 클라이언트에는 불투명한 문자열(base64url)로만 내려준다(형식에 의존하지 않도록).
+ */
+public final class NotificationCursor {
+
+    private final Instant createdAt;
+    private final long id;
+
+    private NotificationCursor(Instant createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static NotificationCursor after(Notification last) {
+        return new NotificationCursor(last.getCreatedAt(), last.getId());
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    /**
+     * "epochSecond.nano:id" → base64url
+     */
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NotificationCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            if (colon < 0 || dot < 0 || dot > colon) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+            Instant createdAt = Instant.ofEpochSecond(
+                    Long.parseLong(raw.substring(0, dot)),
+                    Long.parseLong(raw.substring(dot + 1, colon)));
+            return new NotificationCursor(createdAt, Long.parseLong(raw.substring(colon + 1)));
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            // NumberFormatException, base64 오류, Instant 범위 초과 포함
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * SSE 연결 1개 = SseEmitter + 전용 outbound 큐.
+ *
+ * 설계 의도:
+ * - 발송 쪽(broadcast/sendTo)은 큐에 넣기만 하고 즉시 반환한다.
+ * - 실제 emitter.send(blocking I/O)는 writer 풀에서 연결별로 순서대로 수행한다.
+ *   => 느린 브라우저 1개가 다른 사용자 전송이나 DB 트랜잭션을 붙잡지 않는다.
+ *
+ * 규칙:
+ * - 한 연결의 drain 작업은 동시에 1개만 실행된다(draining 플래그) → 이벤트 순서 보장
+ * - 큐가 가득 차면(느린 소비자) 연결을 끊는다. 클라이언트는 EventSource 재연결로 복구한다.
+ */
+@Slf4j
+public class SseConnection {
+
+    /** 한 번 drain에서 처리할 최대 건수(다른 연결에게 writer 스레드를 양보하기 위함) */
+    private static final int MAX_DRAIN_BATCH = 64;
+
+    @Getter
+    private final String username;
+
+    @Getter
+    private final SseEmitter emitter;
+
+    private final BlockingQueue<Outbound> queue;
+    private final Executor writerExecutor;
+    private final Executor closeExecutor;
+    private final Consumer<SseConnection> onClosed;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    // 통계(디버그 API로 노출)
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long lastDrainLatencyNanos;
+    private volatile long maxDrainLatencyNanos;
+
+    // heartbeat/reaper 판단용
+    private volatile long lastWriteNanos = System.nanoTime();
+    private volatile long writingSinceNanos;   // 0이면 write 진행 중 아님
+
+    public SseConnection(String username,
+                         SseEmitter emitter,
+                         int queueCapacity,
+                         Executor writerExecutor,
+                         Executor closeExecutor,
+                         Consumer<SseConnection> onClosed) {
+        this.username = username;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerExecutor = writerExecutor;
+        this.closeExecutor = closeExecutor;
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * 이벤트를 큐에 넣는다(논블로킹).
+     * @return 큐 적재 성공 여부(이미 닫혔거나 큐가 가득 차면 false)
+     */
+    public boolean offer(SseFrame frame) {
+        if (closed.get()) {
+            return false;
+        }
+
+        if (!queue.offer(new Outbound(frame, System.nanoTime()))) {
+            dropped.incrementAndGet();
+            log.warn("[SSE] outbound queue full username={}, depth={} -> close", username, queue.size());
+            close();
+            return false;
+        }
+
+        enqueued.incrementAndGet();
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * 연결을 닫는다(중복 호출 안전).
+     * - 남은 큐는 버린다. 누락분은 재연결 후 목록 API로 복구한다.
+     * - emitter.complete()는 진행 중인 write와 같은 lock을 잡으므로,
+     *   호출 스레드(발송 쪽/reaper)가 멈추지 않도록 별도 close 풀에서 수행한다.
+     *   멈춘 write에 막힌 complete가 writer 스레드를 붙잡아 다른 연결 전송까지 멈추는 일을 막기 위함이다.
+     *   (막힌 complete는 멈춘 write가 소켓 write timeout으로 실패할 때 함께 풀린다)
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        onClosed.accept(this);
+        try {
+            closeExecutor.execute(this::completeQuietly);
+        } catch (RejectedExecutionException e) {
+            completeQuietly();
+        }
+    }
+
+    private void completeQuietly() {
+        try {
+            emitter.complete();
+        } catch (Exception ignored) {
+            // 이미 끊긴 연결이면 complete도 실패할 수 있다.
+        }
+    }
+
+    /**
+     * emitter 콜백(completion/timeout/error)에서 호출.
+     * - 컨테이너가 이미 연결을 정리했으므로 complete()는 호출하지 않는다.
+     */
+    void markClosed() {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            onClosed.accept(this);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writerExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 종료 중(shutdown)인 경우
+            draining.set(false);
+            close();
+        }
+    }
+
+    private void drain() {
+        try {
+            int n = 0;
+            Outbound next;
+            while (n < MAX_DRAIN_BATCH && !closed.get() && (next = queue.poll()) != null) {
+                // 미리 인코딩된 byte[]를 그대로 write(연결마다 재직렬화하지 않음)
+                writingSinceNanos = System.nanoTime();
+                emitter.send(next.frame().parts());
+                writingSinceNanos = 0;
+                lastWriteNanos = System.nanoTime();
+                sent.incrementAndGet();
+                recordLatency(System.nanoTime() - next.enqueuedAtNanos());
+                n++;
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.warn("[SSE] write fail username={}, msg={}", username, e.getMessage());
+            close();
+        } finally {
+            draining.set(false);
+        }
+
+        // drain 종료와 offer가 경합했을 수 있으므로 한 번 더 확인
+        if (!closed.get() && !queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 마지막 write 이후 interval 이상 아무것도 보내지 않았는지(heartbeat 필요 여부).
+     */
+    boolean isIdle(long nowNanos, long intervalNanos) {
+        return queue.isEmpty() && nowNanos - lastWriteNanos >= intervalNanos;
+    }
+
+    /**
+     * write가 진척 없이 멈춰 있는지(half-open TCP, 멈춘 브라우저 등).
+     * - 진행 중인 write가 timeout 이상 끝나지 않았거나
+     * - 큐 맨 앞 이벤트가 timeout 이상 대기 중이면 죽은 연결로 본다.
+     */
+    boolean isStalled(long nowNanos, long timeoutNanos) {
+        long writingSince = writingSinceNanos;
+        if (writingSince != 0 && nowNanos - writingSince > timeoutNanos) {
+            return true;
+        }
+        Outbound head = queue.peek();
+        return head != null && nowNanos - head.enqueuedAtNanos() > timeoutNanos;
+    }
+
+    private void recordLatency(long nanos) {
+        lastDrainLatencyNanos = nanos;
+        if (nanos > maxDrainLatencyNanos) {
+            maxDrainLatencyNanos = nanos;
+        }
+    }
+
+    public SseConnectionStats stats() {
+        return SseConnectionStats.builder()
+                .username(username)
+                .queueDepth(queue.size())
+                .enqueued(enqueued.get())
+                .sent(sent.get())
+                .dropped(dropped.get())
+                .lastDrainLatencyMicros(lastDrainLatencyNanos / 1_000)
+                .maxDrainLatencyMicros(maxDrainLatencyNanos / 1_000)
+                .lastWriteAgoMillis((System.nanoTime() - lastWriteNanos) / 1_000_000)
+                .build();
+    }
+
+    /**
+     * 큐에 쌓이는 전송 단위.
+     * - enqueuedAtNanos: 큐 적재 ~ 실제 write 완료까지의 지연(drain latency) 계산용
+     */
+    private record Outbound(SseFrame frame, long enqueuedAtNanos) {
+    }
+}
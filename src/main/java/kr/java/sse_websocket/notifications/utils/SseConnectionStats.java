@@ -0,0 +1,24 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 연결별 outbound 큐 상태(디버그/모니터링용).
+ *
+ * - queueDepth: 현재 큐에 쌓여 있는 이벤트 수
+ * - lastDrainLatencyMicros / maxDrainLatencyMicros: 큐 적재 ~ write 완료까지 걸린 시간
+ * - lastWriteAgoMillis: 마지막 write(heartbeat 포함) 이후 경과 시간
+ */
+@Data
+@Builder
+public class SseConnectionStats {
+    private String username;
+    private int queueDepth;
+    private long enqueued;
+    private long sent;
+    private long dropped;
+    private long lastDrainLatencyMicros;
+    private long maxDrainLatencyMicros;
+    private long lastWriteAgoMillis;
+}
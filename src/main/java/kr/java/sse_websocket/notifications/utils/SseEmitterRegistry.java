@@ -1,14 +1,25 @@
 package kr.java.sse_websocket.notifications.utils;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.notifications.cluster.SsePresenceDirectory;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * STEP 02
@@ -30,13 +41,58 @@ import java.util.concurrent.ConcurrentHashMap;
  * 핵심:
  * - 키 불일치 방지를 위해 username을 정규화(trim + lowercase)한다.
  * - sendTo 결과(boolean)를 통해 "현재 실시간 전달 성공 여부"를 판단할 수 있다.
+ *
+ * 전송(STEP 04, 연결별 outbound 큐):
+ * - sendTo/sendToAll은 각 연결의 큐에 넣기만 하고 바로 반환한다(@Transactional 안에서 호출돼도 안전).
+ * - 실제 write는 writer 풀이 연결 단위로 순서대로 수행한다.
+ * - write는 blocking I/O라 멈춘 클라이언트 1개가 writer 스레드 1개를 소켓 write timeout까지 붙잡는다.
+ *   그래서 풀은 CPU 수가 아니라 "동시에 멈출 수 있는 연결 수" 기준으로 넉넉히 잡고(writer-threads),
+ *   쉬는 스레드는 keep-alive 후 반납한다. 멈춘 연결은 SseHeartbeatWheel이 정리해 새 drain을 받지 않는다.
+ * - 연결별 큐 깊이/drain 지연은 stats()로 확인한다(SseDebugController).
  */
 @Slf4j
 @Component
 public class SseEmitterRegistry {
 
-    // username(normalized) -> SseEmitter
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 60;
+
+    // username(normalized) -> 연결(emitter + outbound 큐)
+    private final Map<String, SseConnection> connections = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper;
+    private final SseHeartbeatWheel heartbeatWheel;
+    private final SsePresenceDirectory presenceDirectory;
+    private final int queueCapacity;
+    private final long emitterTimeoutMillis;
+    private final ExecutorService writerExecutor;
+    // 연결 종료(emitter.complete) 전용. 멈춘 write의 lock을 기다릴 수 있어 writer 풀과 분리한다.
+    private final ExecutorService closeExecutor =
+            Executors.newCachedThreadPool(new CustomizableThreadFactory("sse-closer-"));
+
+    public SseEmitterRegistry(ObjectMapper objectMapper,
+                              SseHeartbeatWheel heartbeatWheel,
+                              SsePresenceDirectory presenceDirectory,
+                              @Value("${notifications.sse.queue-capacity:256}") int queueCapacity,
+                              @Value("${notifications.sse.writer-threads:64}") int writerThreads,
+                              @Value("${notifications.sse.emitter-timeout-ms:0}") long emitterTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.heartbeatWheel = heartbeatWheel;
+        this.presenceDirectory = presenceDirectory;
+        this.queueCapacity = queueCapacity;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        // 연결당 drain 작업은 최대 1개라 대기열은 연결 수 이상 커지지 않는다.
+        ThreadPoolExecutor writers = new ThreadPoolExecutor(writerThreads, writerThreads,
+                WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("sse-writer-"));
+        writers.allowCoreThreadTimeOut(true);
+        this.writerExecutor = writers;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writerExecutor.shutdownNow();
+        closeExecutor.shutdownNow();
+    }
 
     /**
      * username 정규화.
@@ -55,24 +111,34 @@ public class SseEmitterRegistry {
     public SseEmitter add(String usernameRaw) {
         String username = key(usernameRaw);
 
-        // timeout 없음(학습용). 운영에서는 적정 timeout 권장.
-        SseEmitter emitter = new SseEmitter(0L);
-        emitters.put(username, emitter);
+        // 기본은 timeout 없음(0). 죽은 연결은 SseHeartbeatWheel이 heartbeat/stall 검사로 정리한다.
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        SseConnection connection = new SseConnection(username, emitter, queueCapacity, writerExecutor,
+                closeExecutor, this::onConnectionClosed);
+
+        // 같은 사용자의 이전 연결(다른 탭 등)은 교체 후 정리
+        SseConnection previous = connections.put(username, connection);
+        if (previous != null) {
+            previous.close();
+        }
+
+        heartbeatWheel.register(connection);
+        presenceDirectory.register(username);
 
-        log.info("[SSE] add username={}, active={}", username, emitters.keySet());
+        log.info("[SSE] add username={}, active={}", username, connections.keySet());
 
         // 연결 종료/타임아웃/에러 발생 시 제거(메모리 누수 방지)
         emitter.onCompletion(() -> {
-            emitters.remove(username);
-            log.info("[SSE] completion username={}, active={}", username, emitters.keySet());
+            connection.markClosed();
+            log.info("[SSE] completion username={}, active={}", username, connections.keySet());
         });
         emitter.onTimeout(() -> {
-            emitters.remove(username);
-            log.info("[SSE] timeout username={}, active={}", username, emitters.keySet());
+            connection.markClosed();
+            log.info("[SSE] timeout username={}, active={}", username, connections.keySet());
         });
         emitter.onError(e -> {
-            emitters.remove(username);
-            log.info("[SSE] error username={}, msg={}, active={}", username, e.getMessage(), emitters.keySet());
+            connection.markClosed();
+            log.info("[SSE] error username={}, msg={}, active={}", username, e.getMessage(), connections.keySet());
         });
 
         return emitter;
@@ -80,49 +146,97 @@ public class SseEmitterRegistry {
 
     public void remove(String usernameRaw) {
         String username = key(usernameRaw);
-        emitters.remove(username);
-        log.info("[SSE] remove username={}, active={}", username, emitters.keySet());
+        SseConnection connection = connections.get(username);
+        if (connection != null) {
+            connection.close();
+        }
+        log.info("[SSE] remove username={}, active={}", username, connections.keySet());
+    }
+
+    /**
+     * 연결 종료 공통 처리.
+     * - remove(key, value): 교체된 이전 연결이 새 연결을 지우지 않도록 한다.
+     * - 실제로 제거된 경우에만 presence를 해제한다.
+     */
+    private void onConnectionClosed(SseConnection closed) {
+        if (connections.remove(closed.getUsername(), closed)) {
+            presenceDirectory.unregister(closed.getUsername());
+        }
+    }
+
+    /**
+     * 이 노드에 해당 사용자의 SSE 연결이 있는지.
+     */
+    public boolean isConnected(String usernameRaw) {
+        return connections.containsKey(key(usernameRaw));
+    }
+
+    /**
+     * 이벤트를 SSE 프레임(byte[])으로 1회 인코딩한다.
+     * - 같은 프레임을 여러 연결에 재사용할 때 사용
+     */
+    public SseFrame encode(String eventName, Object data) {
+        return SseFrame.of(eventName, data, objectMapper);
+    }
+
+    /**
+     * id가 있는 프레임 인코딩(Last-Event-ID 재연결 복구 대상 이벤트).
+     */
+    public SseFrame encode(String eventName, Long id, Object data) {
+        return SseFrame.of(eventName, id, data, objectMapper);
     }
 
     /**
-     * 특정 사용자에게 이벤트를 전송한다.
-     * @return 전송 성공 여부(미접속/전송 실패면 false)
+     * 특정 사용자에게 이벤트를 전송한다(큐 적재 후 즉시 반환).
+     * @return 큐 적재 성공 여부(미접속/큐 포화면 false)
      */
     public boolean sendTo(String usernameRaw, String eventName, Object data) {
+        return sendTo(usernameRaw, encode(eventName, data));
+    }
+
+    /**
+     * 미리 인코딩된 프레임을 특정 사용자에게 전송한다.
+     */
+    public boolean sendTo(String usernameRaw, SseFrame frame) {
         String username = key(usernameRaw);
 
-        SseEmitter emitter = emitters.get(username);
-        if (emitter == null) {
-            log.warn("[SSE] sendTo fail(no emitter) username={}, active={}", username, emitters.keySet());
+        SseConnection connection = connections.get(username);
+        if (connection == null) {
+            log.warn("[SSE] sendTo fail(no emitter) username={}, active={}", username, connections.keySet());
             return false;
         }
 
-        try {
-            emitter.send(SseEmitter.event().name(eventName).data(data));
-            log.info("[SSE] sendTo ok username={}, event={}", username, eventName);
-            return true;
-        } catch (IOException e) {
-            emitters.remove(username);
-            log.warn("[SSE] sendTo fail(io) username={}, msg={}", username, e.getMessage());
-            return false;
-        }
+        boolean queued = connection.offer(frame);
+        log.debug("[SSE] sendTo queued={} username={}, event={}", queued, username, frame.eventName());
+        return queued;
     }
 
+    /**
+     * 전체 발송: 직렬화는 1번, 모든 연결이 같은 byte[]를 공유한다.
+     */
     public void sendToAll(String eventName, Object data) {
-        emitters.forEach((username, emitter) -> {
-            try {
-                emitter.send(SseEmitter.event().name(eventName).data(data));
-                log.info("[SSE] sendToAll ok username={}, event={}", username, eventName);
-            } catch (IOException e) {
-                emitters.remove(username);
-                log.warn("[SSE] sendToAll fail(io) username={}, msg={}", username, e.getMessage());
-            }
-        });
+        sendToAll(encode(eventName, data));
+    }
+
+    public void sendToAll(SseFrame frame) {
+        connections.values().forEach(connection -> connection.offer(frame));
+        log.debug("[SSE] sendToAll queued event={}, bytes={}, active={}", frame.eventName(), frame.size(), connections.size());
     }
 
     // 디버그를 위해 현재 활성 username 목록을 노출(아래 DebugController에서 사용)
     public Map<String, SseEmitter> snapshot() {
-        return Map.copyOf(emitters);
+        Map<String, SseEmitter> copy = new HashMap<>();
+        connections.forEach((username, connection) -> copy.put(username, connection.getEmitter()));
+        return Map.copyOf(copy);
+    }
+
+    /**
+     * 연결별 outbound 큐 상태(큐 깊이, drain 지연).
+     */
+    public List<SseConnectionStats> stats() {
+        return connections.values().stream()
+                .map(SseConnection::stats)
+                .toList();
     }
 
 
@@ -131,6 +245,6 @@ public class SseEmitterRegistry {
      * - unreadCount push 등을 위해 사용
      */
     public Set<String> activeUsernames() {
-        return Set.copyOf(emitters.keySet());
+        return Set.copyOf(connections.keySet());
     }
 }
\ No newline at end of file
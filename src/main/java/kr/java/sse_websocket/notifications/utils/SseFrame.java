@@ -0,0 +1,110 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 미리 인코딩된 SSE 이벤트 프레임.
+ *
+ * 문제:
+ * - SseEmitter.event().data(obj)는 emitter마다 Jackson 직렬화를 다시 한다.
+ *   (접속자 20k명에게 broadcast = 동일 JSON 인코딩 20k번)
+ *
+ * 해결:
+ * - "event:...\ndata:...\n\n" 전체를 byte[]로 한 번만 만든다.
+ * - 모든 emitter에는 같은 byte[]를 그대로 write한다(ByteArrayHttpMessageConverter 경유, 재직렬화 없음).
+ *
+ * 불변 객체이므로 여러 연결의 큐에서 공유해도 안전하다.
+ */
+public final class SseFrame {
+
+    private final String eventName;
+    private final byte[] bytes;
+    private final Set<DataWithMediaType> parts;
+
+    private SseFrame(String eventName, byte[] bytes) {
+        this.eventName = eventName;
+        this.bytes = bytes;
+        this.parts = Set.of(new DataWithMediaType(bytes, MediaType.TEXT_PLAIN));
+    }
+
+    /**
+     * 이벤트를 1회 직렬화해서 프레임을 만든다.
+     * - 문자열 data는 그대로, 그 외(객체/숫자)는 JSON으로 인코딩한다(SseEmitter 기본 동작과 동일).
+     */
+    public static SseFrame of(String eventName, Object data, ObjectMapper objectMapper) {
+        return of(eventName, null, data, objectMapper);
+    }
+
+    /**
+     * id가 있는 프레임.
+     * - 브라우저(EventSource)는 마지막으로 받은 id를 재연결 시 Last-Event-ID 헤더로 보낸다.
+     * - id가 없는 프레임(unreadCount 등)은 브라우저의 마지막 id를 바꾸지 않는다.
+     */
+    public static SseFrame of(String eventName, Long id, Object data, ObjectMapper objectMapper) {
+        String text;
+        if (data instanceof CharSequence cs) {
+            text = cs.toString();
+        } else {
+            try {
+                text = objectMapper.writeValueAsString(data);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("SSE data serialization failed: " + eventName, e);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + eventName.length() + 16);
+        if (id != null) {
+            sb.append("id:").append(id).append('\n');
+        }
+        sb.append("event:").append(eventName).append('\n');
+        // SSE 규칙: data 안의 줄바꿈은 data: 라인을 나눠서 보낸다.
+        for (String line : text.split("\n", -1)) {
+            sb.append("data:").append(line).append('\n');
+        }
+        sb.append('\n');
+
+        return new SseFrame(eventName, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 주석 프레임(": text\n\n").
+     * - EventSource는 주석을 이벤트로 전달하지 않으므로 heartbeat 용도로 가장 저렴하다.
+     */
+    public static SseFrame comment(String text) {
+        return new SseFrame("comment", (":" + text + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 다른 노드에서 인코딩된 프레임 텍스트를 그대로 복원한다(재직렬화 없음).
+     */
+    public static SseFrame fromText(String eventName, String text) {
+        return new SseFrame(eventName, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 인코딩된 프레임 원문(노드 간 전달용) */
+    public String text() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String eventName() {
+        return eventName;
+    }
+
+    /** 인코딩된 프레임 크기(byte) */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * ResponseBodyEmitter.send(Set)에 그대로 넘길 수 있는 형태.
+     */
+    Set<DataWithMediaType> parts() {
+        return parts;
+    }
+}
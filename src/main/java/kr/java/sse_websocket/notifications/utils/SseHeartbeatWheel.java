@@ -0,0 +1,126 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE heartbeat + 죽은 연결 정리(hashed timer wheel).
+ *
+ * 문제:
+ * - SseEmitter(0L)은 timeout이 없어서, LB 뒤에서 반쯤 끊긴(half-open) 연결이 emitters에 계속 남는다.
+ * - 지금까지는 broadcast 중 send 실패로만 발견됐다(=핫 패스에서 발견).
+ *
+ * 구조:
+ * - heartbeat 주기를 wheel-slots개 슬롯으로 나누고, 연결은 등록 순서대로 슬롯에 배정한다(라운드로빈).
+ * - tick마다 슬롯 1개만 검사하므로 heartbeat가 한 순간에 몰리지 않고 주기 전체에 고르게 퍼진다.
+ * - 각 연결은 주기당 1번 검사된다:
+ *   - 큐가 timeout 이상 진척이 없으면(stalled) → 연결 종료(reap)
+ *   - interval 동안 아무것도 안 보냈으면 → 주석 프레임(":hb") 1개를 큐에 적재
+ * - heartbeat write도 연결 큐/writer 풀에서 처리되므로, 끊긴 연결의 write 실패는 발송 경로 밖에서 드러난다.
+ */
+@Slf4j
+@Component
+public class SseHeartbeatWheel {
+
+    private static final SseFrame HEARTBEAT = SseFrame.comment("hb");
+
+    private final List<Set<SseConnection>> slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private int cursor; // ticker 스레드에서만 접근
+
+    private final long heartbeatIntervalMillis;
+    private final long heartbeatIntervalNanos;
+    private final long idleTimeoutNanos;
+
+    private final ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-heartbeat-"));
+
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong reaped = new AtomicLong();
+
+    public SseHeartbeatWheel(@Value("${notifications.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+                             @Value("${notifications.sse.idle-timeout-ms:45000}") long idleTimeoutMillis,
+                             @Value("${notifications.sse.heartbeat-wheel-slots:16}") int wheelSlots) {
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        this.slots = new ArrayList<>(wheelSlots);
+        for (int i = 0; i < wheelSlots; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        long tickMillis = Math.max(1, heartbeatIntervalMillis / slots.size());
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 연결을 wheel에 등록한다. 닫힌 연결은 다음 검사 때 슬롯에서 빠진다.
+     */
+    public void register(SseConnection connection) {
+        int slot = Math.floorMod(nextSlot.getAndIncrement(), slots.size());
+        slots.get(slot).add(connection);
+    }
+
+    private void tick() {
+        try {
+            Set<SseConnection> slot = slots.get(cursor);
+            cursor = (cursor + 1) % slots.size();
+
+            long now = System.nanoTime();
+            for (Iterator<SseConnection> it = slot.iterator(); it.hasNext(); ) {
+                SseConnection connection = it.next();
+
+                if (connection.isClosed()) {
+                    it.remove();
+                } else if (connection.isStalled(now, idleTimeoutNanos)) {
+                    reaped.incrementAndGet();
+                    log.info("[SSE] reap stalled connection username={}", connection.getUsername());
+                    connection.close();
+                    it.remove();
+                } else if (connection.isIdle(now, heartbeatIntervalNanos)) {
+                    if (connection.offer(HEARTBEAT)) {
+                        heartbeats.incrementAndGet();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // 예외가 밖으로 나가면 scheduleAtFixedRate가 멈추므로 여기서 끊는다.
+            log.warn("[SSE] heartbeat tick failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 누적 heartbeat 전송/정리(reap) 건수(디버그용).
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "heartbeats", heartbeats.get(),
+                "reaped", reaped.get()
+        );
+    }
+}
@@ -0,0 +1,121 @@
+package kr.java.sse_websocket.notifications.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 최근 발송한 알림 프레임을 보관하는 노드 로컬 링 버퍼.
+ *
+ * 목적:
+ * - 네트워크 순단 후 EventSource 재연결(Last-Event-ID) 시, 놓친 이벤트만 메모리에서 재전송한다.
+ * - 재연결마다 목록/카운트 API를 다시 호출하는 비용(페이징 쿼리 + anti-join count)을 없앤다.
+ *
+ * 이벤트 id:
+ * - 알림 PK(notificationId)를 그대로 사용한다(IDENTITY라 단조 증가, 노드 간에도 공통).
+ * - 따라서 버퍼에서 밀려난 id라도 DB에서 "id > lastEventId"로 이어서 복구할 수 있다.
+ * - 같은 id는 한 번만 기록한다(outbox 재전달 / 클러스터 재전송으로 같은 프레임이 다시 기록될 수 있음).
+ *
+ * 빈틈:
+ * - 버퍼에는 이 노드가 보낸 프레임만 있다. 다른 노드로 전달된 타겟 알림, 밀려난 항목, 아직 기록되지 않은 id는 없다.
+ * - 그래서 lastEventId 다음부터 버퍼의 가장 큰 id까지 id가 하나라도 비면 버퍼만으로는 보장하지 못한다고 보고 resync를 돌려준다.
+ *   (IDENTITY 채번이 건너뛴 id도 빈틈으로 보이지만, 결과는 DB 조회 1번이라 안전한 쪽을 택한다.)
+ *
+ * 동시성:
+ * - 쓰기는 발송 시 1회, 읽기는 재연결 시 1회 수준이라 단순 synchronized로 충분하다.
+ */
+@Component
+public class SseReplayBuffer {
+
+    private final Entry[] ring;
+    private final Set<Long> ids = new HashSet<>(); // ring에 있는 id
+    private int next;   // 다음 쓰기 위치
+    private int size;
+
+    public SseReplayBuffer(@Value("${notifications.sse.replay-buffer-size:1024}") int capacity) {
+        this.ring = new Entry[capacity];
+    }
+
+    /**
+     * 발송한 프레임을 기록한다. 이미 있는 id면 무시한다.
+     * @param targetUsername 정규화된 username. 전체 발송이면 null
+     */
+    public synchronized void record(long id, String targetUsername, SseFrame frame) {
+        if (!ids.add(id)) {
+            return;
+        }
+        if (ring[next] != null) {
+            ids.remove(ring[next].id());
+        }
+        ring[next] = new Entry(id, targetUsername, frame);
+        next = (next + 1) % ring.length;
+        if (size < ring.length) {
+            size++;
+        }
+    }
+
+    /**
+     * lastEventId 이후 사용자가 놓친 프레임(id 오름차순).
+     *
+     * @return 버퍼만으로 복구 가능하면 프레임 목록(없으면 빈 목록),
+     *         lastEventId가 버퍼 범위를 벗어났거나(밀려났거나 재시작 직후) 그 이후 id에 빈틈이 있으면 resync → DB 복구 필요
+     */
+    public synchronized Replay since(long lastEventId, String username) {
+        if (size == 0) {
+            return Replay.RESYNC;
+        }
+
+        long oldest = Long.MAX_VALUE;
+        long[] newer = new long[size];
+        int newerCount = 0;
+        List<Entry> missed = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry e = ring[i];
+            oldest = Math.min(oldest, e.id());
+            if (e.id() > lastEventId) {
+                newer[newerCount++] = e.id();
+                if (e.isVisibleTo(username)) {
+                    missed.add(e);
+                }
+            }
+        }
+
+        // 클라이언트가 본 마지막 id가 버퍼의 가장 오래된 id보다 작으면 그 사이는 버퍼가 보장하지 못한다.
+        if (lastEventId < oldest) {
+            return Replay.RESYNC;
+        }
+
+        // lastEventId + 1부터 id가 끊김 없이 이어져야 한다(중복은 record에서 걸렀다).
+        Arrays.sort(newer, 0, newerCount);
+        for (int i = 0; i < newerCount; i++) {
+            if (newer[i] != lastEventId + 1 + i) {
+                return Replay.RESYNC;
+            }
+        }
+
+        missed.sort(Comparator.comparingLong(Entry::id));
+        return new Replay(missed.stream().map(Entry::frame).toList(), false);
+    }
+
+    /**
+     * since 결과.
+     * - frames: 놓친 프레임(id 오름차순). resync면 빈 목록
+     * - resync: 버퍼만으로는 놓친 구간을 보장할 수 없음 → DB에서 복구해야 한다
+     */
+    public record Replay(List<SseFrame> frames, boolean resync) {
+
+        static final Replay RESYNC = new Replay(List.of(), true);
+    }
+
+    private record Entry(long id, String targetUsername, SseFrame frame) {
+        boolean isVisibleTo(String username) {
+            return targetUsername == null || targetUsername.equals(username);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package kr.java.sse_websocket.outbox.controller;
+
+import kr.java.sse_websocket.outbox.service.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// /api/admin/outbox/stats
+@RestController
+@RequiredArgsConstructor
+public class OutboxDebugController {
+
+    private final OutboxDispatcher outboxDispatcher;
+
+    /**
+     * outbox 전달 통계(dispatched / failed / recovered / abandoned / queued).
+     * - recovered가 계속 늘면 커밋 직후 전달이 실패하고 poller가 대신 보내고 있다는 뜻이다.
+     * - abandoned는 max-attempts까지 실패해 포기한 이벤트 수다(0이 아니면 로그의 id로 원인 확인).
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/api/admin/outbox/stats")
+    public Map<String, Long> stats() {
+        return outboxDispatcher.stats();
+    }
+}
@@ -0,0 +1,72 @@
+package kr.java.sse_websocket.outbox.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Outbox 이벤트 엔티티.
+ *
+ * - 업무 데이터(알림/채팅 메시지)와 같은 트랜잭션에서 저장된다.
+ * - 커밋 이후 OutboxDispatcher가 전달(SSE/Redis)하고 dispatchedAt을 채운다.
+ * - dispatchedAt이 비어 있는 이벤트는 재시작/장애 후에도 poller가 다시 전달한다(at-least-once).
+ * - claimedBy/claimedUntil: 전달 담당 노드와 그 임대 만료 시각. 만료 전에는 다른 노드가 가져가지 않는다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_pending", columnList = "dispatchedAt,id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 이벤트 종류(예: notification.broadcast, chat.message). OutboxHandler 선택 기준.
+     */
+    @Column(nullable = false, length = 60)
+    private String eventType;
+
+    /**
+     * 전달에 필요한 데이터(JSON).
+     */
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * 전달 완료 시각. null이면 미전달.
+     */
+    private Instant dispatchedAt;
+
+    /**
+     * 전달을 맡은 dispatcher(프로세스별 식별자). null이면 누구나 가져갈 수 있다.
+     */
+    @Column(length = 100)
+    private String claimedBy;
+
+    /**
+     * 임대 만료 시각. 지나면 다른 노드의 poller가 가져갈 수 있다.
+     */
+    private Instant claimedUntil;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
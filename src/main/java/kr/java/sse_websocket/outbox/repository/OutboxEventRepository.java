@@ -0,0 +1,106 @@
+package kr.java.sse_websocket.outbox.repository;
+
+import kr.java.sse_websocket.outbox.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox 이벤트 Repository.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * poller 후보: 미전달, 재시도 한도 미만, 임대가 끝난(또는 없는) 이벤트 id(오름차순).
+     * - 자기 임대도 끝났으면 후보다(커밋 큐에서 꺼낸 뒤 전달하지 못한 이벤트). 아직 커밋 큐에 있는 id는 dispatcher가 거른다.
+     * - 후보일 뿐이고, 실제로 가져가는 것은 claim이 성공한 행만이다.
+     */
+    @Query("""
+        select e.id
+        from OutboxEvent e
+        where e.dispatchedAt is null
+          and e.attempts < :maxAttempts
+          and (e.claimedUntil is null or e.claimedUntil < :now)
+        order by e.id asc
+    """)
+    List<Long> findClaimableIds(@Param("now") Instant now,
+                                @Param("maxAttempts") int maxAttempts,
+                                Pageable pageable);
+
+    /**
+     * 임대 획득/연장. 미전달이고 (내 임대이거나 임대가 없거나 만료된) 행만 owner로 바꾼다.
+     * - 조건 검사와 갱신이 한 문장(행 잠금)이라 노드 여럿이 같은 행을 동시에 가져가지 못한다.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        update OutboxEvent e
+        set e.claimedBy = :owner, e.claimedUntil = :until
+        where e.id in :ids
+          and e.dispatchedAt is null
+          and (e.claimedBy = :owner or e.claimedUntil is null or e.claimedUntil < :now)
+    """)
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("owner") String owner,
+              @Param("now") Instant now,
+              @Param("until") Instant until);
+
+    /**
+     * claim 이후 owner가 가진 미전달 이벤트(id 순).
+     */
+    @Query("""
+        select e
+        from OutboxEvent e
+        where e.id in :ids
+          and e.claimedBy = :owner
+          and e.dispatchedAt is null
+        order by e.id asc
+    """)
+    List<OutboxEvent> findClaimed(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.dispatchedAt = :now where e.id in :ids")
+    int markDispatched(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * 실패 기록 + 임대 해제(다음 poll에서 어느 노드든 다시 가져갈 수 있다).
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        update OutboxEvent e
+        set e.attempts = e.attempts + 1, e.claimedBy = null, e.claimedUntil = null
+        where e.id in :ids
+    """)
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 보관 기간이 지난 전달 완료 이벤트 정리.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.dispatchedAt < :before")
+    int deleteDispatchedBefore(@Param("before") Instant before);
+
+    /**
+     * 재시도 한도를 넘겨 포기한(미전달) 이벤트 중 보관 기간이 지난 것 정리.
+     * - 포기한 뒤에도 보관 기간 동안은 남겨 두어 원인을 확인할 수 있게 한다.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        delete from OutboxEvent e
+        where e.dispatchedAt is null
+          and e.attempts >= :maxAttempts
+          and e.createdAt < :before
+    """)
+    int deleteAbandonedBefore(@Param("maxAttempts") int maxAttempts, @Param("before") Instant before);
+}
@@ -0,0 +1,325 @@
+package kr.java.sse_websocket.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kr.java.sse_websocket.outbox.domain.OutboxEvent;
+import kr.java.sse_websocket.outbox.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox 기록/전달.
+ *
+ * 문제:
+ * - 알림 발송/채팅 전송이 @Transactional 안에서 SSE push, Redis publish(네트워크 I/O)를 했다.
+ *   → 트랜잭션/커넥션 점유 시간이 네트워크 지연만큼 길어지고,
+ *   → push 이후 롤백되면 클라이언트는 DB에 없는 id를 들고 있게 된다.
+ *
+ * 구조:
+ * 1) record(): 업무 데이터와 같은 트랜잭션에서 outbox_events에 1행 저장(네트워크 I/O 없음)
+ *    - 이 dispatcher가 stale-after-ms 동안 전달을 맡는다는 임대(claimedBy/claimedUntil)를 같이 기록한다.
+ * 2) 커밋 이후: 이 노드의 dispatcher 스레드가 커밋된 id를 모아 배치로 전달 → dispatchedAt 일괄 갱신
+ *    - 전달 직전에 임대를 연장한다(이미 다른 노드가 가져간 이벤트는 건너뜀).
+ * 3) poller: 임대가 끝났는데 미전달로 남은 이벤트(노드 장애/전달 실패)를 주기적으로 다시 전달
+ *    - 조건부 update(claim)로 임대를 먼저 얻은 행만 보낸다 → 노드가 여럿이어도 한 노드만 재전달한다.
+ *    - 아직 이 노드 커밋 큐에 있는 이벤트만 건너뛴다. 큐에서 꺼낸 뒤 전달하지 못한 이벤트는 임대가 끝나면
+ *      이 노드도 다시 가져간다(노드가 하나여도 재전달된다). 실패한 이벤트는 임대를 풀어 둔다.
+ * 4) max-attempts에 닿은 이벤트는 포기한다: error 로그 + abandoned 집계, 보관 기간이 지나면 삭제.
+ *
+ * 보장:
+ * - at-least-once. 전달 후 dispatchedAt 갱신 전에 죽으면 다시 전달될 수 있으므로 수신 측은 id로 중복 제거한다.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Duration staleAfter;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    // 임대 소유자(프로세스마다 다름 → 재시작 전 임대는 남의 것으로 보고 만료 후 가져간다)
+    private final String owner;
+
+    // 커밋된(전달 대기) 이벤트 id. queuedIds는 같은 id 집합(poller가 아직 큐에 있는 id를 거르는 용도)
+    private final Queue<Long> committed = new ConcurrentLinkedQueue<>();
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // 전달은 한 스레드에서 순서대로(커밋 순서 ≒ 전달 순서)
+    private final ScheduledExecutorService worker =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-"));
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectMapper objectMapper,
+                            List<OutboxHandler> handlers,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+                            @Value("${outbox.stale-after-ms:5000}") long staleAfterMillis,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retention-hours:24}") long retentionHours,
+                            @Value("${notifications.cluster.node-id:local}") String nodeId) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        for (OutboxHandler handler : handlers) {
+            handler.eventTypes().forEach(type -> this.handlers.put(type, handler));
+        }
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.staleAfter = Duration.ofMillis(staleAfterMillis);
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofHours(retentionHours);
+        this.owner = nodeId + ":" + UUID.randomUUID();
+    }
+
+    @PostConstruct
+    void start() {
+        worker.scheduleWithFixedDelay(this::pollStale, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::purgeDispatched, 10, 10, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * 이벤트를 현재 트랜잭션에 기록한다. 전달은 커밋 이후에만 일어난다(롤백되면 전달되지 않음).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload serialization failed: " + eventType, e);
+        }
+        return recordEncoded(eventType, json);
+    }
+
+    /**
+     * 이미 인코딩된 payload를 그대로 기록한다(handler가 받는 문자열과 동일).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent recordEncoded(String eventType, String payload) {
+        if (!handlers.containsKey(eventType)) {
+            throw new IllegalArgumentException("no outbox handler for " + eventType);
+        }
+
+        Instant now = Instant.now();
+        OutboxEvent saved = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .payload(payload)
+                .attempts(0)
+                .createdAt(now)
+                .claimedBy(owner)
+                .claimedUntil(now.plus(staleAfter))
+                .build());
+
+        Long id = saved.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queuedIds.add(id);
+                committed.add(id);
+                scheduleDrain();
+            }
+        });
+        return saved;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.execute(this::drainCommitted);
+        }
+    }
+
+    /**
+     * 커밋된 이벤트를 batch-size씩 묶어 전달한다.
+     */
+    private void drainCommitted() {
+        drainScheduled.set(false);
+        try {
+            while (!committed.isEmpty()) {
+                List<Long> ids = new ArrayList<>(batchSize);
+                Long id;
+                while (ids.size() < batchSize && (id = committed.poll()) != null) {
+                    queuedIds.remove(id);
+                    ids.add(id);
+                }
+                dispatch(claim(ids));
+            }
+        } catch (Exception e) {
+            // 여기서 못 보낸 이벤트는 임대가 끝나면 poller가 다시 가져간다(이 노드 포함).
+            log.warn("[OUTBOX] drain failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 커밋 후 전달되지 못하고 남은 이벤트 재전달(노드 장애/전달 실패 복구).
+     */
+    private void pollStale() {
+        try {
+            List<Long> ids = new ArrayList<>(outboxEventRepository.findClaimableIds(Instant.now(), maxAttempts,
+                    PageRequest.of(0, batchSize)));
+            // 커밋 큐가 곧 처리할 이벤트(대기가 길어 임대가 끝났을 수 있다)
+            ids.removeIf(queuedIds::contains);
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<OutboxEvent> events = claim(ids);
+            if (!events.isEmpty()) {
+                recovered.addAndGet(events.size());
+                dispatch(events);
+            }
+        } catch (Exception e) {
+            // 예외가 밖으로 나가면 scheduleWithFixedDelay가 멈추므로 여기서 끊는다.
+            log.warn("[OUTBOX] poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 임대를 얻거나 연장한 뒤 이 dispatcher가 가진 미전달 이벤트만 돌려준다(id 순).
+     */
+    private List<OutboxEvent> claim(List<Long> ids) {
+        Instant now = Instant.now();
+        outboxEventRepository.claim(ids, owner, now, now.plus(staleAfter));
+        return outboxEventRepository.findClaimed(ids, owner);
+    }
+
+    private void dispatch(List<OutboxEvent> events) {
+        List<Long> done = new ArrayList<>(events.size());
+        List<OutboxEvent> failures = new ArrayList<>();
+
+        // 같은 종류가 연속된 구간은 handleBatch 1번(예: 채팅 Redis pipeline)
+        List<OutboxEvent> run = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (event.getDispatchedAt() != null) {
+                continue;
+            }
+            if (!run.isEmpty() && !run.get(0).getEventType().equals(event.getEventType())) {
+                dispatchRun(run, done, failures);
+                run.clear();
+            }
+            run.add(event);
+        }
+        if (!run.isEmpty()) {
+            dispatchRun(run, done, failures);
+        }
+
+        // 결과 반영은 배치당 update 1~2번
+        if (!done.isEmpty()) {
+            outboxEventRepository.markDispatched(done, Instant.now());
+            dispatched.addAndGet(done.size());
+        }
+        if (!failures.isEmpty()) {
+            outboxEventRepository.incrementAttempts(failures.stream().map(OutboxEvent::getId).toList());
+            failed.addAndGet(failures.size());
+            for (OutboxEvent event : failures) {
+                if (event.getAttempts() + 1 >= maxAttempts) {
+                    abandoned.incrementAndGet();
+                    log.error("[OUTBOX] giving up after {} attempts id={}, type={}, createdAt={}",
+                            maxAttempts, event.getId(), event.getEventType(), event.getCreatedAt());
+                }
+            }
+        }
+    }
+
+    private void dispatchRun(List<OutboxEvent> run, List<Long> done, List<OutboxEvent> failures) {
+        String eventType = run.get(0).getEventType();
+        OutboxHandler handler = handlers.get(eventType);
+        List<OutboxEvent> retry = run;
+        if (run.size() > 1) {
+            try {
+                Set<Integer> failedIndexes = handler.handleBatch(eventType, run.stream().map(OutboxEvent::getPayload).toList());
+                retry = new ArrayList<>(failedIndexes.size());
+                for (int i = 0; i < run.size(); i++) {
+                    if (failedIndexes.contains(i)) {
+                        retry.add(run.get(i));
+                    } else {
+                        done.add(run.get(i).getId());
+                    }
+                }
+                if (retry.isEmpty()) {
+                    return;
+                }
+                log.warn("[OUTBOX] batch dispatch partially failed type={}, failed={}/{} → retry failed ones",
+                        eventType, retry.size(), run.size());
+            } catch (Exception e) {
+                log.warn("[OUTBOX] batch dispatch failed type={}, size={}, msg={} → retry one by one",
+                        eventType, run.size(), e.getMessage());
+            }
+        }
+        for (OutboxEvent event : retry) {
+            try {
+                handler.handle(eventType, event.getPayload());
+                done.add(event.getId());
+            } catch (Exception e) {
+                failures.add(event);
+                log.warn("[OUTBOX] dispatch failed id={}, type={}, msg={}", event.getId(), eventType, e.getMessage());
+            }
+        }
+    }
+
+    private void purgeDispatched() {
+        try {
+            Instant before = Instant.now().minus(retention);
+            outboxEventRepository.deleteDispatchedBefore(before);
+            int purged = outboxEventRepository.deleteAbandonedBefore(maxAttempts, before);
+            if (purged > 0) {
+                log.warn("[OUTBOX] purged {} abandoned events older than {}", purged, retention);
+            }
+        } catch (Exception e) {
+            log.warn("[OUTBOX] purge failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 누적 전달/실패/재전달(poller)/포기 건수(디버그용).
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "dispatched", dispatched.get(),
+                "failed", failed.get(),
+                "recovered", recovered.get(),
+                "abandoned", abandoned.get(),
+                "queued", (long) committed.size()
+        );
+    }
+}
@@ -0,0 +1,40 @@
+package kr.java.sse_websocket.outbox.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Outbox 이벤트 전달기.
+ *
+ * - 같은 이벤트가 두 번 이상 전달될 수 있다(at-least-once). 수신 측은 id로 중복을 제거한다.
+ * - 예외를 던지면 실패로 기록되고 poller가 나중에 다시 시도한다.
+ */
+public interface OutboxHandler {
+
+    /**
+     * 처리할 이벤트 종류.
+     */
+    Collection<String> eventTypes();
+
+    void handle(String eventType, String payload) throws Exception;
+
+    /**
+     * 같은 종류의 연속된 이벤트를 한 번에 전달한다(기본: 1건씩 handle).
+     *
+     * @return 전달에 실패한 payload의 index. dispatcher는 이 이벤트만 1건씩 다시 시도한다(성공한 이벤트는 다시 보내지 않음).
+     * 예외를 던지면 어디까지 전달됐는지 모르는 것으로 보고 전부 다시 시도한다.
+     */
+    default Set<Integer> handleBatch(String eventType, List<String> payloads) throws Exception {
+        Set<Integer> failed = new TreeSet<>();
+        for (int i = 0; i < payloads.size(); i++) {
+            try {
+                handle(eventType, payloads.get(i));
+            } catch (Exception e) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+}
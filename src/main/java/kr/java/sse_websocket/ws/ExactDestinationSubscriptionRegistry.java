@@ -0,0 +1,142 @@
+package kr.java.sse_websocket.ws;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SimpleBroker 구독 레지스트리(목적지 완전 일치 전용).
+ *
+ * 문제:
+ * - 기본 DefaultSubscriptionRegistry는 구독 목적지를 패턴으로 취급해, 캐시에 없는 목적지로 보낼 때마다
+ *   전체 구독을 훑어 매칭하고(세션 수에 비례), 구독/해제마다 그 캐시를 갱신한다.
+ * - 채팅은 세션마다 자기 방 /topic/chat/rooms/{id}만 구독하므로 패턴 매칭이 필요 없다.
+ *
+ * 동작:
+ * - destination -> (sessionId -> subscriptionIds) 스냅샷을 HashMap 조회 1번으로 찾는다(O(1), 전체 구독 수와 무관).
+ * - 스냅샷은 불변. 구독/해제 시 그 목적지의 스냅샷만 새로 만든다(copy-on-write) → 전송 경로는 락/복사 없음.
+ * - 패턴(*, {})으로 구독한 경우만 별도 목록에 두고 전송 시 추가로 매칭한다(보통 비어 있음).
+ *
+ * STOMP selector 헤더는 지원하지 않는다(이 프로젝트 클라이언트는 쓰지 않음).
+ */
+public class ExactDestinationSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> EMPTY =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // destination -> 불변 스냅샷(sessionId -> subscriptionIds)
+    private final Map<String, MultiValueMap<String, String>> byDestination = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> destination), 해제/세션 종료용
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // 패턴 구독(드묾)
+    private final List<PatternSubscription> patterns = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        String previous = sessions.computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        if (previous != null) {
+            removeFrom(previous, sessionId, subscriptionId);
+        }
+        if (pathMatcher.isPattern(destination)) {
+            patterns.add(new PatternSubscription(destination, sessionId, subscriptionId));
+            return;
+        }
+        byDestination.compute(destination, (k, current) -> {
+            LinkedMultiValueMap<String, String> next = current == null ? new LinkedMultiValueMap<>() : copyOf(current);
+            next.add(sessionId, subscriptionId);
+            return CollectionUtils.unmodifiableMultiValueMap(next);
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            removeFrom(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        subscriptions.forEach((subscriptionId, destination) -> removeFrom(destination, sessionId, subscriptionId));
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        MultiValueMap<String, String> exact = byDestination.get(destination);
+        if (patterns.isEmpty()) {
+            return exact != null ? exact : EMPTY;
+        }
+
+        LinkedMultiValueMap<String, String> merged = exact != null ? copyOf(exact) : new LinkedMultiValueMap<>();
+        for (PatternSubscription p : patterns) {
+            if (pathMatcher.match(p.pattern(), destination)) {
+                merged.add(p.sessionId(), p.subscriptionId());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 구독이 있는 목적지 수(패턴 제외).
+     */
+    public int destinationCount() {
+        return byDestination.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ExactDestinationSubscriptionRegistry[destinations=" + byDestination.size()
+                + ", sessions=" + sessions.size() + ", patterns=" + patterns.size() + "]";
+    }
+
+    private void removeFrom(String destination, String sessionId, String subscriptionId) {
+        if (pathMatcher.isPattern(destination)) {
+            patterns.removeIf(p -> p.sessionId().equals(sessionId) && p.subscriptionId().equals(subscriptionId));
+            return;
+        }
+        byDestination.computeIfPresent(destination, (k, current) -> {
+            List<String> ids = current.get(sessionId);
+            if (ids == null || !ids.contains(subscriptionId)) {
+                return current;
+            }
+            LinkedMultiValueMap<String, String> next = copyOf(current);
+            List<String> remaining = next.get(sessionId);
+            remaining.remove(subscriptionId);
+            if (remaining.isEmpty()) {
+                next.remove(sessionId);
+            }
+            return next.isEmpty() ? null : CollectionUtils.unmodifiableMultiValueMap(next);
+        });
+    }
+
+    // 값 List까지 복사(LinkedMultiValueMap 복사 생성자는 List를 공유한다)
+    private static LinkedMultiValueMap<String, String> copyOf(MultiValueMap<String, String> source) {
+        LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>(source.size() + 1);
+        source.forEach((sessionId, ids) -> copy.put(sessionId, new ArrayList<>(ids)));
+        return copy;
+    }
+
+    private record PatternSubscription(String pattern, String sessionId, String subscriptionId) {
+    }
+}
@@ -6,6 +6,20 @@
  * 2) GET /api/chat/rooms/{roomId}/messages 로 초기 메시지 로딩
  * 3) WebSocket(STOMP) 연결 후 /topic/chat/rooms/{roomId} 구독
  * 4) 전송은 /app/chat/rooms/{roomId}/send 로 SEND
+ *
+ * 구독 직후 빈틈:
+ * - 서버는 Redis 구독을 STOMP 구독보다 늦게 시작하므로 그 사이 메시지는 실시간으로 오지 않는다.
+ * - 서버가 준비를 마치면 /user/topic/chat/subscribed 로 알려 주고, 그때 catch-up으로 빈틈을 메운다.
+ *   (pubsub: GET /api/chat/rooms/{roomId}/messages/since?afterId=, stream: 아래 재개)
+ * - 알림은 사용자 목적지 구독보다 먼저 도착하면 사라진다. 그래서 SUBSCRIBED_FALLBACK_MS 안에 알림이 없으면
+ *   그냥 catch-up 한다(알림이 늦게 와도 한 번 더 할 뿐, 중복은 messageId로 제거된다).
+ *
+ * stream transport(서버 chat.redis.transport=stream)일 때:
+ * - STOMP 헤더 seq(방별 순번)를 기억해 두고, (재)연결 직후 GET /api/chat/rooms/{roomId}/stream?afterSeq=
+ *   로 놓친 메시지를 이어 받는다. resync 응답이면 최근 메시지를 다시 로딩한다.
+ *   (재개도 위 구독 준비 알림을 받은 뒤에 한다)
+ *
+ * 서버 전달 레인이 밀려 메시지를 버리면 방 토픽으로 헤더 resync=true 프레임이 온다 → catch-up으로 메운다.
  */
 
 (function () {
@@ -23,6 +37,14 @@
     let roomId = null;
     let stompClient = null;
 
+    // 구독 준비 알림을 이 시간까지 못 받으면 알림 없이 catch-up
+    const SUBSCRIBED_FALLBACK_MS = 2000;
+
+    // stream transport 재개 지점(null이면 pubsub transport)
+    let lastSeq = null;
+    // pubsub transport catch-up 기준(받은 메시지 중 가장 큰 messageId)
+    let lastMessageId = null;
+
     const esc = (s) => {
         if (s === null || s === undefined) return "";
         return String(s)
@@ -34,13 +56,26 @@
     };
 
     const appendMessage = (m) => {
+        // 서버 전달은 at-least-once(outbox 재전달)이므로 messageId 기준 중복 제거
+        // (write-behind 모드의 실시간 메시지는 messageId 대신 provisionalId를 가진다)
+        const key = m.messageId ?? m.provisionalId;
+        if (m.messageId != null) {
+            lastMessageId = Math.max(lastMessageId ?? 0, m.messageId);
+        }
+        if (key != null && messagesEl.querySelector(`li[data-id="${key}"]`)) {
+            return;
+        }
         const li = document.createElement("li");
+        if (key != null) {
+            li.dataset.id = key;
+        }
         li.innerHTML = `<strong>${esc(m.senderUsername)}</strong>: ${esc(m.content)} <small>${esc(m.createdAt)}</small>`;
         messagesEl.appendChild(li);
     };
 
     const clearMessages = () => {
         messagesEl.innerHTML = "";
+        lastMessageId = null;
     };
 
     const createOrGetRoom = async (otherUsername) => {
@@ -66,6 +101,62 @@
         return await res.json();
     };
 
+    const fetchStream = async (roomId, afterSeq) => {
+        const query = afterSeq === null ? "" : `?afterSeq=${afterSeq}`;
+        const res = await fetch(`/api/chat/rooms/${roomId}/stream${query}`);
+        if (res.status === 404) return null; // pubsub transport
+        if (!res.ok) {
+            log("stream fetch failed: " + res.status);
+            return null;
+        }
+        return await res.json();
+    };
+
+    const resumeFromStream = async (roomId) => {
+        if (lastSeq === null) return;
+
+        let page;
+        do {
+            page = await fetchStream(roomId, lastSeq);
+            if (!page) return;
+
+            if (page.resync) {
+                log("stream gap trimmed -> reload recent messages");
+                clearMessages();
+                (await loadRecentMessages(roomId)).forEach((m) => appendMessage(m));
+                lastSeq = page.lastSeq;
+                return;
+            }
+            page.events.forEach((e) => {
+                appendMessage(e.event);
+                lastSeq = Math.max(lastSeq, e.seq);
+            });
+        } while (page.hasMore);
+    };
+
+    const catchUpSince = async (roomId) => {
+        let page;
+        do {
+            const res = await fetch(`/api/chat/rooms/${roomId}/messages/since?afterId=${lastMessageId ?? 0}&size=100`);
+            if (!res.ok) {
+                log("catch-up fetch failed: " + res.status);
+                return;
+            }
+            page = await res.json();
+
+            if (page.tooFarBehind) {
+                log("too far behind -> reload recent messages");
+                clearMessages();
+                (await loadRecentMessages(roomId)).forEach((m) => appendMessage(m));
+                return;
+            }
+            page.messages.forEach((m) => appendMessage(m));
+        } while (page.hasMore);
+    };
+
+    // 구독 이전/끊긴 동안 놓친 메시지(중복은 messageId로 제거)
+    const catchUp = (roomId) => (lastSeq !== null ? resumeFromStream(roomId) : catchUpSince(roomId));
+
     const connectStomp = (roomId) => {
         if (stompClient && stompClient.connected) {
             stompClient.disconnect(() => {});
@@ -80,10 +171,33 @@
         stompClient.connect({}, () => {
             log("stomp connected");
 
+            // 서버가 이 방의 Redis 구독을 마친 뒤 보내는 알림 → 그 전 빈틈을 catch-up
+            const fallback = setTimeout(() => {
+                log("no subscribed notice -> catch up anyway");
+                catchUp(roomId);
+            }, SUBSCRIBED_FALLBACK_MS);
+            stompClient.subscribe("/user/topic/chat/subscribed", (frame) => {
+                const ready = JSON.parse(frame.body);
+                if (ready.roomId === roomId) {
+                    clearTimeout(fallback);
+                    catchUp(roomId);
+                }
+            });
+
             stompClient.subscribe(`/topic/chat/rooms/${roomId}`, (frame) => {
+                if (frame.headers.resync === "true") {
+                    log("server dropped messages -> catch up");
+                    catchUp(roomId);
+                    return;
+                }
                 try {
                     const payload = JSON.parse(frame.body);
+                    if (lastSeq !== null && frame.headers.seq) {
+                        lastSeq = Math.max(lastSeq, Number(frame.headers.seq));
+                    }
                     appendMessage({
+                        messageId: payload.messageId,
+                        provisionalId: payload.provisionalId,
                         senderUsername: payload.senderUsername,
                         content: payload.content,
                         createdAt: payload.createdAt,
@@ -96,6 +210,11 @@
             log(`subscribed: /topic/chat/rooms/${roomId}`);
         }, (err) => {
             log("stomp connect error: " + err);
+
+            // stream transport면 재연결 후 이어 받을 수 있으므로 자동 재연결
+            if (lastSeq !== null) {
+                setTimeout(() => connectStomp(roomId), 2000);
+            }
         });
     };
 
@@ -135,6 +254,10 @@
         roomIdEl.textContent = String(roomId);
         log("roomId = " + roomId);
 
+        // 최근 메시지 로딩 전에 재개 기준점을 잡아 두면 로딩~구독 사이 메시지도 이어 받는다.
+        const head = await fetchStream(roomId, null);
+        lastSeq = head ? head.lastSeq : null;
+
         clearMessages();
         const recent = await loadRecentMessages(roomId);
         recent.forEach((m) => appendMessage(m));
@@ -13,9 +13,12 @@
  *    - event: connected     : 연결 확인
  *    - event: notification  : 신규 알림 실시간 수신
  *    - event: unreadCount   : 안읽음 배지 실시간 갱신
+ *    - event: resync        : 재연결 시 놓친 알림이 너무 많음 → 목록/카운트 재조회
+ *    - 재연결 시 브라우저가 Last-Event-ID를 보내면 서버가 놓친 알림만 다시 보낸다.
  *
  * 3) 읽음 처리
  *    - POST /api/notifications/{id}/read
+ *    - POST /api/notifications/read-all?upTo={화면의 최신 id} : 모두 읽음(요청 1번)
  *    - 서버 성공(200) 시에만 UI 반영
  *
  * 전제:
@@ -27,6 +30,7 @@
     const unreadEl = document.getElementById("unreadCount");
     const listEl = document.getElementById("list");
     const logEl = document.getElementById("log");
+    const readAllBtn = document.getElementById("readAllBtn");
 
     /* =========================
      * 공통 유틸
@@ -78,6 +82,11 @@
      * ========================= */
 
     const renderNotificationItem = (n, { prepend = false } = {}) => {
+        // 재연결 복구(replay)로 같은 알림이 다시 올 수 있으므로 id 기준 중복 제거
+        if (listEl.querySelector(`li[data-id="${n.id}"]`)) {
+            return;
+        }
+
         const li = document.createElement("li");
         li.dataset.id = n.id;
         li.dataset.read = n.read ? "true" : "false";
@@ -134,6 +143,36 @@
         }
     };
 
+    const markRenderedRead = (li) => {
+        if (li.dataset.read === "true") {
+            return;
+        }
+        li.dataset.read = "true";
+        const titleEl = li.querySelector(".titleText");
+        titleEl.textContent = titleEl.textContent.replace("[UNREAD]", "[READ]");
+        li.querySelector(".readBtn").disabled = true;
+    };
+
+    // 모두 읽음: 화면에 보이는 가장 최근 id까지만(그 사이 도착한 알림은 안읽음 유지)
+    readAllBtn.addEventListener("click", async () => {
+        const items = Array.from(listEl.querySelectorAll("li[data-id]"));
+        if (items.length === 0) {
+            return;
+        }
+        const upTo = Math.max(...items.map((li) => Number(li.dataset.id)));
+
+        const res = await fetch(`/api/notifications/read-all?upTo=${upTo}`, {
+            method: "POST",
+        });
+        if (!res.ok) {
+            log(`read-all failed: status=${res.status}`);
+            return;
+        }
+
+        items.filter((li) => Number(li.dataset.id) <= upTo).forEach(markRenderedRead);
+        // unreadCount는 서버가 SSE로 1번 push한다.
+    });
+
     /* =========================
      * 초기 로딩
      * ========================= */
@@ -185,6 +224,12 @@
             setUnreadCount(e.data);
         });
 
+        // 놓친 알림이 너무 많아 서버가 재전송 대신 전체 재조회를 요청한 경우
+        es.addEventListener("resync", (e) => {
+            log("SSE resync requested: " + e.data);
+            loadInitial().catch((err) => log("resync load error: " + err));
+        });
+
         es.onerror = () => {
             log("SSE error (will retry automatically)");
         };
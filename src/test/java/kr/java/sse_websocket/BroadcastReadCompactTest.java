@@ -0,0 +1,62 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.domain.NotificationReadWatermark;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.repository.NotificationReadWatermarkRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import kr.java.sse_websocket.notifications.service.BroadcastReadTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 읽음 watermark compact가 최근(compact-settle-seconds 이내) 알림은 건너뛰지 않고 예외 집합에 남기는지 확인.
+ */
+@SpringBootTest(properties = "notifications.read-model.compact-settle-seconds=60")
+@ActiveProfiles("test")
+class BroadcastReadCompactTest {
+
+    @Autowired
+    BroadcastReadTracker broadcastReadTracker;
+
+    @Autowired
+    NotificationRepository notificationRepository;
+
+    @Autowired
+    NotificationReadWatermarkRepository watermarkRepository;
+
+    @Test
+    void compact_skipsOnlySettledBroadcasts_andKeepsRecentOnesAsExceptions() {
+        Notification settled = broadcast(Instant.now().minus(Duration.ofMinutes(10)));
+        Notification recent = broadcast(Instant.now());
+        String username = "compact-user";
+        // 앞선 테스트가 만든 ALL 알림은 읽음으로 두고 시작한다.
+        broadcastReadTracker.markReadUpTo(username, settled.getId() - 1);
+
+        assertThat(broadcastReadTracker.markReadAll(username, List.of(settled.getId(), recent.getId()))).isEqualTo(2);
+
+        NotificationReadWatermark watermark = watermarkRepository.findById(username).orElseThrow();
+        assertThat(watermark.getReadUpToId()).isEqualTo(settled.getId());
+        assertThat(watermark.exceptions()).containsExactly(recent.getId());
+        assertThat(broadcastReadTracker.readAmong(username, List.of(settled.getId(), recent.getId())))
+                .containsExactlyInAnyOrder(settled.getId(), recent.getId());
+    }
+
+    private Notification broadcast(Instant createdAt) {
+        return notificationRepository.save(Notification.builder()
+                .targetType(NotificationTargetType.ALL)
+                .title("compact")
+                .body("body")
+                .sender("admin")
+                .createdAt(createdAt)
+                .build());
+    }
+}
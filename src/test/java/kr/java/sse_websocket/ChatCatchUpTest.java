@@ -0,0 +1,193 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.domain.ChatCatchUpPage;
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
+import kr.java.sse_websocket.chat.service.ChatHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 재연결 catch-up의 세 경로(recent list / DB / 간격 초과)와 구멍 난 캐시의 DB 전환을 로컬 Redis(Testcontainers)로 확인한다.
+ *
+ * - recent list는 테스트에서 직접 채운다(최신이 앞).
+ * - Docker가 없는 환경에서는 자동으로 skip된다.
+ */
+@SpringBootTest(properties = "chat.catch-up.max-gap=3")
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class ChatCatchUpTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.url", () -> "redis://" + redis.getHost() + ":" + redis.getMappedPort(6379));
+    }
+
+    private static final AtomicLong ROOM_IDS = new AtomicLong(900_000);
+
+    @Autowired
+    ChatHistoryService chatHistoryService;
+    @Autowired
+    ChatMessageRepository chatMessageRepository;
+    @Autowired
+    ChatEventEncoder chatEventEncoder;
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    void coveredByRecentList_isServedFromCache() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 3);
+        cache(roomId, payloads(saved));
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 10);
+
+        assertThat(page.getSource()).isEqualTo("cache");
+        assertThat(page.getMessages()).extracting(ChatEventPayload::getMessageId)
+                .containsExactly(saved.get(1).getId(), saved.get(2).getId());
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @Test
+    void provisionalMessageAfterAfterId_fallsThroughToDb() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 3);
+        // write-behind: 마지막 메시지는 아직 id 없이 캐시에만 있다(DB에는 이미 반영된 상태).
+        List<ChatEventPayload> cached = payloads(saved.subList(0, 2));
+        cached.add(ChatEventPayload.builder()
+                .roomId(roomId)
+                .provisionalId("p-1")
+                .senderUsername("catchup-a")
+                .content(saved.get(2).getContent())
+                .createdAt(saved.get(2).getCreatedAt())
+                .build());
+        cache(roomId, cached);
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 10);
+
+        assertThat(page.getSource()).isEqualTo("db");
+        assertThat(page.getMessages()).extracting(ChatEventPayload::getMessageId)
+                .containsExactly(saved.get(1).getId(), saved.get(2).getId());
+    }
+
+    @Test
+    void cacheMissingAMessageInRange_fallsThroughToDb() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 3);
+        // 두 번째 메시지의 발행이 빠졌다(늦은 커밋/발행 실패): 덮는 지점은 있지만 구간 안에 구멍이 있다.
+        cache(roomId, payloads(List.of(saved.get(0), saved.get(2))));
+        long gapsBefore = chatHistoryService.stats().get("cacheGaps");
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 10);
+
+        assertThat(page.getSource()).isEqualTo("db");
+        assertThat(page.getMessages()).extracting(ChatEventPayload::getMessageId)
+                .containsExactly(saved.get(1).getId(), saved.get(2).getId());
+        assertThat(chatHistoryService.stats().get("cacheGaps")).isEqualTo(gapsBefore + 1);
+    }
+
+    @Test
+    void duplicatedOrReorderedCache_isStillServedFromCacheInIdOrder() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 3);
+        // 재발행으로 중복되고, 발행 순서가 id 순서와 다르다.
+        cache(roomId, payloads(List.of(saved.get(0), saved.get(2), saved.get(1), saved.get(2))));
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 10);
+
+        assertThat(page.getSource()).isEqualTo("cache");
+        assertThat(page.getMessages()).extracting(ChatEventPayload::getMessageId)
+                .containsExactly(saved.get(1).getId(), saved.get(2).getId());
+    }
+
+    @Test
+    void notCoveredByRecentList_isReadFromDb() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 3);
+        cache(roomId, payloads(saved.subList(1, 3))); // afterId(첫 메시지)는 list에 없다
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 1);
+
+        assertThat(page.getSource()).isEqualTo("db");
+        assertThat(page.getMessages()).extracting(ChatEventPayload::getMessageId)
+                .containsExactly(saved.get(1).getId());
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getNextAfterId()).isEqualTo(saved.get(1).getId());
+    }
+
+    @Test
+    void gapBeyondMaxGap_isReportedAsTooFarBehind() {
+        Long roomId = ROOM_IDS.incrementAndGet();
+        List<ChatMessage> saved = save(roomId, 5);
+
+        ChatCatchUpPage page = chatHistoryService.catchUp(roomId, saved.get(0).getId(), 10);
+
+        assertThat(page.isTooFarBehind()).isTrue();
+        assertThat(page.getMessages()).isEmpty();
+        assertThat(page.getSource()).isEqualTo("db");
+    }
+
+    private List<ChatMessage> save(Long roomId, int count) {
+        List<ChatMessage> saved = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            saved.add(chatMessageRepository.save(ChatMessage.builder()
+                    .roomId(roomId)
+                    .senderUsername("catchup-a")
+                    .content("m" + i)
+                    .build()));
+        }
+        return saved;
+    }
+
+    private static List<ChatEventPayload> payloads(List<ChatMessage> messages) {
+        List<ChatEventPayload> payloads = new ArrayList<>();
+        for (ChatMessage m : messages) {
+            payloads.add(ChatEventPayload.builder()
+                    .roomId(m.getRoomId())
+                    .messageId(m.getId())
+                    .senderUsername(m.getSenderUsername())
+                    .content(m.getContent())
+                    .createdAt(m.getCreatedAt())
+                    .build());
+        }
+        return payloads;
+    }
+
+    // 오래된 것부터 LPUSH → list는 최신이 앞
+    private void cache(Long roomId, List<ChatEventPayload> oldestFirst) {
+        byte[] key = ChatRedisKeys.recentListKey(roomId).getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.execute((RedisCallback<Void>) (RedisConnection connection) -> {
+            connection.keyCommands().del(key);
+            for (ChatEventPayload payload : oldestFirst) {
+                connection.listCommands().lPush(key, chatEventEncoder.encode(payload).bytes());
+            }
+            return null;
+        });
+    }
+}
+
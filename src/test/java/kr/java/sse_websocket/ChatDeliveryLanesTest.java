@@ -0,0 +1,77 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.redis.ChatDeliveryLanes;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatDeliveryLanesTest {
+
+    @Test
+    void sameRoom_keepsSubmitOrder_acrossLanes() throws Exception {
+        ChatDeliveryLanes lanes = new ChatDeliveryLanes(4, 16, 5000);
+        Map<Long, List<Integer>> received = new ConcurrentHashMap<>();
+        int rooms = 8;
+        int perRoom = 200;
+        CountDownLatch done = new CountDownLatch(rooms * perRoom);
+
+        // 큐(16)보다 많이 넣어도 역압으로 기다렸다 들어간다
+        for (int i = 0; i < perRoom; i++) {
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                int seq = i;
+                long room = roomId;
+                lanes.submit(roomId, () -> {
+                    received.computeIfAbsent(room, k -> new CopyOnWriteArrayList<>()).add(seq);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            assertThat(received.get(roomId)).isSorted().hasSize(perRoom);
+        }
+        assertThat(lanes.stats()).containsEntry("lanes", 4L).containsKey("lane0.avgMicros");
+    }
+
+    @Test
+    void fullLane_dropsAfterOfferTimeout_insteadOfBlockingTheCaller() throws Exception {
+        ChatDeliveryLanes lanes = new ChatDeliveryLanes(1, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        try {
+            // 실행 중 1개 + 대기열 1개로 레인을 채운다.
+            assertThat(lanes.submit(1L, () -> {
+                running.countDown();
+                await(release);
+            })).isTrue();
+            assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(lanes.submit(1L, () -> { })).isTrue();
+
+            long startedAt = System.nanoTime();
+            boolean accepted = lanes.submit(1L, () -> { });
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            assertThat(accepted).isFalse();
+            assertThat(waitedMillis).isBetween(40L, 1000L);
+            assertThat(lanes.stats()).containsEntry("lane0.dropped", 1L);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
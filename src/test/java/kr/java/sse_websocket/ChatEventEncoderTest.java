@@ -0,0 +1,84 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kr.java.sse_websocket.chat.redis.BinaryChatEventCodec;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.EncodedChatEvent;
+import kr.java.sse_websocket.chat.redis.JsonChatEventCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatEventEncoderTest {
+
+    private final JsonChatEventCodec json = new JsonChatEventCodec(
+            new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    private final BinaryChatEventCodec binary = new BinaryChatEventCodec(64);
+
+    private final ChatEventEncoder jsonEncoder = new ChatEventEncoder(List.of(json, binary), "json");
+    private final ChatEventEncoder binaryEncoder = new ChatEventEncoder(List.of(json, binary), "binary");
+
+    @Test
+    void wrap_readsRoomIdWithoutDecodingBody() {
+        EncodedChatEvent encoded = jsonEncoder.encode(payload(7L, 11L, "hi \"there\""));
+
+        EncodedChatEvent wrapped = jsonEncoder.wrap(encoded.bytes());
+
+        assertThat(wrapped.roomId()).isEqualTo(7L);
+        assertThat(wrapped.messageId()).isEqualTo(11L);
+        assertThat(jsonEncoder.decode(wrapped.bytes()).getContent()).isEqualTo("hi \"there\"");
+    }
+
+    @Test
+    void joinArray_concatenatesEncodedEvents() {
+        byte[] a = jsonEncoder.encode(payload(1L, 1L, "a")).bytes();
+        byte[] b = jsonEncoder.encode(payload(1L, 2L, "b")).bytes();
+
+        String array = new String(jsonEncoder.joinArray(List.of(a, b)), StandardCharsets.UTF_8);
+
+        assertThat(array).startsWith("[{\"roomId\":1,\"messageId\":1,").endsWith("}]");
+        assertThat(new String(jsonEncoder.joinArray(List.of()), StandardCharsets.UTF_8)).isEqualTo("[]");
+    }
+
+    @Test
+    void binary_roundTripsAndIsSmallerThanJson() {
+        ChatEventPayload original = payload(42L, 1234L, "안녕하세요 ".repeat(40));
+        original.setProvisionalId(null);
+
+        byte[] bin = binaryEncoder.encode(original).bytes();
+        byte[] js = jsonEncoder.encode(original).bytes();
+
+        assertThat(bin.length).isLessThan(js.length / 2); // 반복 content는 deflate
+        assertThat(binaryEncoder.wrap(bin).roomId()).isEqualTo(42L);
+        assertThat(binaryEncoder.wrap(bin).messageId()).isEqualTo(1234L);
+        assertThat(binaryEncoder.decode(bin)).isEqualTo(original);
+    }
+
+    @Test
+    void mixedFormats_areReadableByEitherNode() {
+        byte[] fromJsonNode = jsonEncoder.encode(payload(3L, 1L, "old")).bytes();
+        byte[] fromBinaryNode = binaryEncoder.encode(payload(3L, 2L, "new")).bytes();
+
+        String array = new String(jsonEncoder.joinArray(List.of(fromJsonNode, fromBinaryNode)), StandardCharsets.UTF_8);
+
+        assertThat(array).contains("\"content\":\"old\"").contains("\"content\":\"new\"");
+        assertThat(binaryEncoder.fromOutboxPayload(binaryEncoder.toOutboxPayload(binaryEncoder.wrap(fromBinaryNode))).bytes())
+                .isEqualTo(fromBinaryNode);
+    }
+
+    private ChatEventPayload payload(Long roomId, Long messageId, String content) {
+        return ChatEventPayload.builder()
+                .roomId(roomId)
+                .messageId(messageId)
+                .senderUsername("user1")
+                .content(content)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -1,7 +1,7 @@
 package kr.java.sse_websocket;
 
 import kr.java.sse_websocket.chat.domain.ChatMessage;
-import kr.java.sse_websocket.chat.domain.ChatRoom;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
 import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
 import kr.java.sse_websocket.chat.service.ChatService;
 import org.junit.jupiter.api.Test;
@@ -22,14 +22,14 @@ class ChatMessagePersistTest {
 
     @Test
     void sendMessage_shouldPersistToDb() {
-        ChatRoom room = chatService.getOrCreateRoom("user1", "admin");
+        ChatRoomRef room = chatService.getOrCreateRoom("user1", "admin");
 
-        ChatMessage saved = chatService.sendMessage(room.getId(), "user1", "hello");
+        ChatMessage saved = chatService.sendMessage(room.id(), "user1", "hello");
         assertThat(saved.getId()).isNotNull();
 
         ChatMessage found = chatMessageRepository.findById(saved.getId()).orElseThrow();
         assertThat(found.getContent()).isEqualTo("hello");
         assertThat(found.getSenderUsername()).isEqualTo("user1");
-        assertThat(found.getRoomId()).isEqualTo(room.getId());
+        assertThat(found.getRoomId()).isEqualTo(room.id());
     }
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import kr.java.sse_websocket.chat.redis.BinaryChatEventCodec;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.redis.JsonChatEventCodec;
+import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
+import kr.java.sse_websocket.chat.service.ChatHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * recent list read-through 채우기(single-flight, 노드 간 락, 버전 확인, 빈 방 표시)를 로컬 Redis(Testcontainers)로 확인한다.
+ *
+ * - DB는 findByRoomIdOrderByIdDesc만 답하는 대역(Proxy)으로 바꿔, 로딩 횟수를 세고 로딩 중간에 끼어든다.
+ * - Docker가 없는 환경에서는 자동으로 skip된다.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ChatRecentFillTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static final Long ROOM = 1L;
+
+    private final ChatEventEncoder encoder = new ChatEventEncoder(List.of(
+            new JsonChatEventCodec(new ObjectMapper().findAndRegisterModules()
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)),
+            new BinaryChatEventCodec(64)), "json");
+
+    private final AtomicInteger dbLoads = new AtomicInteger();
+    private volatile Supplier<List<ChatMessage>> rows = List::of;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private ChatHistoryService history;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+
+        history = new ChatHistoryService(repository(), redisTemplate, encoder,
+                new ChatRecentNearCache(0, 60000, 100, true, "pubsub"),
+                200, 1000, 100, 3000, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void concurrentMisses_loadFromDbOnce() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        rows = () -> {
+            entered.countDown();
+            await(release);
+            return messages(2, 1);
+        };
+
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> json(history.recent(ROOM, 10)), readers));
+        }
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 100 && history.stats().get("collapsed") < 3; i++) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+
+        String first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(first);
+        }
+        readers.shutdown();
+        assertThat(dbLoads.get()).isEqualTo(1);
+        assertThat(history.stats().get("collapsed")).isEqualTo(3);
+        assertThat(redisTemplate.opsForList().size(ChatRedisKeys.recentListKey(ROOM))).isEqualTo(2);
+    }
+
+    @Test
+    void otherNodeHoldsLock_waitsForItsFill_insteadOfReadingDb() throws Exception {
+        redisTemplate.opsForValue().set(ChatRedisKeys.recentLockKey(ROOM), "other-node");
+        byte[] filled = encoder.encode(payload(messages(1, 1).get(0))).bytes();
+        CompletableFuture.runAsync(() -> {
+            sleep(100);
+            redisTemplate.opsForList().rightPush(ChatRedisKeys.recentListKey(ROOM),
+                    new String(filled, StandardCharsets.UTF_8));
+        });
+
+        String recent = json(history.recent(ROOM, 10));
+
+        assertThat(recent).contains("\"messageId\":1");
+        assertThat(dbLoads.get()).isZero();
+        assertThat(history.stats().get("lockWaits")).isEqualTo(1);
+    }
+
+    @Test
+    void otherNodeHoldsLock_withoutFill_readsDbWithoutWriting() {
+        redisTemplate.opsForValue().set(ChatRedisKeys.recentLockKey(ROOM), "other-node");
+        rows = () -> messages(1, 1);
+
+        assertThat(json(history.recent(ROOM, 10))).contains("\"messageId\":1");
+
+        assertThat(dbLoads.get()).isEqualTo(1);
+        assertThat(redisTemplate.hasKey(ChatRedisKeys.recentListKey(ROOM))).isFalse();
+    }
+
+    @Test
+    void messageArrivingDuringFill_skipsWriteBack() {
+        rows = () -> {
+            // DB를 읽는 사이 다른 노드가 메시지를 전달했다(버전 변경)
+            redisTemplate.opsForValue().increment(ChatRedisKeys.recentVersionKey(ROOM));
+            return messages(2, 1);
+        };
+
+        history.recent(ROOM, 10);
+
+        assertThat(redisTemplate.hasKey(ChatRedisKeys.recentListKey(ROOM))).isFalse();
+        assertThat(history.stats().get("fillSkipped")).isEqualTo(1);
+
+        rows = () -> messages(2, 1);
+        history.recent(ROOM, 10);
+        assertThat(redisTemplate.opsForList().size(ChatRedisKeys.recentListKey(ROOM))).isEqualTo(2);
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.recentHeadKey(ROOM))).isEqualTo("2");
+    }
+
+    @Test
+    void emptyRoom_isCached_andLaterMessagesAreAppended() {
+        assertThat(json(history.recent(ROOM, 10))).isEqualTo("[]");
+        assertThat(json(history.recent(ROOM, 10))).isEqualTo("[]");
+        assertThat(dbLoads.get()).isEqualTo(1);
+
+        RedisChatPublisher publisher = new RedisChatPublisher(redisTemplate, 100, "pubsub", 1000, 1000);
+        publisher.cacheAndPublish(encoder.encode(payload(messages(1, 1).get(0))));
+
+        assertThat(json(history.recent(ROOM, 10))).contains("\"messageId\":1");
+        assertThat(history.catchUp(ROOM, 0, 10).getSource()).isEqualTo("cache");
+        assertThat(history.catchUp(ROOM, 0, 10).getMessages())
+                .extracting(ChatEventPayload::getMessageId)
+                .containsExactly(1L);
+        assertThat(dbLoads.get()).isEqualTo(1);
+    }
+
+    // 최신순 count개(id = newestId .. newestId - count + 1)
+    private static List<ChatMessage> messages(int count, long oldestId) {
+        List<ChatMessage> newestFirst = new ArrayList<>();
+        for (long id = oldestId + count - 1; id >= oldestId; id--) {
+            newestFirst.add(ChatMessage.builder()
+                    .id(id)
+                    .roomId(ROOM)
+                    .senderUsername("fill-a")
+                    .content("m" + id)
+                    .createdAt(Instant.parse("2026-01-01T00:00:00Z").plusSeconds(id))
+                    .build());
+        }
+        return newestFirst;
+    }
+
+    private static ChatEventPayload payload(ChatMessage m) {
+        return ChatEventPayload.builder()
+                .roomId(m.getRoomId())
+                .messageId(m.getId())
+                .senderUsername(m.getSenderUsername())
+                .content(m.getContent())
+                .createdAt(m.getCreatedAt())
+                .build();
+    }
+
+    private ChatMessageRepository repository() {
+        return (ChatMessageRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ChatMessageRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.getName().equals("equals") ? proxy == args[0] : method.invoke(this, args);
+                    }
+                    if (!method.getName().equals("findByRoomIdOrderByIdDesc")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    dbLoads.incrementAndGet();
+                    return rows.get();
+                });
+    }
+
+    private static String json(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
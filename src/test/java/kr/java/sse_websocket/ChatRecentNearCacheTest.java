@@ -0,0 +1,71 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatRecentNearCacheTest {
+
+    private final ChatRecentNearCache cache = new ChatRecentNearCache(2, 60_000, 3, true, "pubsub");
+
+    @Test
+    void loadedWindow_isKeptHotByAppends_andTrimmed() {
+        cache.follow(1L);
+        cache.load(1L, cache.stamp(1L), List.of(bytes("m2"), bytes("m1")));
+
+        cache.append(1L, bytes("m3"));
+        cache.append(1L, bytes("m4"));
+
+        assertThat(cache.get(1L, 10)).extracting(ChatRecentNearCacheTest::text)
+                .containsExactly("m4", "m3", "m2");
+    }
+
+    @Test
+    void messageArrivingDuringLoad_skipsLoad() {
+        cache.follow(1L);
+        long stamp = cache.stamp(1L);
+
+        cache.append(1L, bytes("m3")); // 창이 없어서 버려진 메시지
+        cache.load(1L, stamp, List.of(bytes("m2"), bytes("m1")));
+
+        assertThat(cache.get(1L, 10)).isNull();
+    }
+
+    @Test
+    void duplicateOfLoadedMessage_isNotAppendedTwice() {
+        cache.follow(1L);
+        cache.load(1L, cache.stamp(1L), List.of(bytes("m2"), bytes("m1")));
+
+        cache.append(1L, bytes("m2"));
+
+        assertThat(cache.get(1L, 10)).extracting(ChatRecentNearCacheTest::text)
+                .containsExactly("m2", "m1");
+    }
+
+    @Test
+    void unfollowedRoom_isNotCached_andLruEvictsOldestRoom() {
+        cache.load(9L, cache.stamp(9L), List.of(bytes("x")));
+        assertThat(cache.get(9L, 10)).isNull();
+
+        for (long roomId = 1; roomId <= 3; roomId++) {
+            cache.follow(roomId);
+            cache.load(roomId, cache.stamp(roomId), List.of(bytes("r" + roomId)));
+        }
+
+        assertThat(cache.get(1L, 10)).isNull();
+        assertThat(cache.get(3L, 10)).isNotNull();
+        assertThat(cache.stats().get("l1Evictions")).isEqualTo(1L);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] b) {
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
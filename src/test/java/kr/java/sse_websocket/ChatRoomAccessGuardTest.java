@@ -0,0 +1,48 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
+import kr.java.sse_websocket.chat.service.ChatRoomAccessGuard;
+import kr.java.sse_websocket.chat.service.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChatRoomAccessGuardTest {
+
+    @Autowired
+    ChatService chatService;
+    @Autowired
+    ChatRoomAccessGuard chatRoomAccessGuard;
+
+    @Test
+    void members_areCheckedFromCache_afterFirstLookup() {
+        ChatRoomRef room = chatService.getOrCreateRoom("guard-a", "guard-b");
+        long missesBefore = chatRoomAccessGuard.stats().get("misses");
+        long hitsBefore = chatRoomAccessGuard.stats().get("hits");
+
+        chatRoomAccessGuard.assertMember(room.id(), "Guard-A ");
+        chatRoomAccessGuard.assertMember(room.id(), "guard-b");
+
+        // 방 생성/조회가 멤버를 담아 두므로 DB 조회(miss) 없이 두 번 모두 캐시에서 확인한다.
+        assertThat(chatRoomAccessGuard.stats().get("misses")).isEqualTo(missesBefore);
+        assertThat(chatRoomAccessGuard.stats().get("hits")).isEqualTo(hitsBefore + 2);
+    }
+
+    @Test
+    void nonMember_andUnknownRoom_areRejected() {
+        ChatRoomRef room = chatService.getOrCreateRoom("guard-c", "guard-d");
+
+        assertThatThrownBy(() -> chatRoomAccessGuard.assertMember(room.id(), "guard-x"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("not a member");
+        assertThatThrownBy(() -> chatRoomAccessGuard.assertMember(Long.MAX_VALUE, "guard-c"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("room not found");
+    }
+}
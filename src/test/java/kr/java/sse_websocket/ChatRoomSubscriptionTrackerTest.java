@@ -0,0 +1,168 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.chat.redis.ChatDeliveryLanes;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import kr.java.sse_websocket.chat.redis.ChatRoomSubscriptionTracker;
+import kr.java.sse_websocket.chat.redis.ChatStreamTransport;
+import kr.java.sse_websocket.chat.redis.JsonChatEventCodec;
+import kr.java.sse_websocket.chat.redis.RedisChatSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 방별 Redis 구독 참조 수 / grace 해제 / 세션 종료 정리 / 구독 준비 알림 확인.
+ * - Redis 연결 없이 시작하지 않은 listener container에 등록만 한다.
+ */
+class ChatRoomSubscriptionTrackerTest {
+
+    private final ChatEventEncoder encoder = new ChatEventEncoder(List.of(new JsonChatEventCodec(new ObjectMapper())), "json");
+    private final ChatDeliveryLanes lanes = new ChatDeliveryLanes(1, 16, 5000);
+    private final ChatRecentNearCache nearCache = new ChatRecentNearCache(10, 60_000, 100, true, "pubsub");
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    private final SimpMessagingTemplate template = messagingTemplate(sent);
+
+    private final ChatRoomSubscriptionTracker tracker = new ChatRoomSubscriptionTracker(
+            new RedisChatSubscriber(template, encoder, nearCache, lanes),
+            new ChatStreamTransport(new StringRedisTemplate(), null, encoder, false, "pubsub", 200, 1000),
+            nearCache,
+            template,
+            new StaticListableBeanFactory(Map.of("redisMessageListenerContainer", new RedisMessageListenerContainer()))
+                    .getBeanProvider(RedisMessageListenerContainer.class),
+            true,
+            200);
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(tracker, "stop");
+        ReflectionTestUtils.invokeMethod(lanes, "stop");
+    }
+
+    @Test
+    void firstSubscriber_subscribesOnce_andLastLeaverReleasesAfterGrace() {
+        subscribe("s1", "sub-1", 1L);
+        subscribe("s2", "sub-1", 1L);
+        awaitUntil(() -> stat("localRooms") == 1 && sent.size() == 2);
+
+        assertThat(stat("redisSubscribes")).isEqualTo(1);
+        assertThat(nearCache.follows(1L)).isTrue();
+
+        unsubscribe("s1", "sub-1");
+        unsubscribe("s2", "sub-1");
+        awaitUntil(() -> stat("pendingRelease") == 1);
+        assertThat(stat("subscribedRooms")).isEqualTo(1); // grace 동안은 유지
+
+        awaitUntil(() -> stat("subscribedRooms") == 0);
+        assertThat(stat("redisUnsubscribes")).isEqualTo(1);
+        assertThat(nearCache.follows(1L)).isFalse();
+    }
+
+    @Test
+    void resubscribeWithinGrace_keepsRedisSubscription() throws Exception {
+        subscribe("s1", "sub-1", 2L);
+        unsubscribe("s1", "sub-1");
+        awaitUntil(() -> stat("pendingRelease") == 1);
+
+        subscribe("s1", "sub-2", 2L);
+        awaitUntil(() -> stat("pendingRelease") == 0 && stat("localRooms") == 1);
+        Thread.sleep(400); // grace가 지나도
+
+        assertThat(stat("subscribedRooms")).isEqualTo(1);
+        assertThat(stat("redisSubscribes")).isEqualTo(1);
+        assertThat(stat("redisUnsubscribes")).isZero();
+    }
+
+    @Test
+    void disconnect_releasesAllSubscriptionsOfSession() {
+        subscribe("s1", "sub-1", 3L);
+        subscribe("s1", "sub-2", 4L);
+        awaitUntil(() -> stat("localRooms") == 2);
+
+        tracker.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s1", null, null),
+                "s1", CloseStatus.NORMAL));
+
+        awaitUntil(() -> stat("sessions") == 0 && stat("localRooms") == 0);
+        awaitUntil(() -> stat("subscribedRooms") == 0);
+        assertThat(stat("redisUnsubscribes")).isEqualTo(2);
+    }
+
+    @Test
+    void subscribedNotice_isSentToTheSubscribingSessionOnly() {
+        subscribe("s1", "sub-1", 5L);
+        awaitUntil(() -> sent.size() == 1);
+
+        Message<?> notice = sent.get(0);
+        assertThat(SimpMessageHeaderAccessor.getDestination(notice.getHeaders()))
+                .isEqualTo("/user/s1/topic/chat/subscribed");
+        assertThat(SimpMessageHeaderAccessor.getSessionId(notice.getHeaders())).isEqualTo("s1");
+        assertThat(new String((byte[]) notice.getPayload())).isEqualTo("{\"roomId\":5}");
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, Long roomId) {
+        tracker.onSubscribe(new SessionSubscribeEvent(this,
+                frame(StompCommand.SUBSCRIBE, sessionId, subscriptionId, "/topic/chat/rooms/" + roomId)));
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        tracker.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                frame(StompCommand.UNSUBSCRIBE, sessionId, subscriptionId, null)));
+    }
+
+    // 애플리케이션의 brokerMessagingTemplate처럼 JSON 변환기를 쓴다
+    private static SimpMessagingTemplate messagingTemplate(List<Message<?>> sent) {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> sent.add(message));
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+        return template;
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            headers.setSubscriptionId(subscriptionId);
+        }
+        if (destination != null) {
+            headers.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private long stat(String name) {
+        return tracker.stats().get(name);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -1,12 +1,19 @@
 package kr.java.sse_websocket;
 
-import kr.java.sse_websocket.chat.domain.ChatRoom;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
 import kr.java.sse_websocket.chat.service.ChatService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -18,11 +25,38 @@ class ChatServiceRoomTest {
 
     @Test
     void getOrCreateRoom_shouldBeIdempotent_forSamePair_evenIfOrderDiffers() {
-        ChatRoom r1 = chatService.getOrCreateRoom("user1", "admin");
-        ChatRoom r2 = chatService.getOrCreateRoom("admin", "user1");
+        ChatRoomRef r1 = chatService.getOrCreateRoom("user1", "admin");
+        ChatRoomRef r2 = chatService.getOrCreateRoom("admin", "user1");
+
+        assertThat(r1.id()).isNotNull();
+        assertThat(r2.id()).isNotNull();
+        assertThat(r1.id()).isEqualTo(r2.id());
+    }
+
+    @Test
+    void getOrCreateRoom_concurrentOpens_allGetSameRoom() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<ChatRoomRef>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                boolean flip = i % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return flip
+                            ? chatService.getOrCreateRoom("race-a", "race-b")
+                            : chatService.getOrCreateRoom("race-b", "race-a");
+                }));
+            }
+            start.countDown();
 
-        assertThat(r1.getId()).isNotNull();
-        assertThat(r2.getId()).isNotNull();
-        assertThat(r1.getId()).isEqualTo(r2.getId());
+            Long roomId = futures.get(0).get().id();
+            for (Future<ChatRoomRef> f : futures) {
+                assertThat(f.get().id()).isEqualTo(roomId);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
     }
-}
\ No newline at end of file
+}
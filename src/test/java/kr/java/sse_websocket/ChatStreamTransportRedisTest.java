@@ -0,0 +1,154 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kr.java.sse_websocket.chat.domain.ChatStreamPage;
+import kr.java.sse_websocket.chat.redis.ChatDeliveryLanes;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatEventPayload;
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.redis.ChatStreamTransport;
+import kr.java.sse_websocket.chat.redis.JsonChatEventCodec;
+import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import kr.java.sse_websocket.chat.redis.RedisChatSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * stream transport 재개(readAfter)와 순번 발급(XADD)을 로컬 Redis(Testcontainers)로 확인한다.
+ *
+ * - Docker가 없는 환경에서는 자동으로 skip된다.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ChatStreamTransportRedisTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static final Long ROOM = 1L;
+
+    private final ChatEventEncoder encoder = new ChatEventEncoder(List.of(new JsonChatEventCodec(
+            new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS))), "json");
+    private final ChatDeliveryLanes lanes = new ChatDeliveryLanes(1, 16, 5000);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RedisChatPublisher publisher;
+    private ChatStreamTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+
+        publisher = new RedisChatPublisher(redisTemplate, 100, "stream", 1000, 1000);
+        RedisChatSubscriber subscriber = new RedisChatSubscriber(new SimpMessagingTemplate((message, timeout) -> true),
+                encoder, new ChatRecentNearCache(0, 60_000, 100, true, "stream"), lanes);
+        // 읽기 스레드는 시작하지 않는다(readAfter만 확인)
+        transport = new ChatStreamTransport(redisTemplate, subscriber, encoder, true, "stream", 200, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(lanes, "stop");
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void publishedEvents_getIncreasingSeq_andResumeFromAfterSeq() {
+        publish(3);
+
+        ChatStreamPage page = transport.readAfter(ROOM, 1L, 1);
+
+        assertThat(page.getLastSeq()).isEqualTo(3);
+        assertThat(page.getEvents()).extracting(ChatStreamPage.Entry::getSeq).containsExactly(2L);
+        assertThat(page.getEvents().get(0).getEvent()).contains("\"content\":\"m2\"");
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.isResync()).isFalse();
+
+        ChatStreamPage rest = transport.readAfter(ROOM, 2L, 10);
+        assertThat(rest.getEvents()).extracting(ChatStreamPage.Entry::getSeq).containsExactly(3L);
+        assertThat(rest.isHasMore()).isFalse();
+
+        assertThat(transport.readAfter(ROOM, 3L, 10).getEvents()).isEmpty();
+        assertThat(transport.readAfter(ROOM, null, 10).getLastSeq()).isEqualTo(3);
+    }
+
+    @Test
+    void trimmedRange_asksForResync() {
+        publish(5);
+        // MAXLEN ~는 노드 단위로 잘라 정확하지 않으므로 직접 잘라 둔다
+        redisTemplate.opsForStream().trim(ChatRedisKeys.streamKey(ROOM), 2);
+
+        ChatStreamPage page = transport.readAfter(ROOM, 1L, 10);
+
+        assertThat(page.isResync()).isTrue();
+        assertThat(page.getEvents()).isEmpty();
+        assertThat(transport.readAfter(ROOM, 3L, 10).getEvents())
+                .extracting(ChatStreamPage.Entry::getSeq).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void lostSeqKey_continuesFromLastStreamEntry() {
+        publish(3);
+        redisTemplate.delete(ChatRedisKeys.seqKey(ROOM));
+
+        assertThat(transport.lastSeq(ROOM)).isEqualTo(3);
+        publish(1, "after-loss");
+
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.seqKey(ROOM))).isEqualTo("4");
+        assertThat(redisTemplate.opsForStream().range(ChatRedisKeys.streamKey(ROOM), Range.unbounded()))
+                .extracting(record -> record.getId().getValue())
+                .containsExactly("1-0", "2-0", "3-0", "4-0");
+        assertThat(transport.readAfter(ROOM, 3L, 10).getEvents())
+                .extracting(ChatStreamPage.Entry::getSeq).containsExactly(4L);
+    }
+
+    @Test
+    void afterSeqAheadOfStream_asksForResync_andNegativeIsRejected() {
+        publish(2);
+
+        assertThat(transport.readAfter(ROOM, 10L, 10).isResync()).isTrue();
+        assertThatThrownBy(() -> transport.readAfter(ROOM, -2L, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void publish(int count) {
+        publish(count, "m");
+    }
+
+    private void publish(int count, String prefix) {
+        long base = redisTemplate.opsForStream().size(ChatRedisKeys.streamKey(ROOM));
+        for (int i = 1; i <= count; i++) {
+            publisher.cacheAndPublish(encoder.encode(ChatEventPayload.builder()
+                    .roomId(ROOM)
+                    .messageId(base + i)
+                    .senderUsername("stream-a")
+                    .content(prefix + (base + i))
+                    .build()));
+        }
+    }
+}
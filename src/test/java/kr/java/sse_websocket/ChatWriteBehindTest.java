@@ -0,0 +1,88 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.domain.ChatMessage;
+import kr.java.sse_websocket.chat.domain.ChatRoomRef;
+import kr.java.sse_websocket.chat.repository.ChatMessageRepository;
+import kr.java.sse_websocket.chat.service.ChatService;
+import kr.java.sse_websocket.chat.service.ChatWriteBehindQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * write-behind 모드: 전송은 id 없이 바로 반환되고, flush 스레드가 묶어서 저장한다.
+ */
+@SpringBootTest(properties = "chat.persistence.mode=write-behind")
+@ActiveProfiles("test")
+class ChatWriteBehindTest {
+
+    @Autowired
+    ChatService chatService;
+    @Autowired
+    ChatMessageRepository chatMessageRepository;
+    @Autowired
+    ChatWriteBehindQueue chatWriteBehindQueue;
+
+    @Test
+    void sendMessage_isFlushedInBatches() throws Exception {
+        ChatRoomRef room = chatService.getOrCreateRoom("user1", "write-behind-user");
+
+        for (int i = 0; i < 30; i++) {
+            ChatMessage sent = chatService.sendMessage(room.id(), "user1", "m" + i);
+            assertThat(sent.getId()).isNull();
+        }
+
+        List<ChatMessage> stored = List.of();
+        for (int i = 0; i < 50 && stored.size() < 30; i++) {
+            Thread.sleep(100);
+            stored = chatMessageRepository.findByRoomIdOrderByCreatedAtDesc(room.id(), PageRequest.of(0, 100));
+        }
+        assertThat(stored).hasSize(30);
+        assertThat(stored).extracting(ChatMessage::getContent).contains("m0", "m29");
+    }
+
+    @Test
+    void invalidContent_isRejectedBeforeQueueing() {
+        ChatRoomRef room = chatService.getOrCreateRoom("user1", "write-behind-invalid");
+        long enqueued = chatWriteBehindQueue.stats().get("enqueued");
+
+        assertThatThrownBy(() -> chatService.sendMessage(room.id(), "user1", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> chatService.sendMessage(room.id(), "user1", "  "))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> chatService.sendMessage(room.id(), "user1", "a".repeat(ChatService.MAX_CONTENT_LENGTH + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(chatWriteBehindQueue.stats().get("enqueued")).isEqualTo(enqueued);
+    }
+
+    @Test
+    void rejectedRow_isDroppedAlone_andTheRestOfTheBatchIsStored() throws Exception {
+        ChatRoomRef room = chatService.getOrCreateRoom("user1", "write-behind-bad-row");
+        long dropped = chatWriteBehindQueue.stats().get("dropped");
+
+        chatService.sendMessage(room.id(), "user1", "ok-1");
+        // sender_username(100자)를 넘겨 DB가 거절하는 행
+        chatService.sendMessage(room.id(), "u".repeat(101), "bad");
+        chatService.sendMessage(room.id(), "user1", "ok-2");
+
+        for (int i = 0; i < 50 && chatWriteBehindQueue.stats().get("dropped") == dropped; i++) {
+            Thread.sleep(100);
+        }
+        List<ChatMessage> stored = List.of();
+        for (int i = 0; i < 50 && stored.size() < 2; i++) {
+            Thread.sleep(100);
+            stored = chatMessageRepository.findByRoomIdOrderByCreatedAtDesc(room.id(), PageRequest.of(0, 10));
+        }
+
+        assertThat(chatWriteBehindQueue.stats().get("dropped")).isEqualTo(dropped + 1);
+        assertThat(stored).extracting(ChatMessage::getContent).containsExactlyInAnyOrder("ok-1", "ok-2");
+    }
+}
@@ -0,0 +1,65 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.ws.ExactDestinationSubscriptionRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExactDestinationSubscriptionRegistryTest {
+
+    private final ExactDestinationSubscriptionRegistry registry = new ExactDestinationSubscriptionRegistry();
+
+    @Test
+    void findsOnlyExactDestination_andKeepsPreviousSnapshotUnchanged() {
+        registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "a", "/topic/chat/rooms/1"));
+        registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s2", "a", "/topic/chat/rooms/1"));
+        registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s3", "a", "/topic/chat/rooms/10"));
+
+        MultiValueMap<String, String> room1 = registry.findSubscriptions(send("/topic/chat/rooms/1"));
+        assertThat(room1).containsOnlyKeys("s1", "s2");
+
+        registry.unregisterSubscription(frame(SimpMessageType.UNSUBSCRIBE, "s2", "a", null));
+
+        // 이미 꺼낸 스냅샷은 그대로(copy-on-write), 새 조회에는 반영
+        assertThat(room1).containsOnlyKeys("s1", "s2");
+        assertThat(registry.findSubscriptions(send("/topic/chat/rooms/1"))).containsOnlyKeys("s1");
+    }
+
+    @Test
+    void unregisterAll_removesEmptyDestinations_andPatternsStillMatch() {
+        registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "a", "/topic/chat/rooms/1"));
+        registry.registerSubscription(frame(SimpMessageType.SUBSCRIBE, "s1", "b", "/topic/admin/**"));
+
+        assertThat(registry.findSubscriptions(send("/topic/admin/notifications/result")))
+                .containsEntry("s1", List.of("b"));
+
+        registry.unregisterAllSubscriptions("s1");
+
+        assertThat(registry.findSubscriptions(send("/topic/chat/rooms/1"))).isEmpty();
+        assertThat(registry.findSubscriptions(send("/topic/admin/notifications/result"))).isEmpty();
+        assertThat(registry.destinationCount()).isZero();
+    }
+
+    private static Message<?> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<?> send(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
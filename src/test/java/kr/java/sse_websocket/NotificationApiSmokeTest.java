@@ -1,8 +1,10 @@
 package kr.java.sse_websocket;
 
+import com.jayway.jsonpath.JsonPath;
 import kr.java.sse_websocket.notifications.domain.Notification;
 import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
 import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import kr.java.sse_websocket.notifications.service.NotificationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -10,8 +12,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -40,6 +45,9 @@ class NotificationApiSmokeTest {
     @Autowired
     NotificationRepository notificationRepository;
 
+    @Autowired
+    NotificationService notificationService;
+
     @Test
     @WithMockUser(username = "user1", roles = "USER")
     void notifications_list_and_unreadCount_ok() throws Exception {
@@ -70,4 +78,56 @@ class NotificationApiSmokeTest {
         mockMvc.perform(post("/api/notifications/" + saved.getId() + "/read"))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "feed-user", roles = "USER")
+    void notifications_feed_pagesWithCursor() throws Exception {
+        Instant now = Instant.now();
+        for (int i = 0; i < 3; i++) {
+            notificationRepository.save(Notification.builder()
+                    .targetType(NotificationTargetType.USER)
+                    .targetUsername("feed-user")
+                    .title("t" + i)
+                    .body("b")
+                    .sender("admin")
+                    .createdAt(now) // 같은 createdAt이어도 id로 순서가 이어진다.
+                    .build());
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/notifications/feed").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn();
+
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+        mockMvc.perform(get("/api/notifications/feed").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("t0"))
+                .andExpect(jsonPath("$.items[?(@.title == 't2')]").isEmpty())
+                .andExpect(jsonPath("$.items[?(@.title == 't1')]").isEmpty());
+
+        mockMvc.perform(get("/api/notifications/feed").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        // 형식은 맞지만 Instant 범위를 벗어난 커서
+        String outOfRange = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("99999999999999999.0:1".getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(get("/api/notifications/feed").param("cursor", outOfRange))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "inbox-user", roles = "USER")
+    void notifications_list_mergesBroadcastAndTargetedNewestFirst() throws Exception {
+        notificationService.broadcast("admin", "inbox-b1", "body");
+        notificationService.sendToUser("admin", "inbox-user", "inbox-t1", "body");
+        notificationService.sendToUser("admin", "someone-else", "inbox-hidden", "body");
+        notificationService.broadcast("admin", "inbox-b2", "body");
+
+        mockMvc.perform(get("/api/notifications").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("inbox-b2"))
+                .andExpect(jsonPath("$[1].title").value("inbox-t1"))
+                .andExpect(jsonPath("$[2].title").value("inbox-b1"));
+    }
+}
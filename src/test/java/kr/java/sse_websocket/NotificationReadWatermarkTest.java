@@ -0,0 +1,57 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.notifications.domain.NotificationReadWatermark;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationReadWatermarkTest {
+
+    private NotificationReadWatermark watermark(long readUpToId) {
+        return NotificationReadWatermark.builder()
+                .username("user1")
+                .readUpToId(readUpToId)
+                .exceptionIds("")
+                .build();
+    }
+
+    @Test
+    void addException_isIdempotent_andReadBelowWatermark() {
+        NotificationReadWatermark w = watermark(10);
+
+        assertThat(w.isRead(7)).isTrue();
+        assertThat(w.addException(7)).isFalse();
+
+        assertThat(w.addException(15)).isTrue();
+        assertThat(w.addException(15)).isFalse();
+        assertThat(w.isRead(15)).isTrue();
+        assertThat(w.isRead(12)).isFalse();
+    }
+
+    @Test
+    void compact_advancesWatermark_overContiguousBroadcastIds() {
+        NotificationReadWatermark w = watermark(10);
+        w.addException(12);
+        w.addException(20);
+        w.addException(30);
+
+        // 10 이후 ALL 알림이 12, 20, 25, 30 순서라면 25에서 멈춘다.
+        w.compact(List.of(12L, 20L, 25L));
+
+        assertThat(w.getReadUpToId()).isEqualTo(20);
+        assertThat(w.exceptions()).containsExactly(30L);
+        assertThat(w.isRead(25)).isFalse();
+    }
+
+    @Test
+    void addException_refusesWhenFull() {
+        NotificationReadWatermark w = watermark(0);
+        for (long id = 1; id <= NotificationReadWatermark.MAX_EXCEPTIONS; id++) {
+            assertThat(w.addException(id * 2)).isTrue();
+        }
+        assertThat(w.addException(100_000)).isFalse();
+        assertThat(w.isRead(100_000)).isFalse();
+    }
+}
@@ -0,0 +1,170 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.notifications.service.NotificationService;
+import kr.java.sse_websocket.outbox.domain.OutboxEvent;
+import kr.java.sse_websocket.outbox.repository.OutboxEventRepository;
+import kr.java.sse_websocket.outbox.service.OutboxDispatcher;
+import kr.java.sse_websocket.outbox.service.OutboxHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * outbox: 커밋된 이벤트만 전달되고, 롤백된 발송은 흔적이 남지 않는지, 재전달 임대가 한 노드에만 가는지,
+ * 재시도 한도에 닿은 이벤트가 포기로 집계되고 정리되는지 확인.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDispatcherTest {
+
+    @Autowired
+    NotificationService notificationService;
+
+    @Autowired
+    OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    OutboxDispatcher outboxDispatcher;
+
+    @Value("${outbox.max-attempts}")
+    int maxAttempts;
+
+    // 항상 실패하는 전달기(포기 경로 확인용)
+    @TestConfiguration
+    static class FailingHandlerConfig {
+        @Bean
+        OutboxHandler failingOutboxHandler() {
+            return new OutboxHandler() {
+                @Override
+                public Collection<String> eventTypes() {
+                    return List.of("test.fail");
+                }
+
+                @Override
+                public void handle(String eventType, String payload) {
+                    throw new IllegalStateException("always fails");
+                }
+            };
+        }
+    }
+
+    @Test
+    void committedEvent_isDispatchedAfterCommit() throws Exception {
+        long lastId = lastEventId();
+        notificationService.sendToUser("admin", "outbox-user", "t", "b");
+
+        List<OutboxEvent> events = awaitDispatched(lastId);
+        assertThat(events).extracting(OutboxEvent::getEventType).containsExactly("notification.user");
+    }
+
+    @Test
+    void rolledBackSend_leavesNoOutboxEvent() {
+        long before = outboxEventRepository.count();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationService.sendToUser("admin", "outbox-user", "rolled-back", "b");
+            status.setRollbackOnly();
+        });
+
+        assertThat(outboxEventRepository.count()).isEqualTo(before);
+    }
+
+    @Test
+    void expiredLease_isClaimedByOneOwnerOnly() {
+        // 실제 poller가 건드리지 않도록 임대는 지금 기준으로는 유효하게 두고, 조회 시각(now)을 그 뒤로 잡는다.
+        Instant now = Instant.now().plusSeconds(120);
+        OutboxEvent stale = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType("notification.user")
+                .payload("{}")
+                .attempts(0)
+                .createdAt(Instant.now())
+                .claimedBy("crashed-node")
+                .claimedUntil(now.minusSeconds(60))
+                .build());
+        List<Long> ids = List.of(stale.getId());
+
+        // 두 노드의 poller가 같은 행을 후보로 봐도 임대는 먼저 얻은 쪽만 가진다.
+        assertThat(outboxEventRepository.claim(ids, "node-a", now, now.plusSeconds(5))).isEqualTo(1);
+        assertThat(outboxEventRepository.claim(ids, "node-b", now, now.plusSeconds(5))).isZero();
+        assertThat(outboxEventRepository.findClaimed(ids, "node-a")).hasSize(1);
+        assertThat(outboxEventRepository.findClaimed(ids, "node-b")).isEmpty();
+
+        // 임대 중인 행은 후보가 아니다.
+        assertThat(outboxEventRepository.findClaimableIds(now, 10, PageRequest.of(0, 1000)))
+                .doesNotContain(stale.getId());
+
+        // 임대가 끝나면 임대했던 노드 자신도 다시 가져갈 수 있다(전달 도중 실패해도 단일 노드에서 재전달).
+        Instant later = now.plusSeconds(10);
+        assertThat(outboxEventRepository.findClaimableIds(later, 10, PageRequest.of(0, 1000)))
+                .contains(stale.getId());
+        assertThat(outboxEventRepository.claim(ids, "node-a", later, later.plusSeconds(5))).isEqualTo(1);
+
+        outboxEventRepository.markDispatched(ids, now); // 실제 poller가 보내지 않게 정리
+    }
+
+    @Test
+    void eventReachingMaxAttempts_isAbandoned_countedAndPurged() throws Exception {
+        long abandonedBefore = outboxDispatcher.stats().get("abandoned");
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType("test.fail")
+                .payload("{}")
+                .attempts(maxAttempts - 1)
+                .createdAt(Instant.now())
+                .build());
+
+        for (int i = 0; i < 50 && outboxDispatcher.stats().get("abandoned") == abandonedBefore; i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(outboxDispatcher.stats().get("abandoned")).isEqualTo(abandonedBefore + 1);
+        OutboxEvent after = outboxEventRepository.findById(event.getId()).orElseThrow();
+        assertThat(after.getAttempts()).isEqualTo(maxAttempts);
+        assertThat(after.getDispatchedAt()).isNull();
+        assertThat(outboxEventRepository.findClaimableIds(Instant.now(), maxAttempts, PageRequest.of(0, 1000)))
+                .doesNotContain(event.getId());
+
+        // 보관 기간이 지나면 정리된다(전달 완료 정리로는 지워지지 않는다).
+        outboxEventRepository.deleteDispatchedBefore(Instant.now().plusSeconds(60));
+        assertThat(outboxEventRepository.existsById(event.getId())).isTrue();
+        outboxEventRepository.deleteAbandonedBefore(maxAttempts, Instant.now().plusSeconds(60));
+        assertThat(outboxEventRepository.existsById(event.getId())).isFalse();
+    }
+
+    private long lastEventId() {
+        return outboxEventRepository.findAll(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id")))
+                .stream().mapToLong(OutboxEvent::getId).findFirst().orElse(0L);
+    }
+
+    // afterId 이후 기록된 이벤트(이 테스트의 발송분)를 id로 조회해 전달 완료를 기다린다.
+    private List<OutboxEvent> awaitDispatched(long afterId) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            long lastId = lastEventId();
+            if (lastId > afterId) {
+                List<Long> ids = LongStream.rangeClosed(afterId + 1, lastId).boxed().toList();
+                List<OutboxEvent> events = outboxEventRepository.findAllById(ids);
+                if (events.stream().allMatch(e -> e.getDispatchedAt() != null)) {
+                    return events;
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("outbox events after " + afterId + " not dispatched");
+    }
+}
@@ -0,0 +1,155 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.redis.EncodedChatEvent;
+import kr.java.sse_websocket.chat.redis.RedisChatPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RedisChatPublisher의 Lua 스크립트 + pipeline 경로를 로컬 Redis(Testcontainers)로 확인한다.
+ *
+ * - Docker가 없는 환경에서는 자동으로 skip된다.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisChatPublisherRedisTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    private RedisChatPublisher publisher(String transport) {
+        return new RedisChatPublisher(redisTemplate, 100, transport, 1000, 1000);
+    }
+
+    @Test
+    void redelivery_isSkipped_byDeliveredRecord() {
+        RedisChatPublisher publisher = publisher("pubsub");
+        redisTemplate.opsForList().leftPush(ChatRedisKeys.recentListKey(1L), "m0"); // 채워진 recent list
+        List<EncodedChatEvent> events = List.of(event(1L, "m1"), event(1L, "m2"));
+
+        assertThat(publisher.cacheAndPublishAll(events)).isEmpty();
+        // outbox 재전달(같은 이벤트 다시)
+        assertThat(publisher.cacheAndPublishAll(events)).isEmpty();
+        publisher.cacheAndPublish(event(1L, "m2"));
+
+        assertThat(redisTemplate.opsForList().range(ChatRedisKeys.recentListKey(1L), 0, -1))
+                .containsExactly("m2", "m1", "m0");
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.recentVersionKey(1L))).isEqualTo("2");
+    }
+
+    @Test
+    void failedCommandInPipeline_isReported_andOthersAreNotRedone() {
+        RedisChatPublisher publisher = publisher("pubsub");
+        redisTemplate.opsForList().leftPush(ChatRedisKeys.recentListKey(1L), "m0");
+        // 방 2의 recent 키를 다른 타입으로 만들어 LPUSHX가 WRONGTYPE으로 실패하게 한다.
+        redisTemplate.opsForValue().set(ChatRedisKeys.recentListKey(2L), "not-a-list");
+
+        List<EncodedChatEvent> events = List.of(event(1L, "a1"), event(2L, "b1"), event(1L, "a2"));
+        assertThat(publisher.cacheAndPublishAll(events)).containsExactly(1);
+
+        // 실패한 메시지만 다시 보내면 나머지는 한 번씩만 반영돼 있다.
+        redisTemplate.delete(ChatRedisKeys.recentListKey(2L));
+        publisher.cacheAndPublish(events.get(1));
+        assertThat(publisher.cacheAndPublishAll(events)).isEmpty(); // 전체 재전달도 중복 없음
+
+        assertThat(redisTemplate.opsForList().range(ChatRedisKeys.recentListKey(1L), 0, -1))
+                .containsExactly("a2", "a1", "m0");
+        assertThat(redisTemplate.opsForZSet().size(ChatRedisKeys.deliveredKey(2L))).isEqualTo(1);
+    }
+
+    @Test
+    void streamTransport_appendsOncePerEvent_withIncreasingSeq() {
+        RedisChatPublisher publisher = publisher("stream");
+        List<EncodedChatEvent> events = List.of(event(3L, "s1"), event(3L, "s2"), event(3L, "s3"));
+
+        assertThat(publisher.cacheAndPublishAll(events)).isEmpty();
+        assertThat(publisher.cacheAndPublishAll(events)).isEmpty();
+
+        assertThat(redisTemplate.opsForStream().size(ChatRedisKeys.streamKey(3L))).isEqualTo(3);
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.seqKey(3L))).isEqualTo("3");
+        assertThat(redisTemplate.opsForStream().range(ChatRedisKeys.streamKey(3L), Range.unbounded()))
+                .extracting(record -> record.getId().getValue())
+                .containsExactly("1-0", "2-0", "3-0");
+    }
+
+    @Test
+    void messageAlreadyInFilledList_dropsTheListInsteadOfDuplicating() {
+        RedisChatPublisher publisher = publisher("pubsub");
+        // 커밋 ~ outbox 전달 사이에 채우기가 id 5까지 담았다.
+        redisTemplate.opsForList().rightPushAll(ChatRedisKeys.recentListKey(4L), "m5", "m4");
+        redisTemplate.opsForValue().set(ChatRedisKeys.recentHeadKey(4L), "5");
+
+        publisher.cacheAndPublish(event(4L, 5L, "m5"));
+
+        assertThat(redisTemplate.hasKey(ChatRedisKeys.recentListKey(4L))).isFalse();
+        assertThat(redisTemplate.hasKey(ChatRedisKeys.recentHeadKey(4L))).isFalse();
+    }
+
+    @Test
+    void newerMessage_isPushed_andAdvancesHead() {
+        RedisChatPublisher publisher = publisher("stream");
+        redisTemplate.opsForList().rightPushAll(ChatRedisKeys.recentListKey(5L), "m5", "m4");
+        redisTemplate.opsForValue().set(ChatRedisKeys.recentHeadKey(5L), "5");
+
+        publisher.cacheAndPublish(event(5L, 6L, "m6"));
+        publisher.cacheAndPublish(event(5L, null, "p1")); // write-behind 임시 메시지는 head와 무관하게 붙는다
+
+        assertThat(redisTemplate.opsForList().range(ChatRedisKeys.recentListKey(5L), 0, -1))
+                .containsExactly("p1", "m6", "m5", "m4");
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.recentHeadKey(5L))).isEqualTo("6");
+    }
+
+    @Test
+    void versionKeys_expire() {
+        RedisChatPublisher publisher = publisher("pubsub");
+
+        publisher.cacheAndPublish(event(6L, 1L, "m1"));
+        publisher.bumpRecentVersions(List.of(7L));
+
+        assertThat(redisTemplate.getExpire(ChatRedisKeys.recentVersionKey(6L))).isPositive();
+        assertThat(redisTemplate.getExpire(ChatRedisKeys.recentVersionKey(7L))).isPositive();
+        assertThat(redisTemplate.opsForValue().get(ChatRedisKeys.recentVersionKey(7L))).isEqualTo("1");
+    }
+
+    private static EncodedChatEvent event(Long roomId, String body) {
+        return event(roomId, null, body);
+    }
+
+    private static EncodedChatEvent event(Long roomId, Long messageId, String body) {
+        return new EncodedChatEvent(roomId, messageId, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
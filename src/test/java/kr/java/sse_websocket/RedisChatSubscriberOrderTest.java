@@ -0,0 +1,134 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.chat.redis.ChatDeliveryLanes;
+import kr.java.sse_websocket.chat.redis.ChatEventEncoder;
+import kr.java.sse_websocket.chat.redis.ChatRecentNearCache;
+import kr.java.sse_websocket.chat.redis.ChatRedisKeys;
+import kr.java.sse_websocket.chat.redis.JsonChatEventCodec;
+import kr.java.sse_websocket.chat.redis.RedisChatSubscriber;
+import kr.java.sse_websocket.config.RedisChatConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis 수신(onMessage) → 방별 레인 → STOMP 전송까지 같은 방의 순서가 유지되는지,
+ * 레인이 가득 차 버린 방에는 resync 알림이 가는지 확인.
+ */
+class RedisChatSubscriberOrderTest {
+
+    private final ChatDeliveryLanes lanes = new ChatDeliveryLanes(4, 16, 5000);
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(lanes, "stop");
+    }
+
+    @Test
+    void onMessage_keepsArrivalOrderPerRoom() throws Exception {
+        int rooms = 6;
+        int perRoom = 200;
+        Map<String, List<String>> sent = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(rooms * perRoom);
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+            record(sent, message);
+            done.countDown();
+            return true;
+        });
+        RedisChatSubscriber subscriber = new RedisChatSubscriber(template, encoder(),
+                new ChatRecentNearCache(0, 60_000, 100, true, "pubsub"), lanes);
+
+        // 수신 스레드 1개(SyncTaskExecutor)에서 도착 순서대로 호출된다.
+        for (int i = 0; i < perRoom; i++) {
+            for (long roomId = 1; roomId <= rooms; roomId++) {
+                String body = "{\"roomId\":" + roomId + ",\"content\":\"" + i + "\"}";
+                subscriber.onMessage(new DefaultMessage(
+                        ChatRedisKeys.channelRoom(roomId).getBytes(StandardCharsets.UTF_8),
+                        body.getBytes(StandardCharsets.UTF_8)), null);
+            }
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            List<Integer> order = sent.get("/topic/chat/rooms/" + roomId).stream()
+                    .map(body -> Integer.valueOf(body.replaceAll(".*\"content\":\"(\\d+)\".*", "$1")))
+                    .toList();
+            assertThat(order).hasSize(perRoom).isSorted();
+        }
+    }
+
+    @Test
+    void droppedDelivery_sendsOneResyncNoticeToTheRoom() throws Exception {
+        ChatDeliveryLanes fullLanes = new ChatDeliveryLanes(1, 1, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Message<?>> sent = new CopyOnWriteArrayList<>();
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> {
+            if (SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader("resync") != null) {
+                sent.add(message);
+                return true;
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS); // 첫 전달이 레인을 붙잡고 있는다
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+        RedisChatSubscriber subscriber = new RedisChatSubscriber(template, encoder(),
+                new ChatRecentNearCache(0, 60_000, 100, true, "pubsub"), fullLanes);
+        try {
+            // 실행 중 1 + 대기열 1을 넘긴 나머지는 버려지고, 알림은 방별로 1번만 간다.
+            for (int i = 0; i < 5; i++) {
+                String body = "{\"roomId\":7,\"content\":\"" + i + "\"}";
+                subscriber.onMessage(new DefaultMessage(
+                        ChatRedisKeys.channelRoom(7L).getBytes(StandardCharsets.UTF_8),
+                        body.getBytes(StandardCharsets.UTF_8)), null);
+            }
+
+            assertThat(sent).hasSize(1);
+            assertThat(SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders())).isEqualTo("/topic/chat/rooms/7");
+            assertThat(subscriber.resyncNotices()).isEqualTo(1);
+            assertThat(fullLanes.stats().get("lane0.dropped")).isGreaterThanOrEqualTo(2L);
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.invokeMethod(fullLanes, "stop");
+        }
+    }
+
+    @Test
+    void listenerContainer_callsListenerOnReceivingThread() {
+        RedisChatConfig config = new RedisChatConfig(new LettuceConnectionFactory());
+        ReflectionTestUtils.setField(config, "dynamicSubscriptions", true);
+        RedisMessageListenerContainer container = config.redisMessageListenerContainer(null);
+
+        assertThat(ReflectionTestUtils.getField(container, "taskExecutor")).isInstanceOf(SyncTaskExecutor.class);
+    }
+
+    private static void record(Map<String, List<String>> sent, Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String body = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+        sent.computeIfAbsent(destination, k -> new CopyOnWriteArrayList<>()).add(body);
+    }
+
+    private static ChatEventEncoder encoder() {
+        return new ChatEventEncoder(List.of(new JsonChatEventCodec(new ObjectMapper().findAndRegisterModules())), "json");
+    }
+}
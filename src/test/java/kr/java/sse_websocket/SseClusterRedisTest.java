@@ -0,0 +1,140 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.cluster.SseClusterEnvelope;
+import kr.java.sse_websocket.notifications.cluster.SseDeliveryRouter;
+import kr.java.sse_websocket.notifications.cluster.SsePresenceDirectory;
+import kr.java.sse_websocket.notifications.utils.SseEmitterRegistry;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.notifications.utils.SseHeartbeatWheel;
+import kr.java.sse_websocket.notifications.utils.SseReplayBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 클러스터 presence + 노드 채널 전달을 로컬 Redis(Testcontainers)로 확인한다.
+ *
+ * - Docker가 없는 환경에서는 자동으로 skip된다.
+ * - 노드 2개(node-a, node-b)를 같은 JVM 안에서 흉내낸다.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SseClusterRedisTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RedisMessageListenerContainer container;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+        connectionFactory.destroy();
+    }
+
+    private SsePresenceDirectory presence(String nodeId) {
+        return new SsePresenceDirectory(redisTemplate, true, nodeId, 90);
+    }
+
+    @Test
+    void unregister_onlyDeletesWhenThisNodeIsOwner() {
+        SsePresenceDirectory nodeA = presence("node-a");
+        SsePresenceDirectory nodeB = presence("node-b");
+
+        nodeA.register("user1");
+        awaitValue(() -> nodeA.ownerOf("user1"), Optional.of("node-a"));
+
+        // user1이 node-b로 재연결한 뒤, node-a의 이전 연결이 늦게 정리되는 상황
+        nodeB.register("user1");
+        awaitValue(() -> nodeA.ownerOf("user1"), Optional.of("node-b"));
+        nodeA.unregister("user1");
+
+        sleep(200);
+        assertThat(nodeA.ownerOf("user1")).contains("node-b");
+    }
+
+    @Test
+    void sendToUser_publishesOnlyToOwningNodeChannel() {
+        SsePresenceDirectory nodeA = presence("node-a");
+        SsePresenceDirectory nodeB = presence("node-b");
+
+        List<SseClusterEnvelope> receivedByB = new CopyOnWriteArrayList<>();
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            try {
+                receivedByB.add(objectMapper.readValue(message.getBody(), SseClusterEnvelope.class));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, new ChannelTopic(SsePresenceDirectory.nodeChannel("node-b")));
+        container.afterPropertiesSet();
+        container.start();
+
+        // user1은 node-b에 연결되어 있다.
+        nodeB.register("user1");
+        awaitValue(() -> nodeA.ownerOf("user1"), Optional.of("node-b"));
+
+        SseEmitterRegistry registryA = new SseEmitterRegistry(objectMapper, new SseHeartbeatWheel(15000, 45000, 4),
+                nodeA, 16, 1, 0);
+        SseDeliveryRouter routerA = new SseDeliveryRouter(registryA, new SseReplayBuffer(16), nodeA,
+                redisTemplate, objectMapper);
+
+        SseFrame frame = SseFrame.of("notification", 7L, "hello", objectMapper);
+        boolean delivered = routerA.sendToUser("user1", 7L, frame);
+
+        assertThat(delivered).isTrue();
+        awaitValue(receivedByB::size, 1);
+        SseClusterEnvelope envelope = receivedByB.get(0);
+        assertThat(envelope.getUsername()).isEqualTo("user1");
+        assertThat(envelope.getId()).isEqualTo(7L);
+        assertThat(envelope.getOriginNodeId()).isEqualTo("node-a");
+        assertThat(envelope.getFrame()).isEqualTo(frame.text());
+    }
+
+    private static <T> void awaitValue(Supplier<T> actual, T expected) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline && !expected.equals(actual.get())) {
+            sleep(50);
+        }
+        assertThat(actual.get()).isEqualTo(expected);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.utils.SseConnection;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.notifications.utils.SseHeartbeatWheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 연결별 outbound 큐 동작 확인.
+ *
+ * - 느린(멈춘) 연결이 있어도 offer는 즉시 반환되어야 한다.
+ * - 큐가 가득 차면 해당 연결만 닫힌다.
+ * - 멈춘 연결을 정리(reap)해도 writer 스레드가 붙잡히지 않는다.
+ */
+class SseConnectionQueueTest {
+
+    private final ExecutorService writers = Executors.newFixedThreadPool(2);
+    private final ExecutorService closers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        writers.shutdownNow();
+        closers.shutdownNow();
+    }
+
+    @Test
+    void offer_doesNotBlock_whenWriterIsStalled_and_overflowClosesConnection() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean removed = new AtomicBoolean(false);
+
+        SseEmitter stalled = new SseEmitter(0L) {
+            @Override
+            public void send(Set<DataWithMediaType> items) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        SseConnection connection = new SseConnection("user1", stalled, 2, writers, closers, c -> removed.set(true));
+
+        long started = System.nanoTime();
+        // 1건은 writer가 잡고 멈춤, 2건은 큐에 적재, 그 다음은 포화
+        SseFrame frame = SseFrame.of("notification", "a", new ObjectMapper());
+        boolean first = connection.offer(frame);
+        Thread.sleep(100);
+        boolean second = connection.offer(frame);
+        boolean third = connection.offer(frame);
+        boolean overflow = connection.offer(frame);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        release.countDown();
+
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isTrue();
+        assertThat(overflow).isFalse();
+        assertThat(connection.isClosed()).isTrue();
+        assertThat(removed.get()).isTrue();
+        assertThat(connection.stats().getDropped()).isEqualTo(1);
+        assertThat(elapsedMillis).isLessThan(1_000);
+    }
+
+    @Test
+    void reapingStalledConnection_doesNotPinWriterThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        Object writeLock = new Object();
+
+        // send가 lock을 쥔 채 멈추고, complete는 같은 lock을 기다린다(실제 emitter와 같은 구조)
+        SseEmitter stuck = new SseEmitter(0L) {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                synchronized (writeLock) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void complete() {
+                synchronized (writeLock) {
+                    completed.countDown();
+                }
+            }
+        };
+        CountDownLatch healthySent = new CountDownLatch(1);
+        SseEmitter healthy = new SseEmitter(0L) {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                healthySent.countDown();
+            }
+        };
+
+        SseConnection stalled = new SseConnection("stalled", stuck, 8, writers, closers, c -> { });
+        SseConnection other = new SseConnection("other", healthy, 8, writers, closers, c -> { });
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(100, 50, 1);
+        wheel.register(stalled);
+        ReflectionTestUtils.invokeMethod(wheel, "start");
+        try {
+            SseFrame frame = SseFrame.of("notification", "a", new ObjectMapper());
+            stalled.offer(frame); // writer 1개가 멈춘 send에 묶인다
+
+            for (int i = 0; i < 50 && !stalled.isClosed(); i++) {
+                Thread.sleep(20);
+            }
+            assertThat(stalled.isClosed()).isTrue();
+            assertThat(wheel.stats().get("reaped")).isEqualTo(1L);
+
+            // 정리 중인 complete가 writer를 잡고 있지 않으므로 다른 연결 전송은 남은 writer로 바로 나간다.
+            other.offer(frame);
+            assertThat(healthySent.await(1, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.invokeMethod(wheel, "stop");
+        }
+        assertThat(completed.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+}
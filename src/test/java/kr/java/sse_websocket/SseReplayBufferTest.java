@@ -0,0 +1,79 @@
+package kr.java.sse_websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kr.java.sse_websocket.notifications.utils.SseFrame;
+import kr.java.sse_websocket.notifications.utils.SseReplayBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Last-Event-ID 재연결 복구용 링 버퍼 동작 확인.
+ *
+ * - 버퍼 범위 안: 놓친 것 중 "보이는" 이벤트만 id 순으로 반환
+ * - 버퍼에서 밀려난 id / 중간에 빈 id: resync (DB 복구 필요)
+ * - 같은 id 재기록은 무시
+ */
+class SseReplayBufferTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SseFrame frame(long id) {
+        return SseFrame.of("notification", id, "n" + id, objectMapper);
+    }
+
+    @Test
+    void since_returnsOnlyMissedAndVisibleFrames() {
+        SseReplayBuffer buffer = new SseReplayBuffer(8);
+        SseFrame f1 = frame(1);
+        SseFrame f2 = frame(2);
+        SseFrame f3 = frame(3);
+        buffer.record(1, null, f1);
+        buffer.record(2, "admin", f2);
+        buffer.record(3, "user1", f3);
+
+        SseReplayBuffer.Replay missed = buffer.since(1, "user1");
+
+        assertThat(missed.resync()).isFalse();
+        assertThat(missed.frames()).containsExactly(f3);
+    }
+
+    @Test
+    void since_asksForResync_whenLastEventIdAgedOut() {
+        SseReplayBuffer buffer = new SseReplayBuffer(2);
+        buffer.record(1, null, frame(1));
+        buffer.record(2, null, frame(2));
+        buffer.record(3, null, frame(3)); // 1이 밀려남
+
+        assertThat(buffer.since(1, "user1").resync()).isTrue();
+        assertThat(buffer.since(2, "user1").resync()).isFalse();
+    }
+
+    @Test
+    void since_asksForResync_whenIdsAfterLastEventIdHaveAGap() {
+        SseReplayBuffer buffer = new SseReplayBuffer(8);
+        buffer.record(1, null, frame(1));
+        buffer.record(2, null, frame(2));
+        buffer.record(4, null, frame(4)); // 3은 다른 노드로 전달됐다
+
+        assertThat(buffer.since(1, "user1").resync()).isTrue();
+        assertThat(buffer.since(3, "user1").frames()).hasSize(1);
+
+        buffer.record(3, "user1", frame(3));
+        assertThat(buffer.since(1, "user1").resync()).isFalse();
+        assertThat(buffer.since(1, "user1").frames()).hasSize(3);
+    }
+
+    @Test
+    void record_ignoresSameIdAgain() {
+        SseReplayBuffer buffer = new SseReplayBuffer(2);
+        SseFrame f1 = frame(1);
+        SseFrame f2 = frame(2);
+        buffer.record(1, null, f1);
+        buffer.record(2, null, f2);
+        buffer.record(2, null, frame(2)); // 재전달: 1을 밀어내지 않는다
+
+        assertThat(buffer.since(1, "user1").frames()).containsExactly(f2);
+        assertThat(buffer.since(0, "user1").resync()).isTrue(); // 0 < 가장 오래된 id
+    }
+}
@@ -0,0 +1,130 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.notifications.cluster.SseDeliveryRouter;
+import kr.java.sse_websocket.notifications.service.UnreadCountPusher;
+import kr.java.sse_websocket.notifications.service.UnreadCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * unreadCount push 합치기: debounce 안의 요청은 1번만 push, 트랜잭션 안의 요청은 커밋 이후에만 push,
+ * 같은 사용자의 flush는 겹치지 않는지 확인.
+ *
+ * - 계산/전송은 기록용 stub으로 바꾸고, 트랜잭션만 실제 TransactionTemplate을 쓴다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UnreadCountPusherTest {
+
+    private static final long DEBOUNCE_MS = 100;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private final List<Long> pushes = new CopyOnWriteArrayList<>();
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private volatile long computeMillis;
+
+    private UnreadCountPusher pusher;
+
+    @BeforeEach
+    void setUp() {
+        UnreadCounterService unreadCounterService = new UnreadCounterService(null, null, null, null, 0) {
+            @Override
+            public long unreadCount(String username) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    sleep(computeMillis);
+                    return counter.incrementAndGet();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        SseDeliveryRouter sseDeliveryRouter = new SseDeliveryRouter(null, null, null, null, null) {
+            @Override
+            public boolean sendToUser(String username, String eventName, Object data) {
+                pushes.add((Long) data);
+                return true;
+            }
+        };
+        pusher = new UnreadCountPusher(unreadCounterService, sseDeliveryRouter, DEBOUNCE_MS, 2);
+    }
+
+    @Test
+    void requestsWithinDebounce_areCoalescedIntoOnePush() {
+        for (int i = 0; i < 20; i++) {
+            pusher.request("push-user");
+        }
+
+        sleep(DEBOUNCE_MS * 3);
+
+        assertThat(pushes).hasSize(1);
+        assertThat(pusher.stats()).containsEntry("requested", 20L).containsEntry("pushed", 1L);
+    }
+
+    @Test
+    void requestInsideTransaction_isPushedOnlyAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            pusher.request("push-user");
+            sleep(DEBOUNCE_MS * 3);
+            // 커밋 전에는 예약조차 되지 않는다.
+            assertThat(pusher.stats()).containsEntry("requested", 0L);
+            assertThat(pushes).isEmpty();
+        });
+
+        sleep(DEBOUNCE_MS * 3);
+
+        assertThat(pushes).hasSize(1);
+    }
+
+    @Test
+    void rolledBackRequest_isNeverPushed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            pusher.request("push-user");
+            status.setRollbackOnly();
+        });
+
+        sleep(DEBOUNCE_MS * 3);
+
+        assertThat(pusher.stats()).containsEntry("requested", 0L);
+        assertThat(pushes).isEmpty();
+    }
+
+    @Test
+    void slowFlush_doesNotOverlapWithTheNextFlushOfTheSameUser() {
+        computeMillis = DEBOUNCE_MS * 4;
+        pusher.request("push-user");
+        // 첫 flush가 계산 중일 때 다음 요청 → 다음 flush 예약 시각이 첫 flush보다 먼저 온다.
+        sleep(DEBOUNCE_MS + 50);
+        pusher.request("push-user");
+
+        sleep(DEBOUNCE_MS * 12);
+
+        assertThat(maxRunning.get()).isEqualTo(1);
+        assertThat(pushes).containsExactly(1L, 2L);
+        assertThat(pusher.stats().get("deferred")).isPositive();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package kr.java.sse_websocket;
+
+import kr.java.sse_websocket.notifications.domain.Notification;
+import kr.java.sse_websocket.notifications.domain.NotificationCounter;
+import kr.java.sse_websocket.notifications.domain.NotificationMessage;
+import kr.java.sse_websocket.notifications.domain.NotificationTargetType;
+import kr.java.sse_websocket.notifications.repository.NotificationCounterRepository;
+import kr.java.sse_websocket.notifications.repository.NotificationRepository;
+import kr.java.sse_websocket.notifications.service.NotificationReadService;
+import kr.java.sse_websocket.notifications.service.NotificationService;
+import kr.java.sse_websocket.notifications.service.UnreadCounterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 증분 안읽음 카운터가 원본 기준 안읽음 수와 같은 값을 내는지 확인.
+ * - 기대값은 카운터 코드(recount)가 아니라 보이는 알림을 1건씩 읽음 여부로 센 값이다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UnreadCounterTest {
+
+    @Autowired
+    NotificationService notificationService;
+
+    @Autowired
+    NotificationReadService notificationReadService;
+
+    @Autowired
+    UnreadCounterService unreadCounterService;
+
+    @Autowired
+    NotificationRepository notificationRepository;
+
+    @Autowired
+    NotificationCounterRepository counterRepository;
+
+    @Test
+    void counter_matchesRecount_afterSendsAndReads() {
+        String username = "counter-user";
+        // 카운터 초기화(이전 테스트 데이터 포함)
+        long before = unreadCounterService.unreadCount(username);
+
+        NotificationMessage b1 = notificationService.broadcast("admin", "b1", "body");
+        notificationService.broadcast("admin", "b2", "body");
+        NotificationMessage t1 = notificationService.sendToUser("admin", "Counter-User", "t1", "body");
+        notificationService.sendToUser("admin", "other-user", "t2", "body");
+
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(before + 3);
+
+        notificationReadService.markRead(username, b1.getId());
+        notificationReadService.markRead(username, t1.getId());
+        // idempotent: 두 번째 읽음은 카운터를 바꾸지 않는다.
+        notificationReadService.markRead(username, t1.getId());
+
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(before + 1);
+        assertThat(unreadFromSource(username)).isEqualTo(before + 1);
+    }
+
+    @Test
+    void bulkRead_andReadAll_keepCounterInSync() {
+        String username = "bulk-user";
+        long before = unreadCounterService.unreadCount(username); // 카운터 초기화
+
+        NotificationMessage b1 = notificationService.broadcast("admin", "b1", "body");
+        NotificationMessage t1 = notificationService.sendToUser("admin", username, "t1", "body");
+        NotificationMessage t2 = notificationService.sendToUser("admin", username, "t2", "body");
+        NotificationMessage hidden = notificationService.sendToUser("admin", "other-user", "t3", "body");
+
+        int read = notificationReadService.markReadMany(username,
+                List.of(b1.getId(), t1.getId(), hidden.getId(), t1.getId()));
+        assertThat(read).isEqualTo(2);
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(before + 1);
+        assertThat(unreadFromSource(username)).isEqualTo(before + 1);
+
+        notificationReadService.markReadUpTo(username, t2.getId());
+        assertThat(unreadCounterService.unreadCount(username)).isZero();
+    }
+
+    @Test
+    void readAll_isClampedToNewestNotification() {
+        String username = "clamp-user";
+        notificationService.broadcast("admin", "before", "body");
+        unreadCounterService.unreadCount(username); // 카운터 초기화
+
+        notificationReadService.markReadUpTo(username, 9_999_999_999L);
+        assertThat(unreadCounterService.unreadCount(username)).isZero();
+
+        // upTo가 최신 id로 잘렸으므로 이후 도착한 알림은 안읽음
+        notificationService.broadcast("admin", "after", "body");
+        notificationService.sendToUser("admin", username, "after-t", "body");
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(2);
+        assertThat(unreadFromSource(username)).isEqualTo(2);
+
+        assertThatThrownBy(() -> notificationReadService.markReadUpTo(username, 0L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void existingDatabaseWithoutCounters_isSeededFromSource_notFromDeltas() {
+        String username = "unseeded-user";
+        notificationService.broadcast("admin", "old-b", "body");
+        NotificationMessage oldTargeted = notificationService.sendToUser("admin", username, "old-t", "body");
+        counterRepository.deleteAll(); // 알림만 있고 카운터는 없는 기존 DB
+
+        // 초기화 전에 도착한 발송/읽음(델타만 든 행이 생기면 안 된다)
+        NotificationMessage b = notificationService.broadcast("admin", "new-b", "body");
+        notificationService.sendToUser("admin", username, "new-t", "body");
+        notificationReadService.markRead(username, b.getId());
+        notificationReadService.markRead(username, oldTargeted.getId());
+
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(unreadFromSource(username));
+        assertThat(counterRepository.findById("broadcast:total"))
+                .get()
+                .extracting(NotificationCounter::getCounterValue)
+                .isEqualTo(notificationRepository.countByTargetType(NotificationTargetType.ALL));
+
+        // 초기화 이후의 증감은 그대로 반영된다.
+        notificationService.broadcast("admin", "after-seed", "body");
+        assertThat(unreadCounterService.unreadCount(username)).isEqualTo(unreadFromSource(username));
+    }
+
+    // 보이는 알림 전체 - 목록 화면 기준 읽은 알림(readIdsAmong). 카운터 코드와 독립적인 기대값.
+    private long unreadFromSource(String username) {
+        List<Notification> visible = notificationRepository.findVisibleForUserAfterId(
+                username, 0L, PageRequest.of(0, 100_000));
+        return visible.size() - notificationReadService.readIdsAmong(username, visible).size();
+    }
+}